@@ -19,6 +19,7 @@ package org.jredis;
 import java.io.Serializable;
 import java.util.List;
 import java.util.Map;
+import org.jredis.protocol.MultiBulkStream;
 
 
 /**
@@ -78,6 +79,14 @@ public interface JRedis {
 	 * @Redis QUIT
 	 */
 	public <K extends Object> void quit ();
+
+	/**
+	 * Creates a batch of requests that are sent in one round trip, for
+	 * callers issuing a number of independent requests.
+	 * @return a new (empty) batch of this client
+	 * @see JRedisBatch
+	 */
+	public JRedisBatch batch ();
 	
 	// ------------------------------------------------------------------------
 	// "Commands operating on string values"
@@ -163,6 +172,71 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<byte[]> mget(K...keys) throws RedisException;
 
+	/**
+	 * MGET of a (large) set of keys, sent as a sequence of MGETs of at most sliceSize
+	 * keys each.  The slices are pipelined on the connection, a bounded number of slices
+	 * per round trip, so that neither the server nor the client handle more than a few
+	 * slices' worth of keys and values at a time.
+	 * @Redis MGET
+	 * @param keys
+	 * @param sliceSize max number of keys per MGET
+	 * @return the values of the keys, in key order
+	 * @throws RedisException
+	 */
+	public <K extends Object> List<byte[]> mget(K[] keys, int sliceSize) throws RedisException;
+
+	/**
+	 * Sliced MGET per {@link JRedis#mget(Object[], int)} that hands each slice's values
+	 * to the consumer (in order) instead of accumulating them.
+	 * @Redis MGET
+	 * @param keys
+	 * @param sliceSize max number of keys per MGET
+	 * @param consumer
+	 * @throws RedisException
+	 */
+	public <K extends Object> void mget(K[] keys, int sliceSize, SliceConsumer<byte[]> consumer) throws RedisException;
+
+	/**
+	 * MGET of (counter) keys, with the values decoded directly into a long[], without
+	 * per value {@link Long}s.
+	 * @Redis MGET
+	 * @param keys
+	 * @return the values of the keys, in key order.  Nonexistent keys' values are 0.
+	 * @throws RedisException
+	 * @throws IllegalArgumentException if a value is not a number
+	 */
+	public <K extends Object> long[] mgetLongs(K...keys) throws RedisException;
+
+	/**
+	 * MGET of keys with (floating point) number values, decoded directly into a double[].
+	 * @Redis MGET
+	 * @param keys
+	 * @return the values of the keys, in key order.  Nonexistent keys' values are {@link Double#NaN}.
+	 * @throws RedisException
+	 * @throws IllegalArgumentException if a value is not a number
+	 */
+	public <K extends Object> double[] mgetDoubles(K...keys) throws RedisException;
+
+	/**
+	 * @Redis MSET
+	 * @param keyValueMap a {@link Map}ping of {@link String} key names to byte[] values.
+	 * @param sliceSize max number of key-value pairs per MSET
+	 * @throws RedisException
+	 * @see JRedis#mset(KeyValueSet, int)
+	 */
+	public <K extends Object> void mset(Map<K, byte[]> keyValueMap, int sliceSize) throws RedisException;
+
+	/**
+	 * MSET of a (large) set of mappings, sent as a sequence of MSETs of at most sliceSize
+	 * pairs each, pipelined per {@link JRedis#mget(Object[], int)}.  Note that the set as
+	 * a whole is <b>not</b> set atomically: only each slice is.
+	 * @Redis MSET
+	 * @param mappings
+	 * @param sliceSize max number of key-value pairs per MSET
+	 * @throws RedisException
+	 */
+	public <K extends Object> void mset(KeyValueSet<K, ?> mappings, int sliceSize) throws RedisException;
+
 	/**
 	 * @Redis MSET
 	 * @param keyValueMap a {@link Map}ping of {@link String} key names to byte[] values.
@@ -293,6 +367,31 @@ public interface JRedis {
 	 * @see {@link JRedis#keys(String)}
 	 */
 	public <K extends Object> List<byte[]> keys () throws RedisException;
+	
+	/**
+	 * Streaming variant of {@link JRedis#keys(Object)}.  Keys are read from the 
+	 * connection as the returned stream is iterated.
+	 * @Redis KEYS
+	 * @param pattern
+	 * @return
+	 * @throws RedisException
+	 * @see MultiBulkStream
+	 */
+	public <K extends Object> MultiBulkStream keysStream (K pattern) throws RedisException;
+
+	/**
+	 * Incremental variant of {@link JRedis#keys(Object)}, for iterating over large key 
+	 * spaces without blocking the server with a single KEYS, or accumulating all the keys
+	 * in one reply.  Uses SCAN if the server (per INFO) supports it, and otherwise streams 
+	 * the reply of a KEYS.
+	 * @Redis SCAN
+	 * @param pattern
+	 * @param count the number of keys to fetch per SCAN -- a hint to the server 
+	 * @return the iterator over the matching keys
+	 * @throws RedisException
+	 * @see KeyIterator
+	 */
+	public <K extends Object> KeyIterator keysIterator (K pattern, int count) throws RedisException;
 
 	/**
 	 * @Redis RANDOMKEY
@@ -430,6 +529,43 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<byte[]> lrange (K listkey, long from, long to) throws RedisException; 
 
+	/**
+	 * {@link JRedis#lrange(Object, long, long)} of a list of numbers, decoded directly into a long[].
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws RedisException
+	 * @throws IllegalArgumentException if an element is not a number
+	 */
+	public <K extends Object> long[] lrangeLongs (K listkey, long from, long to) throws RedisException; 
+
+	/**
+	 * {@link JRedis#lrange(Object, long, long)} of a list of numbers, decoded directly into a double[].
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws RedisException
+	 * @throws IllegalArgumentException if an element is not a number
+	 */
+	public <K extends Object> double[] lrangeDoubles (K listkey, long from, long to) throws RedisException; 
+	
+	/**
+	 * Streaming variant of {@link JRedis#lrange(Object, long, long)}.  Elements are 
+	 * read from the connection as the returned stream is iterated.
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws RedisException
+	 * @see MultiBulkStream
+	 */
+	public <K extends Object> MultiBulkStream lrangeStream (K listkey, long from, long to) throws RedisException; 
+
 	/**
 	 * @Redis LTRIM
 	 * @param listkey
@@ -596,6 +732,17 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<byte[]> smembers (K setKey) throws RedisException;
 	
+	/**
+	 * Streaming variant of {@link JRedis#smembers(Object)}.  Members are read from 
+	 * the connection as the returned stream is iterated.
+	 * @Redis SMEMBERS
+	 * @param setkey
+	 * @return
+	 * @throws RedisException
+	 * @see MultiBulkStream
+	 */
+	public <K extends Object> MultiBulkStream smembersStream (K setKey) throws RedisException;
+	
 	/**
 	 * @Redis SRANDMEMBER
 	 * @param setkey
@@ -699,6 +846,19 @@ public interface JRedis {
 	 * @throws RedisException
 	 */
 	public <K extends Object> List<byte[]> zrange (K setkey, long from, long to) throws RedisException; 
+	
+	/**
+	 * Streaming variant of {@link JRedis#zrange(Object, long, long)}.  Members are 
+	 * read from the connection as the returned stream is iterated.
+	 * @Redis ZRANGE
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @throws RedisException
+	 * @see MultiBulkStream
+	 */
+	public <K extends Object> MultiBulkStream zrangeStream (K setkey, long from, long to) throws RedisException; 
 
 	/**
 	 * @Redis ZREVRANGE
@@ -726,6 +886,19 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<ZSetEntry> zrangeSubset (K setkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Equivalent to {@link JRedis#zrangeSubset(Object, long, long)}, with the entries returned 
+	 * as parallel arrays of values and scores.
+	 * @Redis ZRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return the subset of the specified set 
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public <K extends Object> ZSetEntries zrangeEntries (K setkey, long from, long to) throws RedisException; 
+
 	/**
 	 * Equivalent to {@link JRedis#zrevrange(String, long, long)} with the {@link Option.Options#WITHSCORES}.
 	 * Unlike the general ZREVRANGE command that only returns the values, this method returns both
@@ -742,6 +915,19 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<ZSetEntry> zrevrangeSubset (K setkey, long from, long to) throws RedisException; 
 
+	/**
+	 * Equivalent to {@link JRedis#zrevrangeSubset(Object, long, long)}, with the entries returned 
+	 * as parallel arrays of values and scores.
+	 * @Redis ZREVRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return the subset of the specified set 
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public <K extends Object> ZSetEntries zrevrangeEntries (K setkey, long from, long to) throws RedisException; 
+
 	/**
 	 * @Redis ZRANGE
 	 * @param setkey
@@ -762,6 +948,19 @@ public interface JRedis {
 	 */
 	public <K extends Object> List<ZSetEntry> zrangebyscoreSubset (K setkey, double minScore, double maxScore) throws RedisException;
 
+	/**
+	 * Equivalent to {@link JRedis#zrangebyscoreSubset(Object, double, double)}, with the entries 
+	 * returned as parallel arrays of values and scores.
+	 * @Redis ZRANGEBYSCORE ... WITHSCORES
+	 * @param setkey
+	 * @param minScore
+	 * @param maxScore
+	 * @return the subset of the specified set 
+	 * @throws RedisException
+	 * @see ZSetEntries
+	 */
+	public <K extends Object> ZSetEntries zrangebyscoreEntries (K setkey, double minScore, double maxScore) throws RedisException;
+
 	/**
 	 * @Redis ZREMRANGEBYSCORE
 	 * @param setkey
@@ -928,18 +1127,14 @@ public interface JRedis {
 	// Transactional commands
 	// ------------------------------------------------------------------------
 	/**
-	 * one option is to return a subclass of JRedis (e.g. JRedisCommandSequence)
-	 * and have that interface declare discard and multi.  Benefit is being able
-	 * to associate state with the transaction.
-	 * @throws RedisException
-	 */
-	@Redis(versions="2.0")
-	public <K extends Object> JRedis multi() throws RedisException;
-	/**
-	 * @throws RedisException
+	 * Creates a MULTI/EXEC transaction, with commands that are sent in one round trip 
+	 * and executed atomically.  The transaction declares EXEC and DISCARD.
+	 * @return a new (empty) transaction of this client
+	 * @see JRedisTransaction
+	 * @Redis MULTI
 	 */
 	@Redis(versions="2.0")
-	public <K extends Object> JRedis discard () throws RedisException;
+	public JRedisTransaction multi ();
 	
 	// ------------------------------------------------------------------------
 	// Multiple databases handling commands
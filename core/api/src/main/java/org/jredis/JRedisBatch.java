@@ -0,0 +1,62 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+import java.util.concurrent.Future;
+
+/**
+ * A batch of requests of a synchronous {@link JRedis} client, sent in one round trip.
+ * <p>
+ * Requests are added to the batch with the {@link JRedisFuture} methods, and are sent on
+ * {@link JRedisBatch#execute()}: all requests are written before any reply is read.  The 
+ * results are obtained from the {@link Future}s returned by the batch's methods, which are 
+ * done once {@link JRedisBatch#execute()} returns.  An error reply to a request raises an
+ * {@link java.util.concurrent.ExecutionException} (with a {@link RedisException} cause) 
+ * on the request's future only.
+ * <p>
+ * Usage:
+ * <pre><code>
+ * JRedisBatch batch = jredis.batch();
+ * Future&lt;Long&gt; hits = batch.incr("hits");
+ * Future&lt;Boolean&gt; added = batch.sadd("visitors", user);
+ * Future&lt;byte[]&gt; motd = batch.get("motd");
+ * batch.execute();
+ * long hitCnt = hits.get();
+ * </code></pre>
+ * A batch is not thread-safe, and may be reused once executed.  {@link JRedisFuture#quit()}
+ * can not be batched.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see JRedis#batch()
+ */
+public interface JRedisBatch extends JRedisFuture {
+	/**
+	 * Sends the batched requests in one round trip, and completes their futures.
+	 * Has no effect if the batch is empty.
+	 * @throws ClientRuntimeException if the requests could not be serviced, in which case the
+	 * futures of the batched requests fail with the same cause.
+	 * @throws ProviderException
+	 */
+	public void execute () throws ClientRuntimeException, ProviderException;
+
+	/**
+	 * @return the number of requests batched since the last {@link JRedisBatch#execute()}
+	 */
+	public int size ();
+}
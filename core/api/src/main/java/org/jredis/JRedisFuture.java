@@ -66,6 +66,9 @@ import org.jredis.protocol.ResponseStatus;
  * either during a call to this interface, or, on the attempt to get the result of a pending response on {@link Future#get()}.
  * Refer to the documentation of the implementation of {@link JRedisFuture} for the specifics of behavior in context of
  * errors. 
+ * <p>
+ * Implementations may return {@link ListenableFuture}s, allowing for completion callbacks
+ * in lieu of blocking on {@link Future#get()} -- see {@link ListenableFuture.Support#listenable(Future)}.
  * 
  * @author  Joubin (alphazero@sensesay.net)
  * @version alpha.0, 04/02/09
@@ -167,6 +170,22 @@ public interface JRedisFuture {
 	 */
 	public <K extends Object> Future<List<byte[]>> mget(String ... keys);
 
+	/**
+	 * @Redis MGET
+	 * @param keys
+	 * @return the values of the (counter) keys, decoded directly into a long[].  Nonexistent keys' values are 0.
+	 * @see JRedis#mgetLongs(Object...)
+	 */
+	public <K extends Object> Future<long[]> mgetLongs(K ... keys);
+
+	/**
+	 * @Redis MGET
+	 * @param keys
+	 * @return the values of the keys, decoded directly into a double[].  Nonexistent keys' values are {@link Double#NaN}.
+	 * @see JRedis#mgetDoubles(Object...)
+	 */
+	public <K extends Object> Future<double[]> mgetDoubles(K ... keys);
+
 	/**
 	 * @Redis MSET
 	 * @param keyValueMap a {@link Map}ping of {@link String} key names to byte[] values.
@@ -407,6 +426,26 @@ public interface JRedisFuture {
 	 */
 	public <K extends Object> Future<List<byte[]>> lrange (K listkey, long from, long to); 
 
+	/**
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see JRedis#lrangeLongs(Object, long, long)
+	 */
+	public <K extends Object> Future<long[]> lrangeLongs (K listkey, long from, long to); 
+
+	/**
+	 * @Redis LRANGE
+	 * @param listkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see JRedis#lrangeDoubles(Object, long, long)
+	 */
+	public <K extends Object> Future<double[]> lrangeDoubles (K listkey, long from, long to); 
+
 	/**
 	 * @Redis LTRIM
 	 * @param listkey
@@ -673,6 +712,16 @@ public interface JRedisFuture {
 	 */
 	public <K extends Object> Future<List<ZSetEntry>> zrangeSubset (K setkey, long from, long to); 
 
+	/**
+	 * @Redis ZRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see JRedis#zrangeEntries(Object, long, long)
+	 */
+	public <K extends Object> Future<ZSetEntries> zrangeEntries (K setkey, long from, long to); 
+
 	/**
 	 * Equivalent to {@link JRedis#zrange(String, long, long)} with the {@link Command.Option#WITHSCORES}.
 	 * Unlike the general ZRANGE command that only returns the values, this method returns both
@@ -688,6 +737,16 @@ public interface JRedisFuture {
 	 */
 	public <K extends Object> Future<List<ZSetEntry>> zrevrangeSubset (K setkey, long from, long to); 
 
+	/**
+	 * @Redis ZREVRANGE ... WITHSCORES
+	 * @param setkey
+	 * @param from
+	 * @param to
+	 * @return
+	 * @see JRedis#zrevrangeEntries(Object, long, long)
+	 */
+	public <K extends Object> Future<ZSetEntries> zrevrangeEntries (K setkey, long from, long to); 
+
 	/**
 	 * @Redis ZINCRBY
 	 * @param setkey
@@ -720,6 +779,16 @@ public interface JRedisFuture {
 	 */
 	public <K extends Object> Future<List<ZSetEntry>> zrangebyscoreSubset (K setkey, double minScore, double maxScore);
 
+	/**
+	 * @Redis ZRANGEBYSCORE ... WITHSCORES
+	 * @param setkey
+	 * @param minScore
+	 * @param maxScore
+	 * @return
+	 * @see JRedis#zrangebyscoreEntries(Object, double, double)
+	 */
+	public <K extends Object> Future<ZSetEntries> zrangebyscoreEntries (K setkey, double minScore, double maxScore);
+
 	/**
 	 * @Redis ZREMRANGEBYSCORE
 	 * @param setkey
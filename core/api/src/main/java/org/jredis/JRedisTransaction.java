@@ -0,0 +1,71 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+import java.util.concurrent.Future;
+
+/**
+ * A MULTI/EXEC transaction of a synchronous {@link JRedis} client.
+ * <p>
+ * Commands are added to the transaction with the {@link JRedisFuture} methods, and are
+ * buffered until {@link JRedisTransaction#exec()}, which sends MULTI, the commands, and
+ * EXEC in one write (and round trip).  The commands are executed atomically by the server,
+ * and their results are obtained from the {@link Future}s returned by the transaction's 
+ * methods, which are done once {@link JRedisTransaction#exec()} returns.  An error reply to
+ * a command raises an {@link java.util.concurrent.ExecutionException} (with a 
+ * {@link RedisException} cause) on the command's future only.
+ * <p>
+ * Usage:
+ * <pre><code>
+ * JRedisTransaction tx = jredis.multi();
+ * tx.decrby("account:1", 100);
+ * tx.incrby("account:2", 100);
+ * Future&lt;Long&gt; transfers = tx.incr("transfers");
+ * tx.exec();
+ * </code></pre>
+ * A transaction is not thread-safe, and may be reused once executed or discarded.  
+ * {@link JRedisFuture#quit()} can not be part of a transaction.
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see JRedis#multi()
+ */
+public interface JRedisTransaction extends JRedisFuture {
+	/**
+	 * Sends the transaction's commands, and completes their futures.  Has no effect if 
+	 * the transaction is empty.
+	 * @throws RedisException if the server aborted the transaction (e.g. on errors queuing
+	 * its commands), in which case the futures of the commands fail with the same cause.
+	 * @throws ClientRuntimeException if the transaction could not be serviced, in which case the
+	 * futures of the commands fail with the same cause.
+	 * @throws ProviderException
+	 * @Redis MULTI, EXEC
+	 */
+	public void exec () throws RedisException, ClientRuntimeException, ProviderException;
+
+	/**
+	 * Discards the transaction's commands -- their futures fail with a {@link ClientRuntimeException}.
+	 * As commands are buffered until {@link JRedisTransaction#exec()}, nothing is sent to the server.
+	 */
+	public void discard ();
+
+	/**
+	 * @return the number of commands of the transaction
+	 */
+	public int size ();
+}
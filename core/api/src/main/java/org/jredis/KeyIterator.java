@@ -0,0 +1,55 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+import java.util.Iterator;
+
+/**
+ * An {@link Iterator} over the keys matching a pattern that fetches the keys
+ * incrementally, as they are iterated, instead of in a single (potentially huge) 
+ * reply.  A chunk of keys is only requested once the previous chunk has been 
+ * consumed, so the rate of iteration is set by the consumer.
+ * <p>
+ * Per the server's capabilities, the keys are either fetched with SCAN (Redis 2.8 
+ * and later), in which case other requests can be issued between chunks, and a key 
+ * <b>may be returned more than once</b>; or, they are read incrementally from the 
+ * (streamed) reply of a single KEYS -- see {@link org.jredis.protocol.MultiBulkStream} --
+ * which holds the connection until the iterator is exhausted or closed.
+ * <p>
+ * {@link Iterator#remove()} is not supported.  Errors encountered while iterating are 
+ * raised as {@link ClientRuntimeException}s by {@link Iterator#hasNext()} and
+ * {@link Iterator#next()}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see JRedis#keysIterator(Object, int)
+ */
+public interface KeyIterator extends Iterator<byte[]> {
+	/**
+	 * @return true if the keys are fetched with SCAN, false if they are streamed from a 
+	 * single KEYS reply.
+	 */
+	public boolean isCursor ();
+
+	/**
+	 * Ends the iteration, and releases the connection if held.  Calling this method more 
+	 * than once has no effect.
+	 * @throws ClientRuntimeException
+	 */
+	public void close () throws ClientRuntimeException;
+}
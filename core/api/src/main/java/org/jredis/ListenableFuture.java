@@ -0,0 +1,77 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+
+/**
+ * A {@link Future} that notifies {@link ResultListener}s on completion, allowing
+ * callers to issue requests without blocking a thread per pending result.
+ * <p>
+ * Usage:
+ * <pre><code>
+ * ListenableFuture&lt;Long&gt; f = ListenableFuture.Support.listenable(jredisFuture.incr("counter"));
+ * f.addListener(new ResultListener&lt;Long&gt;() {
+ *     public void onResult (Long value) { ... }
+ *     public void onError (Throwable cause) { ... }
+ * });
+ * </code></pre>
+ * 
+ * @param <T> the result type
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 20, 2011
+ * @since   alpha.0
+ * @see JRedisFuture
+ */
+public interface ListenableFuture<T> extends Future<T> {
+	/**
+	 * Adds a listener to be called on the thread that completes the future -- typically
+	 * the connection's response handler.  If the future is already done, the listener is 
+	 * called immediately, on the caller's thread.
+	 * <p>
+	 * Listeners called on the response handler thread must not block: in particular, 
+	 * they must not wait on other futures of the same connection.  Use 
+	 * {@link ListenableFuture#addListener(ResultListener, Executor)} for such listeners.
+	 * 
+	 * @param listener
+	 */
+	public void addListener (ResultListener<? super T> listener);
+
+	/**
+	 * Adds a listener to be called by the given executor on completion of the future.
+	 * @param listener
+	 * @param executor
+	 */
+	public void addListener (ResultListener<? super T> listener, Executor executor);
+
+	public static class Support {
+		/**
+		 * @param <T>
+		 * @param future a future returned by a {@link JRedisFuture} implementation
+		 * @return the future as a {@link ListenableFuture}
+		 * @throws NotSupportedException if the implementation does not support listeners
+		 */
+		public static <T> ListenableFuture<T> listenable (Future<T> future) throws NotSupportedException {
+			if(null == future) throw new IllegalArgumentException("future is null");
+			if(!(future instanceof ListenableFuture))
+				throw new NotSupportedException("Completion listeners are not supported for " + future.getClass().getName());
+			return (ListenableFuture<T>) future;
+		}
+	}
+}
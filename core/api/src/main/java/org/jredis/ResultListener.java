@@ -0,0 +1,43 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+/**
+ * Callback notified on completion of a {@link ListenableFuture}.  Exactly one of
+ * the methods is called, once.
+ *
+ * @param <T> the result type of the future
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 20, 2011
+ * @since   alpha.0
+ * @see ListenableFuture
+ */
+public interface ResultListener<T> {
+	/**
+	 * @param result the (possibly null) result of the request
+	 */
+	public void onResult (T result);
+
+	/**
+	 * @param cause the cause of the failure -- {@link RedisException} for Redis
+	 * errors, or a {@link ClientRuntimeException} or {@link ProviderException}.  (This 
+	 * is the cause of the {@link java.util.concurrent.ExecutionException} that 
+	 * the future's get would throw.)
+	 */
+	public void onError (Throwable cause);
+}
@@ -0,0 +1,39 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+import java.util.List;
+
+/**
+ * Callback handed the results of a sliced multi-key request (e.g. 
+ * {@link JRedis#mget(Object[], int, SliceConsumer)}) one slice at a time, and in
+ * order, as the slices' replies are read.  The consumer is called by the requesting 
+ * thread.
+ *
+ * @param <T> the type of the slice's values
+ * 
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ */
+public interface SliceConsumer<T> {
+	/**
+	 * @param offset the index (in the request's keys) of the slice's first key
+	 * @param values the values of the slice's keys, in key order
+	 */
+	public void onSlice (int offset, List<T> values);
+}
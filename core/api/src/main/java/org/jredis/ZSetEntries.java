@@ -0,0 +1,40 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis;
+
+/**
+ * The entries of a Redis "sorted set" subset as parallel arrays of values and
+ * (decoded) scores, returned by the *Entries variants of the subset Z* commands.  
+ * Unlike a {@link java.util.List} of {@link ZSetEntry}s, no per-entry objects are 
+ * created, which matters for large ranges.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see ZSetEntry
+ */
+
+public interface ZSetEntries {
+	/** @return number of entries */
+	int size();
+
+	/** @return the values of the entries, in range order.  The array is not copied. */
+	byte[][] getValues();
+	
+	/** @return the scores of the entries -- getScores()[i] is the score of getValues()[i].  The array is not copied. */
+	double[] getScores();
+}
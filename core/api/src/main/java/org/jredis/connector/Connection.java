@@ -113,6 +113,48 @@ public interface Connection {
 
 	public Future<Response> queueRequest (Command cmd,  byte[]...args) throws ClientRuntimeException, ProviderException;
 	
+	/**
+	 * A <b>non-blocking call</b> to send the specified request without a {@link Response}: the reply
+	 * is read and checked for errors, which are counted (and logged), but not otherwise reported.  Intended 
+	 * for bulk loads that have no use for the individual responses.  Use {@link Connection#awaitNoReplies()} 
+	 * to wait for the replies of the queued requests.
+	 * <p>
+	 * Optional: connections that do not support no-reply requests throw {@link NotSupportedException}.
+	 * @param cmd any command with a reply (i.e. not QUIT)
+	 * @param args
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	public void queueNoReplyRequest (Command cmd, byte[]...args) throws ClientRuntimeException, ProviderException;
+	
+	/**
+	 * A <b>blocking call</b> that waits for the replies of all no-reply requests queued (by any thread) 
+	 * prior to the call. 
+	 * <p>
+	 * Optional: connections that do not support no-reply requests throw {@link NotSupportedException}.
+	 * @return the number of error replies to no-reply requests since the previous call.
+	 * @throws ClientRuntimeException if interrupted, or the connection faulted before the replies were read
+	 * @throws ProviderException
+	 * @see Connection#queueNoReplyRequest(Command, byte[]...)
+	 */
+	public long awaitNoReplies () throws ClientRuntimeException, ProviderException;
+	
+	/**
+	 * A <b>blocking call</b> to service the specified requests in one round trip: all requests
+	 * are written before any of their replies are read.  Error replies do not raise a 
+	 * {@link RedisException}: the status of each response must be checked.
+	 * <p>
+	 * Optional: connections that do not support batched requests throw {@link NotSupportedException}.
+	 * @param cmds the commands -- {@link Command.ResponseType#VIRTUAL} and 
+	 * {@link Command.ResponseType#MULTI_BULK_STREAM} commands can not be batched.
+	 * @param args the args of each command
+	 * @return the responses, in order of the requests
+	 * @throws IllegalArgumentException if the batch is empty, or the commands and args do not match
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	public Response[] serviceRequests (Command[] cmds, byte[][][] args) throws ClientRuntimeException, ProviderException;
+	
 	// ------------------------------------------------------------------------
 	// State management -- optional
 	/**
@@ -183,6 +225,29 @@ public interface Connection {
 		CONNECTION_CLASS,
 		/** if specified, is used to create the new connection. */
 		CONNECTION_FACTORY,
+		/** 
+		 * request arguments of this size (in bytes) or larger are written directly from the caller's 
+		 * array rather than copied to the request buffer. <p>expected value is an {@link Integer}.
+		 */
+		GATHER_WRITE_THRESHOLD,
+		/**
+		 * if specified, pipelined requests are buffered and written in batches: when the buffer 
+		 * reaches SO_SNDBUF, when no further requests are being queued, or, at the latest, after 
+		 * this delay.  <p>expected value is an {@link Integer} (microseconds).
+		 */
+		COALESCE_WRITE_DELAY,
+		/**
+		 * the maximum number of pipelined requests awaiting their replies (the in-flight window).  
+		 * Further requests wait per {@link Property#MAX_PENDING_WAIT}.  <p>expected value is an 
+		 * {@link Integer}.  Defaults to the connection's pending queue capacity.
+		 */
+		MAX_PENDING_REQUESTS,
+		/**
+		 * the maximum duration (milliseconds) that a pipelined request waits for room in a full 
+		 * in-flight window before raising a {@link PendingWindowFullException}: 0 fails immediately, 
+		 * and negative values (or if not specified) wait indefinitely. <p>expected value is an {@link Integer}.
+		 */
+		MAX_PENDING_WAIT,
 		;// -- fini
 	}
 	/**
@@ -290,6 +355,8 @@ public interface Connection {
     	STATEFUL,
     	/** if true service requests are logged (verbose/slower due to io)  */
     	TRACE,
+    	/** if true bulk data is read into pooled buffers and exposed as views -- see {@link org.jredis.protocol.BulkDataView} */
+    	BULK_VIEWS,
     	;
 		public final int bitmask;
 		static final int OPAQUE_BITMASK = 0x0000;
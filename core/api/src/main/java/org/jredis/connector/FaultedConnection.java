@@ -77,6 +77,28 @@ public class FaultedConnection implements Connection {
 	{
 		throw new ClientRuntimeException (errorMsg);
 	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#queueNoReplyRequest(org.jredis.protocol.Command, byte[][]) */
+//	@Override
+	public void queueNoReplyRequest(Command cmd, byte[]... args)
+			throws ClientRuntimeException, ProviderException 
+	{
+		throw new ClientRuntimeException (errorMsg);
+	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#awaitNoReplies() */
+//	@Override
+	public long awaitNoReplies() throws ClientRuntimeException, ProviderException {
+		throw new ClientRuntimeException (errorMsg);
+	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#serviceRequests(org.jredis.protocol.Command[], byte[][][]) */
+//	@Override
+	public Response[] serviceRequests(Command[] cmds, byte[][][] args) 
+			throws ClientRuntimeException, ProviderException 
+	{
+		throw new ClientRuntimeException (errorMsg);
+	}
     /* (non-Javadoc) @see org.jredis.connector.Connection#addListener(org.jredis.connector.Connection.Listener) */
 //	@Override
     final public boolean addListener (Listener connListener) {
@@ -0,0 +1,40 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.connector;
+
+import org.jredis.ClientRuntimeException;
+import org.jredis._specification;
+
+/**
+ * Raised by pipelined connections when a request can not be queued because the
+ * maximum number of requests awaiting their replies has been reached, and the
+ * request could not wait (long enough) for room.  The request was not sent.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 22, 2011
+ * @since   alpha.0
+ * @see Connection.Property#MAX_PENDING_REQUESTS
+ * @see Connection.Property#MAX_PENDING_WAIT
+ */
+public class PendingWindowFullException extends ClientRuntimeException {
+	/**  */
+	private static final long	serialVersionUID	= _specification.Version.major;
+
+	public PendingWindowFullException (String msg) {
+		super (msg);
+	}
+}
@@ -0,0 +1,91 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.protocol;
+
+import java.nio.ByteBuffer;
+
+/**
+ * An indexed view of the bulk data elements of a {@link BulkResponse} or
+ * {@link MultiBulkResponse}.  Elements are exposed as (offset, length) regions
+ * of a backing array that may be owned by the provider -- e.g. a pooled receive
+ * buffer -- in which case the regions are only valid until {@link BulkDataView#release()}
+ * is called, or, the response is otherwise disposed of per the provider's contract.
+ * <p>
+ * Use {@link BulkDataView#copy(int)} if you need to retain the data.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 12, 2011
+ * @since   alpha.0
+ *
+ */
+public interface BulkDataView {
+	/**
+	 * @return number of elements in the view.  1 for {@link BulkResponse}s.
+	 */
+	public int size ();
+
+	/**
+	 * @param i element index
+	 * @return true if element reflects a '<b>nil</b>' value.
+	 */
+	public boolean isNull (int i);
+
+	/**
+	 * @param i element index
+	 * @return the array backing element i.
+	 */
+	public byte[] array (int i);
+
+	/**
+	 * @param i element index
+	 * @return offset of element i in {@link BulkDataView#array(int)}
+	 */
+	public int offset (int i);
+
+	/**
+	 * @param i element index
+	 * @return length of element i, or -1 if it is '<b>nil</b>'.
+	 */
+	public int length (int i);
+
+	/**
+	 * @param i element index
+	 * @return a read-only {@link ByteBuffer} view of element i, or null if '<b>nil</b>'.
+	 */
+	public ByteBuffer view (int i);
+
+	/**
+	 * @param i element index
+	 * @return a copy of the element data, owned by the caller, or null if '<b>nil</b>'.
+	 */
+	public byte[] copy (int i);
+
+	/**
+	 * @param i element index
+	 * @return the element data, owned by the caller, or null if '<b>nil</b>'.  Unlike 
+	 * {@link BulkDataView#copy(int)}, this is the backing array itself if the element 
+	 * is not backed by a shared buffer.
+	 */
+	public byte[] data (int i);
+
+	/**
+	 * Releases the backing buffer(s) to the provider.  The view (and any
+	 * {@link ByteBuffer}s obtained from it) must not be used after this call.
+	 * Calling this method more than once has no effect.
+	 */
+	public void release ();
+}
@@ -31,4 +31,12 @@ public interface BulkResponse extends Response {
 	 * @return
 	 */
 	public byte[] getBulkData ();
+	
+	/**
+	 * @return a {@link BulkDataView} of the (single element) bulk data.  If the 
+	 * provider reads bulk data into pooled buffers, the view is only valid until
+	 * released.
+	 * @see BulkDataView#release()
+	 */
+	public BulkDataView getBulkDataView ();
 }
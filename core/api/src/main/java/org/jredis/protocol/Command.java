@@ -61,7 +61,11 @@ public enum Command {
 
 	// "Commands operating on the key space"
 	KEYS		(RequestType.KEY, 			ResponseType.MULTI_BULK), 
+	/** KEYS with streamed reply */
+	KEYS$STREAM	(RequestType.KEY, 			ResponseType.MULTI_BULK_STREAM), 
 	KEYSTOLIST	(RequestType.KEY_KEY, 		ResponseType.NUMBER), 
+	/** SCAN cursor [MATCH pattern] [COUNT count] -- Redis 2.8 */
+	SCAN		(RequestType.MULTI_KEY, 	ResponseType.RESULT_SET), 
 	RANDOMKEY	(RequestType.NO_ARG,		ResponseType.BULK),
 	RENAME		(RequestType.KEY_KEY, 		ResponseType.STATUS), 
 	RENAMENX	(RequestType.KEY_KEY, 		ResponseType.BOOLEAN), 
@@ -78,6 +82,8 @@ public enum Command {
 	LINSERT	(RequestType.BULK_SET,		ResponseType.NUMBER),
 	LLEN		(RequestType.KEY,			ResponseType.NUMBER), 
 	LRANGE		(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK), 
+	/** LRANGE with streamed reply */
+	LRANGE$STREAM	(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK_STREAM), 
 	LTRIM		(RequestType.KEY_NUM_NUM,	ResponseType.STATUS),
 	LINDEX		(RequestType.KEY_NUM,		ResponseType.BULK), 
 	LSET		(RequestType.KEY_IDX_VALUE,	ResponseType.STATUS), 
@@ -98,6 +104,8 @@ public enum Command {
 	SDIFF		(RequestType.MULTI_KEY,		ResponseType.MULTI_BULK), 
 	SDIFFSTORE  (RequestType.MULTI_KEY,		ResponseType.STATUS),
 	SMEMBERS	(RequestType.KEY,			ResponseType.MULTI_BULK), 
+	/** SMEMBERS with streamed reply */
+	SMEMBERS$STREAM	(RequestType.KEY,			ResponseType.MULTI_BULK_STREAM), 
 	SMOVE		(RequestType.KEY_KEY_VALUE,	ResponseType.BOOLEAN),
 	SRANDMEMBER (RequestType.KEY,  			ResponseType.BULK),
 	SPOP     	(RequestType.KEY,        	ResponseType.BULK),
@@ -109,6 +117,8 @@ public enum Command {
 	ZRANK		(RequestType.KEY_VALUE,		ResponseType.NUMBER),
 	ZREVRANK	(RequestType.KEY_VALUE,		ResponseType.NUMBER),
 	ZRANGE			(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK),
+	/** ZRANGE with streamed reply */
+	ZRANGE$STREAM	(RequestType.KEY_NUM_NUM,	ResponseType.MULTI_BULK_STREAM),
 	/** ZRANGE with OPTIONS  */
 	ZRANGE$OPTS		(RequestType.KEY_NUM_NUM_OPTS,	ResponseType.MULTI_BULK),
 	ZREVRANGE		(RequestType.KEY_NUM_NUM,		ResponseType.MULTI_BULK),
@@ -172,8 +182,14 @@ public enum Command {
 	public final ResponseType responseType;
 	private final int flags_bitset;
 	
+	/** pre-encoded request headers -- see {@link Command#header(int)} */
+	private final byte[][] headers;
+	
 	/** internal */
 	static final public String OPTCODE = "$";
+	
+	/** request headers are pre-encoded for requests with up to this many arguments */
+	static final public int MAX_PRECOMPUTED_HEADER_ARGS = 7;
 	/**
 	 * Each enum member directly corresponds to a Redis command, per
 	 * specification.  Command semantics is specified by the element
@@ -196,6 +212,34 @@ public enum Command {
 			this.flags_bitset = Flag.bitset(flags);
 		else
 			this.flags_bitset = Flag.OPAQUE_BITMASK_32;
+		
+		this.headers = new byte[MAX_PRECOMPUTED_HEADER_ARGS + 1][];
+		for(int argCnt = 0; argCnt <= MAX_PRECOMPUTED_HEADER_ARGS; argCnt++)
+			this.headers[argCnt] = encodeHeader(argCnt);
+	}
+	
+	/**
+	 * Returns the pre-encoded (unified protocol) header of a request for this command
+	 * with the given number of arguments: the multi-bulk count line, followed by the
+	 * command bulk, e.g. <code>"*2\r\n$3\r\nGET\r\n"</code> for GET.
+	 * <p>
+	 * The returned array is shared and <b>must not</b> be modified.
+	 * 
+	 * @param argCnt number of the request arguments (not including the command)
+	 * @return the header bytes, or null if argCnt is larger than {@link Command#MAX_PRECOMPUTED_HEADER_ARGS}
+	 */
+	final public byte[] header (int argCnt) {
+		return argCnt >= 0 && argCnt <= MAX_PRECOMPUTED_HEADER_ARGS ? headers[argCnt] : null;
+	}
+	
+	private final byte[] encodeHeader (int argCnt) {
+		String header = "*" + (argCnt + 1) + "\r\n$" + bytes.length + "\r\n";
+		byte[] headerBytes = new byte[header.length() + bytes.length + 2];
+		System.arraycopy(header.getBytes(), 0, headerBytes, 0, header.length());
+		System.arraycopy(bytes, 0, headerBytes, header.length(), bytes.length);
+		headerBytes[headerBytes.length-2] = (byte) 13;
+		headerBytes[headerBytes.length-1] = (byte) 10;
+		return headerBytes;
 	}
 
 	/**
@@ -228,7 +272,9 @@ public enum Command {
 		ASC,
 		DESC,
 		ALPHA,
-		STORE;
+		STORE,
+		MATCH,
+		COUNT;
 		/** semantic sugar */
 		public final byte[] bytes;
 		Option () {
@@ -339,6 +385,8 @@ public enum Command {
     	BULK (BulkResponse.class),
     	/**  */
     	MULTI_BULK (MultiBulkResponse.class),
+    	/** multi-bulk reply read incrementally by the caller */
+    	MULTI_BULK_STREAM (MultiBulkStreamResponse.class),
     	/** */
     	RESULT_SET (Response.class),
     	;
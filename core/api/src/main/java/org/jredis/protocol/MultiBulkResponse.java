@@ -45,4 +45,15 @@ public interface MultiBulkResponse extends Response {
 	 * user errors (such as attempting getData before the response has been read.  
 	 */
 	public List<byte[]>		getMultiBulkData () throws ClientRuntimeException, ProviderException;
+	
+	/**
+	 * @return a {@link BulkDataView} of the values returned from the server.  If the 
+	 * provider reads bulk data into pooled buffers, this avoids the per element
+	 * allocation of {@link MultiBulkResponse#getMultiBulkData()}, but the view is only 
+	 * valid until released.
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 * @see BulkDataView#release()
+	 */
+	public BulkDataView		getBulkDataView () throws ClientRuntimeException, ProviderException;
 }
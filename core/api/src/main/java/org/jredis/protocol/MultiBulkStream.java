@@ -0,0 +1,55 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.protocol;
+
+import java.util.Iterator;
+import org.jredis.ClientRuntimeException;
+
+/**
+ * An {@link Iterator} over the elements of a multi-bulk reply that (may) read
+ * each element from the connection as it is iterated, allowing for processing
+ * of very large replies with bounded memory.
+ * <p>
+ * Elements may be <b>null</b>, reflecting '<b>nil</b>' values per redis specification.
+ * <p>
+ * A stream that reads lazily holds the connection until it is exhausted or 
+ * closed.  Any unread elements are drained (read and discarded) on 
+ * {@link MultiBulkStream#close()}, or, at the latest, before the next request
+ * is sent on the same connection.  {@link Iterator#remove()} is not supported.
+ * <p>
+ * Note that network errors encountered while iterating are raised as 
+ * {@link ClientRuntimeException}s by {@link Iterator#next()}. 
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 14, 2011
+ * @since   alpha.0
+ *
+ */
+public interface MultiBulkStream extends Iterator<byte[]> {
+	/**
+	 * @return the total number of elements of the reply -- including those
+	 * already iterated.  
+	 */
+	public int size ();
+
+	/**
+	 * Drains any remaining elements.  Calling this method more than once has 
+	 * no effect.
+	 * @throws ClientRuntimeException
+	 */
+	public void close () throws ClientRuntimeException;
+}
@@ -0,0 +1,36 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.protocol;
+
+import java.io.InputStream;
+
+/**
+ * Response to the streaming variants of multi-bulk commands.  Reading this 
+ * response (see {@link Response#read(InputStream)}) only reads the reply
+ * header (or error).  The elements are read by the {@link MultiBulkStream}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 14, 2011
+ * @since   alpha.0
+ *
+ */
+public interface MultiBulkStreamResponse extends Response {
+	/**
+	 * @return the {@link MultiBulkStream} of the reply elements.
+	 */
+	public MultiBulkStream getMultiBulkStream ();
+}
@@ -53,4 +53,15 @@ public class TestCommand extends TestBase {
         Assert.assertFalse(bitset == oldbitset, "clearing flag should have changed bitset");
         Assert.assertFalse(Flag.isSet(bitset, flags[1]), String.format("%s should have been cleared!\n", flags[1].name()));
 	}
+	@Test
+	public void testCommandHeaders() {
+		log.info("TEST:PROTOCOL Command sematics - pre-encoded headers");
+		for(Command c : Command.values()){
+			for(int argCnt=0; argCnt<=Command.MAX_PRECOMPUTED_HEADER_ARGS; argCnt++){
+				String expected = "*" + (argCnt+1) + "\r\n$" + c.bytes.length + "\r\n" + new String(c.bytes) + "\r\n";
+				assertEquals(new String(c.header(argCnt)), expected, "header of " + c.code);
+			}
+			assertNull(c.header(Command.MAX_PRECOMPUTED_HEADER_ARGS + 1));
+		}
+	}
 }
@@ -0,0 +1,211 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedisBatch;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.connection.CompletableResponse;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * The {@link JRedisBatch} of a {@link JRedisSupport} client.  The batched requests
+ * are serviced by {@link JRedisSupport#serviceRequests(Command[], byte[][][])}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+final class BatchRequest extends JRedisFutureSupport implements JRedisBatch {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the batch's client */
+	private final JRedisSupport				client;
+
+	/** requests batched since the last execute */
+	private final List<BatchedResponse>		batched = new ArrayList<BatchedResponse>();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param client
+	 */
+	BatchRequest (JRedisSupport client) {
+		this.client = client;
+	}
+
+	// ------------------------------------------------------------------------
+	// Super overrides
+	// ------------------------------------------------------------------------
+	/**
+	 * Adds the request to the batch.
+	 * @throws IllegalArgumentException for {@link Command#QUIT}
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected Future<Response> queueRequest (Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+		if(cmd.responseType == Command.ResponseType.VIRTUAL)
+			throw new IllegalArgumentException(cmd.code + " can not be batched");
+		final BatchedResponse response = new BatchedResponse(cmd, args);
+		batched.add(response);
+		return response;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: JRedisBatch
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.JRedisBatch#execute() */
+	public void execute () throws ClientRuntimeException, ProviderException {
+		final int cnt = batched.size();
+		if(cnt == 0) return;
+
+		final BatchedResponse[] requests = batched.toArray(new BatchedResponse[cnt]);
+		batched.clear();
+		final Command[] cmds = new Command[cnt];
+		final byte[][][] args = new byte[cnt][][];
+		for(int i=0; i<cnt; i++){
+			cmds[i] = requests[i].cmd;
+			args[i] = requests[i].args;
+		}
+
+		final Response[] responses;
+		try {
+			responses = client.serviceRequests(cmds, args);
+		}
+		catch (ClientRuntimeException e){
+			for(BatchedResponse request : requests)
+				request.setError(e);
+			throw e;
+		}
+		for(int i=0; i<cnt; i++)
+			requests[i].setResponse(responses[i]);
+	}
+
+	/* (non-Javadoc) @see org.jredis.JRedisBatch#size() */
+	public int size () {
+		return batched.size();
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/**
+	 * The future response of a batched request -- done once the batch is executed.
+	 * As batches are executed by the thread that creates the requests, the response
+	 * of a request that has not been executed is never awaited.  Completion callbacks
+	 * are run by the executing thread.  (Also used by {@link TransactionRequest}.)
+	 */
+	static final class BatchedResponse implements CompletableResponse {
+		final Command		cmd;
+		final byte[][]		args;
+		private volatile Response	response;
+		/** a {@link ClientRuntimeException}, or a {@link RedisException} that is not the request's own error reply */
+		private volatile Exception	error;
+		/** callbacks registered before completion -- guarded by this */
+		private List<Runnable>		callbacks;
+
+		BatchedResponse (Command cmd, byte[][] args) {
+			this.cmd = cmd;
+			this.args = args;
+		}
+
+		/** @return the response, or null if not (successfully) executed */
+		Response getResponse () { return response; }
+
+		/**
+		 * Completes the request with its response.
+		 * @param response
+		 */
+		void setResponse (Response response) {
+			this.response = response;
+			complete();
+		}
+
+		/**
+		 * Completes the request with an error.
+		 * @param error
+		 */
+		void setError (Exception error) {
+			this.error = error;
+			complete();
+		}
+
+		private void complete () {
+			final List<Runnable> completed;
+			synchronized (this) {
+				completed = callbacks;
+				callbacks = null;
+			}
+			if(null == completed) return;
+			for(Runnable callback : completed)
+				runCallback(callback);
+		}
+
+		private static void runCallback (Runnable callback) {
+			try {
+				callback.run();
+			}
+			catch (RuntimeException e){
+				Log.error("BatchedResponse completion callback raised " + e);
+			}
+		}
+
+		/* (non-Javadoc) @see org.jredis.ri.alphazero.connection.CompletableResponse#onCompletion(java.lang.Runnable) */
+		public void onCompletion (Runnable callback) {
+			if(null == callback) throw new NullPointerException("callback");
+			synchronized (this) {
+				if(!isDone()) {
+					if(null == callbacks) callbacks = new ArrayList<Runnable>(1);
+					callbacks.add(callback);
+					return;
+				}
+			}
+			runCallback(callback);
+		}
+
+		public boolean cancel (boolean mayInterruptIfRunning) { return false; }
+		public boolean isCancelled () { return false; }
+		public boolean isDone () { return null != response || null != error; }
+
+		public Response get () throws ExecutionException {
+			final Exception error = this.error;
+			if(null != error)
+				throw new ExecutionException(error instanceof RedisException ? "Redis Exception" : "Client Runtime Exception", error);
+			final Response response = this.response;
+			if(null == response)
+				throw new IllegalStateException("Batch has not been executed");
+			if(response.isError())
+				throw new ExecutionException("Redis Exception on ["+cmd.name()+"] " + response.getStatus().message(), new RedisException(cmd, response.getStatus().message()));
+			return response;
+		}
+		public Response get (long timeout, TimeUnit unit) throws ExecutionException {
+			return get();
+		}
+	}
+}
@@ -150,6 +150,13 @@ public class JRedisClient extends SyncJRedisBase  {
 	{
 		return connection.serviceRequest(cmd, args);
 	}
+
+	@Override
+	protected Response[] serviceRequests(Command[] cmds, byte[][][] args)
+			throws ClientRuntimeException, ProviderException 
+	{
+		return connection.serviceRequests(cmds, args);
+	}
 	
 
 	// TODO: what's the use of this?
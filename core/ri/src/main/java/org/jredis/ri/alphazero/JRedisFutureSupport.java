@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.StringTokenizer;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
@@ -31,10 +32,14 @@ import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedisFuture;
 import org.jredis.KeyValueSet;
+import org.jredis.ListenableFuture;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.ProviderException;
 import org.jredis.RedisType;
+import org.jredis.ResultListener;
 import org.jredis.Sort;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.connector.Connection;
 import org.jredis.protocol.BulkResponse;
@@ -43,6 +48,8 @@ import org.jredis.protocol.MultiBulkResponse;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
 import org.jredis.protocol.ValueResponse;
+import org.jredis.ri.alphazero.connection.CompletableResponse;
+import org.jredis.ri.alphazero.connection.PendingRequest;
 import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.DefaultCodec;
 import org.jredis.ri.alphazero.support.SortSupport;
@@ -774,6 +781,16 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		}
 		return new FutureByteArrayList(this.queueRequest(Command.MGET, keybytes));
 	}
+
+	@Override
+	public <K extends Object> Future<long[]> mgetLongs(K ... keys) {
+		return new FutureLongArray(this.queueRequest(Command.MGET, JRedisSupport.getKeysBytes(keys)));
+	}
+
+	@Override
+	public <K extends Object> Future<double[]> mgetDoubles(K ... keys) {
+		return new FutureDoubleArray(this.queueRequest(Command.MGET, JRedisSupport.getKeysBytes(keys)));
+	}
 	
 	/* MSETs */
 	private FutureStatus mset(byte[][] mappings){
@@ -884,6 +901,24 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		return new FutureByteArrayList(this.queueRequest(Command.LRANGE, keybytes, fromBytes, toBytes));
 	}
 
+	@Override
+	public <K extends Object> Future<long[]> lrangeLongs(K key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = JRedisSupport.getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return new FutureLongArray(this.queueRequest(Command.LRANGE, keybytes, Convert.toBytes(from), Convert.toBytes(to)));
+	}
+
+	@Override
+	public <K extends Object> Future<double[]> lrangeDoubles(K key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = JRedisSupport.getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return new FutureDoubleArray(this.queueRequest(Command.LRANGE, keybytes, Convert.toBytes(from), Convert.toBytes(to)));
+	}
+
 	@Override
 	public <K extends Object> Future<byte[]> substr(K key, long from, long to) {
 		byte[] keybytes = null;
@@ -932,6 +967,15 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 		return new FutureZSetList(this.queueRequest(Command.ZRANGEBYSCORE$OPTS, keybytes, minScoreBytes, maxScoreBytes, Command.Option.WITHSCORES.bytes));
 	}
 
+	@Override
+	public <K extends Object> Future<ZSetEntries> zrangebyscoreEntries(K key, double minScore, double maxScore) {
+		byte[] keybytes = null;
+		if((keybytes = JRedisSupport.getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return new FutureZSetEntries(this.queueRequest(Command.ZRANGEBYSCORE$OPTS, keybytes, Convert.toBytes(minScore), Convert.toBytes(maxScore), Command.Option.WITHSCORES.bytes));
+	}
+
 	@Override
 	public <K extends Object> Future<Long> zremrangebyscore(K key, double minScore, double maxScore) {
 		byte[] keybytes = null;
@@ -1004,6 +1048,24 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 
 		return new FutureZSetList(this.queueRequest(Command.ZREVRANGE$OPTS, keybytes, fromBytes, toBytes, Command.Option.WITHSCORES.bytes));
 	}
+
+	@Override
+	public <K extends Object> Future<ZSetEntries> zrangeEntries(K key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = JRedisSupport.getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return new FutureZSetEntries(this.queueRequest(Command.ZRANGE$OPTS, keybytes, Convert.toBytes(from), Convert.toBytes(to), Command.Option.WITHSCORES.bytes));
+	}
+
+	@Override
+	public <K extends Object> Future<ZSetEntries> zrevrangeEntries(K key, long from, long to) {
+		byte[] keybytes = null;
+		if((keybytes = JRedisSupport.getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return new FutureZSetEntries(this.queueRequest(Command.ZREVRANGE$OPTS, keybytes, Convert.toBytes(from), Convert.toBytes(to), Command.Option.WITHSCORES.bytes));
+	}
 	
 	@Override
 	public <K extends Object> Sort sort(final K key) {
@@ -1432,9 +1494,54 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
 //	static final private Map<String, byte[]>	keyByteCache = new ConcurrentHashMap<String, byte[]>();
 	public static final boolean	CacheKeys	= false;
 	
-	public static class FutureResultBase {
+	/**
+	 * Base for the typed {@link Future}s of this class.  The result is converted from
+	 * the {@link Response} on the first successful get, and cached.  Once converted, the 
+	 * response is no longer referenced and is released to its protocol (if pooled) via 
+	 * {@link PendingRequest#release()}.
+	 * <p>
+	 * {@link ResultListener}s are notified via the completion callbacks of the 
+	 * {@link CompletableResponse}: for a {@link PendingRequest}, on the connection's 
+	 * response handler thread, and for a batched request, on the thread executing the 
+	 * batch (unless an {@link Executor} is specified).
+	 *
+	 * @param <T> the result type
+	 */
+	public abstract static class FutureResultBase<T> implements ListenableFuture<T> {
 		final protected Future<Response> pendingRequest;
+		private volatile boolean resolved;
+		private T result;
 		protected FutureResultBase(Future<Response> pendingRequest){ this.pendingRequest = pendingRequest;}
+		
+		/**
+		 * Converts the response to the typed result.
+		 * @param response
+		 * @return
+		 */
+		protected abstract T getResult (Response response);
+		
+		public T get () throws InterruptedException, ExecutionException {
+			if(resolved) return result;
+			return resolve(pendingRequest.get());
+		}
+		
+		public T get (long timeout, TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException
+		{
+			if(resolved) return result;
+			return resolve(pendingRequest.get(timeout, unit));
+		}
+		
+		private synchronized T resolve (Response response) {
+			if(!resolved) {
+				result = getResult(response);
+				resolved = true;
+				if(pendingRequest instanceof PendingRequest)
+					((PendingRequest) pendingRequest).release();
+			}
+			return result;
+		}
+		
 		public boolean cancel (boolean mayInterruptIfRunning) {
 	        return pendingRequest.cancel(mayInterruptIfRunning);
         }
@@ -1444,142 +1551,124 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         public boolean isDone () {
 	        return pendingRequest.isDone();
         }
+        
+        /* (non-Javadoc) @see org.jredis.ListenableFuture#addListener(org.jredis.ResultListener) */
+        public void addListener (ResultListener<? super T> listener) {
+        	addListener(listener, null);
+        }
+        
+        /* (non-Javadoc) @see org.jredis.ListenableFuture#addListener(org.jredis.ResultListener, java.util.concurrent.Executor) */
+        public void addListener (final ResultListener<? super T> listener, final Executor executor) {
+        	if(null == listener) throw new NullPointerException("listener");
+        	final Runnable notifier = new Runnable() {
+        		public void run () { notifyListener(listener); }
+        	};
+        	final Runnable callback = executor == null ? notifier : new Runnable() {
+        		public void run () { executor.execute(notifier); }
+        	};
+        	if(pendingRequest instanceof CompletableResponse)
+        		((CompletableResponse) pendingRequest).onCompletion(callback);
+        	else if(pendingRequest.isDone())
+        		callback.run();
+        	else
+        		throw new NotSupportedException("Completion listeners are not supported for " + pendingRequest.getClass().getName());
+        }
+        
+        /** called on completion -- get does not block */
+        private void notifyListener (ResultListener<? super T> listener) {
+        	final T result;
+        	try {
+        		result = get();
+        	}
+        	catch (ExecutionException e) {
+        		listener.onError(e.getCause());
+        		return;
+        	}
+        	catch (InterruptedException e) {
+        		Thread.currentThread().interrupt();
+        		listener.onError(e);
+        		return;
+        	}
+        	catch (RuntimeException e) {
+        		listener.onError(e);
+        		return;
+        	}
+        	listener.onResult(result);
+        }
 	}
-	public static class FutureStatus extends FutureResultBase implements Future<ResponseStatus>  {
+	public static class FutureStatus extends FutureResultBase<ResponseStatus> {
 
         protected FutureStatus (Future<Response> pendingRequest) { super(pendingRequest); }
-        public ResponseStatus get () throws InterruptedException, ExecutionException {
-//        	StatusResponse statusResponse = (StatusResponse) pendingRequest.get();  // HANDLE VIRTUALS HERE
-//        	return statusResponse.getStatus();
-        	return pendingRequest.get().getStatus();
-        }
-
-        public ResponseStatus get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-//        	StatusResponse statusResponse = (StatusResponse) pendingRequest.get(timeout, unit);
+        
+        protected ResponseStatus getResult (Response response) {
+//        	StatusResponse statusResponse = (StatusResponse) response;  // HANDLE VIRTUALS HERE
 //        	return statusResponse.getStatus();
-        	return pendingRequest.get(timeout, unit).getStatus();
+        	return response.getStatus();
         }
-
 	}
-	public static class FutureBoolean extends FutureResultBase implements Future<Boolean>{
+	public static class FutureBoolean extends FutureResultBase<Boolean> {
 
         protected FutureBoolean (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public Boolean get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getBooleanValue();
-        }
-
-        public Boolean get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
+        protected Boolean getResult (Response response) {
+        	ValueResponse valResp = (ValueResponse) response;
         	return valResp.getBooleanValue();
         }
 	}
-	public static class FutureString extends FutureResultBase implements Future<String>{
+	public static class FutureString extends FutureResultBase<String> {
 
         protected FutureString (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public String get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getStringValue();
-        }
-
-        public String get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
+        protected String getResult (Response response) {
+        	ValueResponse valResp = (ValueResponse) response;
         	return valResp.getStringValue();
         }
 	}
-	public static class FutureRedisType extends FutureResultBase implements Future<RedisType>{
+	public static class FutureRedisType extends FutureResultBase<RedisType> {
 
         protected FutureRedisType (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        private final RedisType getRedisType(ValueResponse resp){
-			String stringValue = resp.getStringValue();
+        protected RedisType getResult (Response response) {
+			String stringValue = ((ValueResponse) response).getStringValue();
 			return RedisType.valueOf(stringValue);
         }
-        public RedisType get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return getRedisType(valResp);
-        }
-
-        public RedisType get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return getRedisType(valResp);
-        }
 	}
-	public static class FutureLong extends FutureResultBase implements Future<Long>{
+	public static class FutureLong extends FutureResultBase<Long> {
 
         protected FutureLong (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public Long get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return valResp.getLongValue();
-        }
-
-        public Long get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
+        protected Long getResult (Response response) {
+        	ValueResponse valResp = (ValueResponse) response;
         	return valResp.getLongValue();
         }
 	}
-	public static class FutureDouble extends FutureResultBase implements Future<Double>{
+	public static class FutureDouble extends FutureResultBase<Double> {
 
         protected FutureDouble (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public Double get () throws InterruptedException, ExecutionException {
-        	BulkResponse bulkResp = (BulkResponse) pendingRequest.get();
-        	if(bulkResp.getBulkData() != null)
-        		return Convert.toDouble(bulkResp.getBulkData());
-        	return null;
-        }
-
-        public Double get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	BulkResponse bulkResp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	if(bulkResp.getBulkData() != null)
-        		return Convert.toDouble(bulkResp.getBulkData());
+        protected Double getResult (Response response) {
+        	BulkResponse bulkResp = (BulkResponse) response;
+        	byte[] bulkData = bulkResp.getBulkData();
+        	if(bulkData != null)
+        		return Convert.toDouble(bulkData);
         	return null;
         }
 	}
-	public static class FutureByteArray extends FutureResultBase implements Future<byte[]>{
+	public static class FutureByteArray extends FutureResultBase<byte[]> {
 
         protected FutureByteArray (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public byte[] get () throws InterruptedException, ExecutionException {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get();
-        	return resp.getBulkData();
-        }
-
-        public byte[] get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get(timeout, unit);
+        protected byte[] getResult (Response response) {
+        	BulkResponse resp = (BulkResponse) response;
         	return resp.getBulkData();
         }
 	}
-	public static class FutureSortStoreResp extends FutureResultBase implements Future<List<byte[]>>{
+	public static class FutureSortStoreResp extends FutureResultBase<List<byte[]>> {
 		
         protected FutureSortStoreResp (Future<Response> pendingRequest) { super(pendingRequest); }
 		
-        public List<byte[]> get () throws InterruptedException, ExecutionException {
-        	ValueResponse resp = (ValueResponse) pendingRequest.get();
-        	return packValueResult(resp.getLongValue());
-        }
-		
-        public List<byte[]> get (long timeout, TimeUnit unit)
-		throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse resp = (ValueResponse) pendingRequest.get(timeout, unit);
+        protected List<byte[]> getResult (Response response) {
+        	ValueResponse resp = (ValueResponse) response;
         	return packValueResult(resp.getLongValue());
         }
         private static List<byte[]> packValueResult(long number) {
@@ -1589,36 +1678,22 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         	return list;
         }
 	}
-	public static class FutureByteArrayList extends FutureResultBase implements Future<List<byte[]>>{
+	public static class FutureByteArrayList extends FutureResultBase<List<byte[]>> {
 
         protected FutureByteArrayList (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public List<byte[]> get () throws InterruptedException, ExecutionException {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
-        	return resp.getMultiBulkData();
-        }
-
-        public List<byte[]> get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
+        protected List<byte[]> getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
         	return resp.getMultiBulkData();
         }
 	}
 
-	public static class FutureDataDictionary extends FutureResultBase implements Future<Map<byte[], byte[]>>{
+	public static class FutureDataDictionary extends FutureResultBase<Map<byte[], byte[]>> {
 
         protected FutureDataDictionary (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public Map<byte[], byte[]> get () throws InterruptedException, ExecutionException {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
-        	return convert(resp.getMultiBulkData());
-        }
-
-        public Map<byte[], byte[]> get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
+        protected Map<byte[], byte[]> getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
         	return convert(resp.getMultiBulkData());
         }
         private static final Map<byte[], byte[]> convert (List<byte[]> bulkdata) {
@@ -1634,100 +1709,53 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         }
 	}
 
-	public static class FutureKeyList extends FutureResultBase implements Future<List<byte[]>>{
+	public static class FutureKeyList extends FutureResultBase<List<byte[]>> {
 
         protected FutureKeyList (Future<Response> pendingRequest) { super(pendingRequest); }
 
-//        private List<String>  getResultList (BulkResponse resp) {
-//    		StringTokenizer tokenizer = new StringTokenizer(new String(resp.getBulkData()), " ");
-//    		List<String>  list = new ArrayList <String>(12);
-//    		while (tokenizer.hasMoreTokens()){
-//    			list.add(tokenizer.nextToken());
-//    		}
-//    		return list;
-//        }
-        public List<byte[]> get () throws InterruptedException, ExecutionException {
-
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
+        protected List<byte[]> getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
         	List<byte[]> multibulkdata = resp.getMultiBulkData();
 //        	List<String> list = null;
 //        	if(null != multibulkdata)
 //        		list = DefaultCodec.toStr(multibulkdata);
         	return multibulkdata;
         }
-
-        public List<byte[]> get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-            	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
-            	List<byte[]> multibulkdata = resp.getMultiBulkData();
-//            	List<String> list = null;
-//            	if(null != multibulkdata)
-//            		list = DefaultCodec.toStr(multibulkdata);
-            	return multibulkdata;
-        }
 	}
-	public static class FutureInfo extends FutureResultBase implements Future<Map<String, String>>{
+	public static class FutureInfo extends FutureResultBase<Map<String, String>> {
 
         protected FutureInfo (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        private Map<String, String>  getResultMap (BulkResponse resp) {
+        protected Map<String, String> getResult (Response response) {
+        	BulkResponse resp = (BulkResponse) response;
     		StringTokenizer tokenizer = new StringTokenizer(new String(resp.getBulkData()), "\r\n");
     		Map<String, String>  infomap = new HashMap<String, String>(12);
     		while (tokenizer.hasMoreTokens()){
     			String info = tokenizer.nextToken();
     			int c = info.indexOf(':');
+    			if(c < 0) continue;	// section headers (e.g. "# Server") of 2.6+ servers
     			String _key =info.substring(0, c);
     			String _value = info.substring(c+1);
     			infomap.put(_key, _value);
     		}
     		return infomap;
         }
-        public Map<String, String> get () throws InterruptedException, ExecutionException {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get();
-        	return getResultMap(resp);
-        }
-
-        public Map<String, String> get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	BulkResponse resp = (BulkResponse) pendingRequest.get(timeout, unit);
-        	return getResultMap(resp);
-        }
 	}
-	public static class FutureObjectInfo extends FutureResultBase implements Future<ObjectInfo>{
+	public static class FutureObjectInfo extends FutureResultBase<ObjectInfo> {
 
         protected FutureObjectInfo (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        private final ObjectInfo getObjectInfo(ValueResponse resp){
-			String stringValue = resp.getStringValue();
+        protected ObjectInfo getResult (Response response) {
+			String stringValue = ((ValueResponse) response).getStringValue();
 			return ObjectInfo.valueOf(stringValue);
         }
-        public ObjectInfo get () throws InterruptedException, ExecutionException {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get();
-        	return getObjectInfo(valResp);
-        }
-
-        public ObjectInfo get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	ValueResponse valResp = (ValueResponse) pendingRequest.get(timeout, unit);
-        	return getObjectInfo(valResp);
-        }
 	}
-	public static class FutureZSetList extends FutureResultBase implements Future<List<ZSetEntry>>{
+	public static class FutureZSetList extends FutureResultBase<List<ZSetEntry>> {
 
         protected FutureZSetList (Future<Response> pendingRequest) { super(pendingRequest); }
 
-        public List<ZSetEntry> get () throws InterruptedException, ExecutionException {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get();
-        	return convert(resp.getMultiBulkData());
-        }
-
-        public List<ZSetEntry> get (long timeout, TimeUnit unit)
-        	throws InterruptedException, ExecutionException, TimeoutException
-        {
-        	MultiBulkResponse resp = (MultiBulkResponse) pendingRequest.get(timeout, unit);
+        protected List<ZSetEntry> getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
         	return convert(resp.getMultiBulkData());
         }
         private static final List<ZSetEntry> convert (List<byte[]> mbulkdata) {
@@ -1741,6 +1769,33 @@ public abstract class JRedisFutureSupport implements JRedisFuture {
         	return zset;
         }
 	}
+	public static class FutureLongArray extends FutureResultBase<long[]> {
+
+        protected FutureLongArray (Future<Response> pendingRequest) { super(pendingRequest); }
+
+        protected long[] getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
+        	return DefaultCodec.toLongs(resp.getBulkDataView());
+        }
+	}
+	public static class FutureDoubleArray extends FutureResultBase<double[]> {
+
+        protected FutureDoubleArray (Future<Response> pendingRequest) { super(pendingRequest); }
+
+        protected double[] getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
+        	return DefaultCodec.toDoubles(resp.getBulkDataView());
+        }
+	}
+	public static class FutureZSetEntries extends FutureResultBase<ZSetEntries> {
+
+        protected FutureZSetEntries (Future<Response> pendingRequest) { super(pendingRequest); }
+
+        protected ZSetEntries getResult (Response response) {
+        	MultiBulkResponse resp = (MultiBulkResponse) response;
+        	return ZSetEntriesImpl.valueOf(resp.getBulkDataView());
+        }
+	}
 	// ------------------------------------------------------------------------
 	// Diagnostics commands
 	// ------------------------------------------------------------------------
@@ -24,6 +24,7 @@ import java.util.concurrent.TimeoutException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
 import org.jredis.JRedisFuture;
+import org.jredis.NotSupportedException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.connector.Connection;
@@ -31,6 +32,10 @@ import org.jredis.connector.ConnectionSpec;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Response;
 import org.jredis.ri.alphazero.connection.AsyncPipelineConnection;
+import org.jredis.ri.alphazero.connection.NioPipelineConnection;
+import org.jredis.ri.alphazero.connection.PendingWindow;
+import org.jredis.ri.alphazero.connection.PipelineConnectionBase;
+import org.jredis.ri.alphazero.support.Assert;
 
 /**
  * Asynchronous Redis client implementing {@link JRedisFuture} and using 
@@ -54,16 +59,35 @@ public class JRedisPipeline extends JRedisFutureSupport {
 	/**  */
 	final private Connection	connection;
 
+	/** the (done) future of all requests of the {@link JRedisPipeline#noReply()} view */
+	private static final Future<Response> NO_REPLY = new Future<Response>() {
+		public boolean cancel (boolean mayInterruptIfRunning) { return false; }
+		public boolean isCancelled () { return false; }
+		public boolean isDone () { return true; }
+		public Response get () throws ExecutionException {
+			throw new ExecutionException(new NotSupportedException("No-reply requests have no responses"));
+		}
+		public Response get (long timeout, TimeUnit unit) throws ExecutionException { return get(); }
+	};
+
 	// ------------------------------------------------------------------------
 	// Construct and initialize
 	// ------------------------------------------------------------------------
 
 	/**
+	 * The pipeline connection is created by the {@link Connection.Property#CONNECTION_FACTORY} 
+	 * of the spec, if specified; otherwise, an {@link AsyncPipelineConnection} is used.
 	 * @param connectionSpec
 	 */
 	public JRedisPipeline (ConnectionSpec connectionSpec) {
 		// note: using a non shared connection mod
-		connection = new AsyncPipelineConnection(connectionSpec);
+		connectionSpec.setConnectionFlag(Connection.Flag.PIPELINE, true);
+		connectionSpec.setModality(Connection.Modality.Asynchronous);
+		Connection.Factory cfact = (Connection.Factory) connectionSpec.getConnectionProperty(Connection.Property.CONNECTION_FACTORY);
+		if(null != cfact)
+			connection = Assert.notNull(cfact.newConnection(connectionSpec), "connection delegate", ClientRuntimeException.class);
+		else
+			connection = new AsyncPipelineConnection(connectionSpec);
 	}
 	
 	// ------------------------------------------------------------------------
@@ -113,6 +137,60 @@ public class JRedisPipeline extends JRedisFutureSupport {
             }
 		};
 	}
+	/**
+	 * Provides a "no-reply" interface to this pipeline, for bulk loading.  Requests 
+	 * are sent as usual, but their replies are only checked for errors by the response
+	 * handler, and no per request responses are created.  The returned {@link Future}s
+	 * are placeholders: they are done, and their get raises an {@link ExecutionException}
+	 * (with a {@link NotSupportedException} cause).
+	 * <p>
+	 * Use {@link JRedisPipeline#awaitNoReplies()} to wait for the replies of the no-reply 
+	 * requests and to obtain the number of error replies.  Requests queued via this interface
+	 * are ordered with the requests of the pipeline's own interface.
+	 * <p>
+	 * Usage:
+	 * <pre><code>
+	 * JRedisFuture loader = pipeline.noReply();
+	 * for(...) loader.set(key, value);
+	 * long errors = pipeline.awaitNoReplies();
+	 * </code></pre>
+	 * @return the no-reply {@link JRedisFuture} interface for this pipeline.
+	 * @see Connection#queueNoReplyRequest(Command, byte[]...)
+	 */
+	public JRedisFuture noReply () {
+		return new JRedisFutureSupport() {
+			@Override
+			protected Future<Response> queueRequest (Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+				connection.queueNoReplyRequest(cmd, args);
+				return NO_REPLY;
+			}
+		};
+	}
+
+	/**
+	 * Waits for the replies of all requests queued (by any thread) via the 
+	 * {@link JRedisPipeline#noReply()} interface prior to this call.
+	 * @return number of error replies to no-reply requests since the previous call.
+	 * @throws ClientRuntimeException if interrupted, or the pipeline faulted before the replies were read
+	 */
+	public long awaitNoReplies () throws ClientRuntimeException, ProviderException {
+		return connection.awaitNoReplies();
+	}
+
+	/**
+	 * The in-flight window bounds the number of requests awaiting their replies -- see 
+	 * {@link Connection.Property#MAX_PENDING_REQUESTS} and {@link Connection.Property#MAX_PENDING_WAIT}.
+	 * @return the in-flight window of the pipeline connection (e.g. for monitoring its occupancy), 
+	 * or null if the connection does not have one.
+	 */
+	public PendingWindow getPendingWindow () {
+		if(connection instanceof PipelineConnectionBase)
+			return ((PipelineConnectionBase) connection).getPendingWindow();
+		if(connection instanceof NioPipelineConnection)
+			return ((NioPipelineConnection) connection).getPendingWindow();
+		return null;
+	}
+
 	/**
 	 * 
 	 * @param timeout
@@ -0,0 +1,269 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedisFuture;
+import org.jredis.NotSupportedException;
+import org.jredis.ProviderException;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.connection.CompletableResponse;
+import org.jredis.ri.alphazero.connection.PendingWindow;
+
+/**
+ * Asynchronous Redis client implementing {@link JRedisFuture} over a number of
+ * {@link JRedisPipeline}s (<i>stripes</i>) to the same server, so that the request
+ * writing and response handling of concurrent callers are spread over as many
+ * sockets and response handler threads.
+ * <p>
+ * The stripe of each request is selected per the {@link Striping} policy of the client.
+ * Requests are ordered per stripe only: use {@link Striping#THREAD} to preserve the order
+ * of each thread's requests, and {@link Striping#KEY} to preserve the order of the requests
+ * on each key.
+ * <p>
+ * {@link JRedisFuture#quit()} is sent to all stripes.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+public class JRedisStripedPipeline extends JRedisFutureSupport {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** default number of stripes */
+	public static final int DEFAULT_STRIPES = Math.max(2, Math.min(16, Runtime.getRuntime().availableProcessors()));
+
+	/**
+	 * Policies for selecting the stripe of a request.
+	 */
+	public enum Striping {
+		/** each thread uses one stripe (assigned round-robin on first use) -- per thread ordering */
+		THREAD,
+		/** requests are striped by the hash of their (first) key -- per key ordering.  Keyless requests are striped per {@link Striping#THREAD} */
+		KEY,
+		/** each request uses the stripe with the fewest pending responses -- no ordering */
+		LEAST_PENDING
+	}
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/**  */
+	final private JRedisPipeline[]	stripes;
+
+	/**  */
+	final private Striping			striping;
+
+	/** used to assign the stripes of threads */
+	final private AtomicInteger		nextThreadStripe = new AtomicInteger(0);
+
+	/**  */
+	final private ThreadLocal<Integer>	threadStripe = new ThreadLocal<Integer>() {
+		@Override protected Integer initialValue () {
+			return (nextThreadStripe.getAndIncrement() & Integer.MAX_VALUE) % stripes.length;
+		}
+	};
+
+	// ------------------------------------------------------------------------
+	// Construct and initialize
+	// ------------------------------------------------------------------------
+	/**
+	 * Uses {@link JRedisStripedPipeline#DEFAULT_STRIPES} stripes, per {@link Striping#THREAD}.
+	 * @param connectionSpec
+	 */
+	public JRedisStripedPipeline (ConnectionSpec connectionSpec) {
+		this (connectionSpec, DEFAULT_STRIPES, Striping.THREAD);
+	}
+
+	/**
+	 * Each stripe is a {@link JRedisPipeline} created with the connectionSpec (and so,
+	 * for example, the spec's {@link org.jredis.connector.Connection.Property#CONNECTION_FACTORY}
+	 * is used for all stripes).
+	 * @param connectionSpec
+	 * @param stripeCnt number of stripes (pipeline connections)
+	 * @param striping the stripe selection policy
+	 */
+	public JRedisStripedPipeline (ConnectionSpec connectionSpec, int stripeCnt, Striping striping) {
+		if(stripeCnt < 1)
+			throw new IllegalArgumentException("stripeCnt must be positive: " + stripeCnt);
+		if(null == striping)
+			throw new IllegalArgumentException("striping is null");
+		this.striping = striping;
+		this.stripes = new JRedisPipeline[stripeCnt];
+		int i = 0;
+		try {
+			for(; i<stripeCnt; i++)
+				stripes[i] = new JRedisPipeline(connectionSpec);
+		}
+		catch (RuntimeException e) {
+			// don't leak the connections (and response handlers) of the stripes created so far
+			for(int j=0; j<i; j++){
+				try { stripes[j].quit(); }
+				catch (RuntimeException ignore) { }
+			}
+			throw e;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Super overrides
+	// ------------------------------------------------------------------------
+	/**
+	 * Queues the request on the stripe selected per the striping policy.  A {@link Command#QUIT}
+	 * is queued on all stripes.
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected Future<Response> queueRequest (Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+		if(cmd == Command.QUIT)
+			return quitAll();
+		return stripes[stripeFor(cmd, args)].queueRequest(cmd, args);
+	}
+
+	// ------------------------------------------------------------------------
+	// public interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @return the number of stripes
+	 */
+	public int getStripeCount () {
+		return stripes.length;
+	}
+
+	/**
+	 * @param stripe
+	 * @return the in-flight window of the stripe's connection, or null if it does not have one.
+	 * @see JRedisPipeline#getPendingWindow()
+	 */
+	public PendingWindow getPendingWindow (int stripe) {
+		return stripes[stripe].getPendingWindow();
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * @param cmd
+	 * @param args
+	 * @return the index of the stripe for the request
+	 */
+	int stripeFor (Command cmd, byte[]... args) {
+		switch (striping) {
+			case KEY:
+				if(null != args && args.length > 0 && null != args[0] && isKeyed(cmd))
+					return (Arrays.hashCode(args[0]) & Integer.MAX_VALUE) % stripes.length;
+				return threadStripe.get();
+			case LEAST_PENDING:
+				return leastPending();
+			case THREAD:
+			default:
+				return threadStripe.get();
+		}
+	}
+
+	/**
+	 * @param cmd
+	 * @return true if the first arg of the command is a key
+	 */
+	private static boolean isKeyed (Command cmd) {
+		return cmd.requestType != Command.RequestType.NO_ARG && cmd.requestType != Command.RequestType.VALUE;
+	}
+
+	/**
+	 * Scans the stripes starting with the thread's stripe, so that ties are spread over the stripes.
+	 * @return the index of the stripe with the fewest pending responses
+	 */
+	private int leastPending () {
+		final int start = threadStripe.get();
+		int least = start;
+		int leastOccupancy = Integer.MAX_VALUE;
+		for(int i=0; i<stripes.length; i++){
+			final int stripe = (start + i) % stripes.length;
+			final PendingWindow window = stripes[stripe].getPendingWindow();
+			if(null == window) return start;
+			final int occupancy = window.getOccupancy();
+			if(occupancy == 0) return stripe;
+			if(occupancy < leastOccupancy) {
+				least = stripe;
+				leastOccupancy = occupancy;
+			}
+		}
+		return least;
+	}
+
+	/**
+	 * Queues a QUIT on all stripes.
+	 * @return a future response that completes when all stripes have processed their QUIT
+	 */
+	private Future<Response> quitAll () {
+		final List<Future<Response>> quits = new ArrayList<Future<Response>>(stripes.length);
+		for(JRedisPipeline stripe : stripes)
+			quits.add(stripe.queueRequest(Command.QUIT));
+		return new CompletableResponse() {
+			public void onCompletion (final Runnable callback) {
+				final AtomicInteger remaining = new AtomicInteger(quits.size());
+				final Runnable countdown = new Runnable() {
+					public void run () {
+						if(remaining.decrementAndGet() == 0) callback.run();
+					}
+				};
+				for(Future<Response> quit : quits) {
+					if(quit instanceof CompletableResponse)
+						((CompletableResponse) quit).onCompletion(countdown);
+					else if(quit.isDone())
+						countdown.run();
+					else
+						throw new NotSupportedException("Completion callbacks are not supported for " + quit.getClass().getName());
+				}
+			}
+			public boolean cancel (boolean mayInterruptIfRunning) { return false; }
+			public boolean isCancelled () { return false; }
+			public boolean isDone () {
+				for(Future<Response> quit : quits)
+					if(!quit.isDone()) return false;
+				return true;
+			}
+			public Response get () throws InterruptedException, ExecutionException {
+				Response response = null;
+				for(Future<Response> quit : quits)
+					response = quit.get();
+				return response;
+			}
+			public Response get (long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+				final long deadline = System.nanoTime() + unit.toNanos(timeout);
+				Response response = null;
+				for(Future<Response> quit : quits)
+					response = quit.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				return response;
+			}
+		};
+	}
+}
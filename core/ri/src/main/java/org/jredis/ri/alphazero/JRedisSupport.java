@@ -18,6 +18,7 @@ package org.jredis.ri.alphazero;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,18 +29,27 @@ import java.util.concurrent.TimeUnit;
 
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedis;
+import org.jredis.JRedisBatch;
+import org.jredis.JRedisTransaction;
+import org.jredis.KeyIterator;
 import org.jredis.KeyValueSet;
+import org.jredis.NotSupportedException;
 import org.jredis.ObjectInfo;
 import org.jredis.ProviderException;
 import org.jredis.Redis;
 import org.jredis.RedisException;
 import org.jredis.RedisType;
+import org.jredis.SliceConsumer;
 import org.jredis.Sort;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.connector.Connection;
+import org.jredis.protocol.BulkDataView;
 import org.jredis.protocol.BulkResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.protocol.MultiBulkStream;
+import org.jredis.protocol.MultiBulkStreamResponse;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ValueResponse;
 import org.jredis.ri.RI.Release;
@@ -60,9 +70,17 @@ import org.jredis.ri.alphazero.support.SortSupport;
  */
 public abstract class JRedisSupport implements JRedis {
 	
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** max number of slices of a sliced multi-key request, e.g. {@link JRedis#mget(Object[], int)}, per round trip */
+	public static final int SLICES_PER_ROUNDTRIP = 16;
+
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
+	/** the server's version -- see {@link JRedisSupport#getServerVersion()} */
+	private volatile RedisVersion	serverVersion;
 
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -93,6 +111,21 @@ public abstract class JRedisSupport implements JRedis {
 	 * @throws ProviderException
 	 */
 	protected abstract Response serviceRequest (Command cmd, byte[]...args) throws RedisException, ClientRuntimeException, ProviderException; 
+
+	/**
+	 * This method mimics the eponymous {@link Connection#serviceRequests(Command[], byte[][][])}, 
+	 * and services the requests of the client's {@link JRedisBatch}es.  Extensions that support
+	 * batches override: the base implementation throws a {@link NotSupportedException}.
+	 * 
+	 * @param cmds
+	 * @param args
+	 * @return the responses, in order
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	protected Response[] serviceRequests (Command[] cmds, byte[][][] args) throws ClientRuntimeException, ProviderException {
+		throw new NotSupportedException("Batched requests are not supported by " + getClass().getSimpleName());
+	}
 	// ------------------------------------------------------------------------
 	// INTERFACE
 	// ================================================================ Redis
@@ -340,8 +373,9 @@ public abstract class JRedisSupport implements JRedis {
 		Double resvalue = null;
 		try {
 			BulkResponse bulkResponse = (BulkResponse) this.serviceRequest(Command.ZINCRBY, keybytes, Convert.toBytes(score), member);
-			if (bulkResponse.getBulkData() != null)
-				resvalue = Convert.toDouble(bulkResponse.getBulkData());
+			byte[] bulkData = bulkResponse.getBulkData();
+			if (bulkData != null)
+				resvalue = Convert.toDouble(bulkData);
 		}
 		catch (ClassCastException e){
 			throw new ProviderException("Expecting a ValueResponse here => " + e.getLocalizedMessage(), e);
@@ -1090,6 +1124,7 @@ public abstract class JRedisSupport implements JRedis {
 		while (tokenizer.hasMoreTokens()){
 			String info = tokenizer.nextToken();
 			int c = info.indexOf(':');
+			if(c < 0) continue;	// section headers (e.g. "# Server") of 2.6+ servers
 			String key =info.substring(0, c);
 			String value = info.substring(c+1);
 			infomap.put(key, value);
@@ -1122,6 +1157,18 @@ public abstract class JRedisSupport implements JRedis {
 	public <K extends Object, T extends Serializable> void mset(KeyValueSet.Objects<K, T> keyValueMap) throws RedisException{
 		mset(keyValueMap.getMappings());
 	}
+	public <K extends Object> void mset(Map<K, byte[]> keyValueMap, int sliceSize) throws RedisException {
+		byte[][] mappings = new byte[keyValueMap.size()*2][];
+		int i = 0;
+		for (Entry<K, byte[]> e : keyValueMap.entrySet()){
+			mappings[i++] = getKeyBytes(e.getKey());
+			mappings[i++] = e.getValue();
+		}
+		serviceSlices(Command.MSET, mappings, sliceSize, 2, null);
+	}
+	public <K extends Object> void mset(KeyValueSet<K, ?> keyValueMap, int sliceSize) throws RedisException {
+		serviceSlices(Command.MSET, keyValueMap.getMappings(), sliceSize, 2, null);
+	}
 
 	@Override
 	public <K extends Object> List<byte[]> mget(K...keys) throws RedisException {
@@ -1148,6 +1195,98 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+	@Override
+	public <K extends Object> List<byte[]> mget(K[] keys, int sliceSize) throws RedisException {
+		if(null == keys || keys.length == 0) throw new IllegalArgumentException("no keys specified");
+		final List<byte[]> values = new ArrayList<byte[]>(keys.length);
+		mget(keys, sliceSize, new SliceConsumer<byte[]>() {
+			public void onSlice (int offset, List<byte[]> sliceValues) {
+				values.addAll(sliceValues);
+			}
+		});
+		return values;
+	}
+
+	@Override
+	public <K extends Object> void mget(K[] keys, int sliceSize, SliceConsumer<byte[]> consumer) throws RedisException {
+		if(null == consumer) throw new IllegalArgumentException("null consumer");
+		serviceSlices(Command.MGET, getKeysBytes(keys), sliceSize, 1, consumer);
+	}
+
+	@Override
+	public <K extends Object> long[] mgetLongs(K...keys) throws RedisException {
+		return DefaultCodec.toLongs(multiBulkDataView(Command.MGET, getKeysBytes(keys)));
+	}
+
+	@Override
+	public <K extends Object> double[] mgetDoubles(K...keys) throws RedisException {
+		return DefaultCodec.toDoubles(multiBulkDataView(Command.MGET, getKeysBytes(keys)));
+	}
+
+	/**
+	 * The (numeric) multi-bulk replies of the primitive result variants, e.g. {@link JRedis#mgetLongs(Object...)}, 
+	 * are decoded from the {@link BulkDataView} of the response, without copying their elements.
+	 * @param cmd
+	 * @param args
+	 * @return the view of the multi-bulk response of the request -- valid until the next request of this thread. 
+	 * @throws RedisException
+	 */
+	private BulkDataView multiBulkDataView (Command cmd, byte[]... args) throws RedisException {
+		try {
+			MultiBulkResponse multiBulkResponse = (MultiBulkResponse) this.serviceRequest(cmd, args);
+			return multiBulkResponse.getBulkDataView();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+		}
+	}
+
+	/**
+	 * Services the (multi-key) command for the args in slices of (at most) sliceSize 
+	 * entries of entryLength args each, and pipelines {@link JRedisSupport#SLICES_PER_ROUNDTRIP} 
+	 * slices per {@link JRedisSupport#serviceRequests(Command[], byte[][][])}.  
+	 * @param cmd
+	 * @param args
+	 * @param sliceSize max number of entries per slice
+	 * @param entryLength number of args per entry, e.g. 2 for key-value pairs
+	 * @param consumer if not null, is handed the multi-bulk data of each slice, in order.
+	 * @throws RedisException the error of the first slice that failed.  Slices 
+	 * of the same round trip that follow it are not consumed. 
+	 */
+	private void serviceSlices (Command cmd, byte[][] args, int sliceSize, int entryLength, SliceConsumer<byte[]> consumer) 
+		throws RedisException
+	{
+		if(sliceSize < 1) throw new IllegalArgumentException("sliceSize must be positive: " + sliceSize);
+		if(null == args || args.length == 0) throw new IllegalArgumentException("no args specified");
+		final int sliceLength = sliceSize * entryLength;
+		final int sliceCnt = (args.length + sliceLength - 1) / sliceLength;
+		for(int s=0; s<sliceCnt; s+=SLICES_PER_ROUNDTRIP){
+			final int n = Math.min(SLICES_PER_ROUNDTRIP, sliceCnt - s);
+			final Command[] cmds = new Command[n];
+			final byte[][][] sliceArgs = new byte[n][][];
+			for(int i=0; i<n; i++){
+				final int from = (s + i) * sliceLength;
+				cmds[i] = cmd;
+				sliceArgs[i] = Arrays.copyOfRange(args, from, Math.min(from + sliceLength, args.length));
+			}
+			final Response[] responses = serviceRequests(cmds, sliceArgs);
+			for(int i=0; i<n; i++){
+				if(responses[i].isError())
+					throw new RedisException(cmd, responses[i].getStatus().message());
+				if(null != consumer){
+					List<byte[]> multiBulkData = null;
+					try {
+						multiBulkData = ((MultiBulkResponse) responses[i]).getMultiBulkData();
+					}
+					catch (ClassCastException e){
+						throw new ProviderException("Expecting a MultiBulkResponse here => " + e.getLocalizedMessage(), e);
+					}
+					consumer.onSlice((s + i) * sliceSize, multiBulkData);
+				}
+			}
+		}
+	}
+
 	@Override
 	public <K extends Object> List<byte[]> smembers(K key) throws RedisException {
 		byte[] keydata = null;
@@ -1164,6 +1303,23 @@ public abstract class JRedisSupport implements JRedis {
 		}
 		return multiBulkData;
 	}
+
+	@Override
+	public <K extends Object> MultiBulkStream smembersStream(K key) throws RedisException {
+		byte[] keydata = null;
+		if((keydata = getKeyBytes(key)) == null) 
+			throw new RedisException (Command.KEYS, "ERR Invalid key.");
+
+		MultiBulkStream multiBulkStream= null;
+		try {
+			MultiBulkStreamResponse multiBulkStreamResponse = (MultiBulkStreamResponse) this.serviceRequest(Command.SMEMBERS$STREAM, keydata);
+			multiBulkStream = multiBulkStreamResponse.getMultiBulkStream();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkStreamResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkStream;
+	}
 	@Override
 	public <K extends Object> List<byte[]> keys() throws RedisException {
 		return this.keys("*");
@@ -1204,6 +1360,46 @@ public abstract class JRedisSupport implements JRedis {
 		*/
 	}
 
+	@Override
+	public <K extends Object> MultiBulkStream keysStream(K pattern) throws RedisException {
+		byte[] keydata = null;
+		if((keydata = getKeyBytes(pattern)) == null) 
+			throw new RedisException (Command.KEYS, "ERR Invalid key.");
+
+		MultiBulkStream multiBulkStream= null;
+		try {
+			MultiBulkStreamResponse multiBulkStreamResponse = (MultiBulkStreamResponse) this.serviceRequest(Command.KEYS$STREAM, keydata);
+			multiBulkStream = multiBulkStreamResponse.getMultiBulkStream();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkStreamResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkStream;
+	}
+
+	@Override
+	public <K extends Object> KeyIterator keysIterator(K pattern, int count) throws RedisException {
+		byte[] keydata = null;
+		if((keydata = getKeyBytes(pattern)) == null) 
+			throw new RedisException (Command.KEYS, "ERR Invalid key.");
+		if(count < 1) throw new IllegalArgumentException("count must be positive: " + count);
+
+		if(getServerVersion().isAtLeast(RedisVersion.scan))
+			return new ScanKeyIterator(this, keydata, count);
+		return new StreamKeyIterator(keysStream(pattern));
+	}
+
+	/**
+	 * @return the version of the server, per the <code>redis_version</code> of INFO.  
+	 * Queried on first use.
+	 * @throws RedisException
+	 */
+	protected RedisVersion getServerVersion () throws RedisException {
+		if(null == serverVersion)
+			serverVersion = RedisVersion.valueOf(info().get("redis_version"));
+		return serverVersion;
+	}
+
 	@Override
 	public <K extends Object> List<byte[]> lrange(K key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1224,6 +1420,44 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+	@Override
+	public <K extends Object> long[] lrangeLongs(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return DefaultCodec.toLongs(multiBulkDataView(Command.LRANGE, keybytes, Convert.toBytes(from), Convert.toBytes(to)));
+	}
+
+	@Override
+	public <K extends Object> double[] lrangeDoubles(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return DefaultCodec.toDoubles(multiBulkDataView(Command.LRANGE, keybytes, Convert.toBytes(from), Convert.toBytes(to)));
+	}
+
+	@Override
+	public <K extends Object> MultiBulkStream lrangeStream(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		MultiBulkStream multiBulkStream= null;
+		try {
+			MultiBulkStreamResponse multiBulkStreamResponse = (MultiBulkStreamResponse) this.serviceRequest(Command.LRANGE$STREAM, keybytes, fromBytes, toBytes);
+			multiBulkStream = multiBulkStreamResponse.getMultiBulkStream();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkStreamResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkStream;
+	}
+
 	@Override
 	public <K extends Object> byte[] substr(K key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1264,6 +1498,15 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+	@Override
+	public <K extends Object> ZSetEntries zrangebyscoreEntries (K key, double minScore, double maxScore) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null)
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return ZSetEntriesImpl.valueOf(multiBulkDataView(Command.ZRANGEBYSCORE$OPTS, keybytes, Convert.toBytes(minScore), Convert.toBytes(maxScore), Command.Option.WITHSCORES.bytes));
+	}
+
 	@Override
 	public <K extends Object> List<ZSetEntry> zrangebyscoreSubset (K key, double minScore, double maxScore) throws RedisException {
 		byte[] keybytes = null;
@@ -1370,6 +1613,26 @@ public abstract class JRedisSupport implements JRedis {
 		return multiBulkData;
 	}
 
+	@Override
+	public <K extends Object> MultiBulkStream zrangeStream(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		byte[] fromBytes = Convert.toBytes(from);
+		byte[] toBytes = Convert.toBytes(to);
+
+		MultiBulkStream multiBulkStream= null;
+		try {
+			MultiBulkStreamResponse multiBulkStreamResponse = (MultiBulkStreamResponse) this.serviceRequest(Command.ZRANGE$STREAM, keybytes, fromBytes, toBytes);
+			multiBulkStream = multiBulkStreamResponse.getMultiBulkStream();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a MultiBulkStreamResponse here => " + e.getLocalizedMessage(), e);
+		}
+		return multiBulkStream;
+	}
+
 	@Override
 	public <K extends Object> List<byte[]> zrevrange(K key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1389,6 +1652,24 @@ public abstract class JRedisSupport implements JRedis {
 		}
 		return multiBulkData;
 	}
+	@Override
+	public <K extends Object> ZSetEntries zrangeEntries(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return ZSetEntriesImpl.valueOf(multiBulkDataView(Command.ZRANGE$OPTS, keybytes, Convert.toBytes(from), Convert.toBytes(to), Command.Option.WITHSCORES.bytes));
+	}
+
+	@Override
+	public <K extends Object> ZSetEntries zrevrangeEntries(K key, long from, long to) throws RedisException {
+		byte[] keybytes = null;
+		if((keybytes = getKeyBytes(key)) == null) 
+			throw new IllegalArgumentException ("invalid key => ["+key+"]");
+
+		return ZSetEntriesImpl.valueOf(multiBulkDataView(Command.ZREVRANGE$OPTS, keybytes, Convert.toBytes(from), Convert.toBytes(to), Command.Option.WITHSCORES.bytes));
+	}
+
 	@Override
 	public <K extends Object> List<ZSetEntry> zrangeSubset(K key, long from, long to) throws RedisException {
 		byte[] keybytes = null;
@@ -1495,6 +1776,11 @@ public abstract class JRedisSupport implements JRedis {
 
 	/* ------------------------------- commands that don't get a response --------- */
 
+	@Override
+	public JRedisBatch batch () {
+		return new BatchRequest(this);
+	}
+
 	@Override
 	public <K extends Object> void quit()  {
 		try {
@@ -1865,8 +2151,9 @@ public abstract class JRedisSupport implements JRedis {
 		Double resvalue = null;
 		try {
 			BulkResponse bulkResponse = (BulkResponse) this.serviceRequest(Command.ZSCORE, keybytes, member);
-			if (bulkResponse.getBulkData() != null)
-				resvalue = Convert.toDouble(bulkResponse.getBulkData());
+			byte[] bulkData = bulkResponse.getBulkData();
+			if (bulkData != null)
+				resvalue = Convert.toDouble(bulkData);
 		}
 		catch (ClassCastException e){
 			throw new ProviderException("Expecting a BulkResponse here => " + e.getLocalizedMessage(), e);
@@ -2048,27 +2335,12 @@ public abstract class JRedisSupport implements JRedis {
 	// Transactional commands
 	// ------------------------------------------------------------------------
 	/**
-	 * one option is to return a subclass of JRedis (e.g. JRedisCommandSequence)
-	 * and have that interface declare discard and multi.  Benefit is being able
-	 * to associate state with the transaction.
-	 * @throws RedisException
+	 * Transactions are serviced by {@link JRedisSupport#serviceRequests(Command[], byte[][][])}.
+	 * @see TransactionRequest
 	 */
 	@Version(major=2, minor=0, release=Release.ALPHA)
-	public <K extends Object> JRedis multi() throws RedisException {
-		throw new ProviderException("NOT IMPLEMENTED");
-//		// works
-//		this.serviceRequest(Command.MULTI);
-//		return this;
-	}
-	/**
-	 * @throws RedisException
-	 */
-	@Version(major=2, minor=0, release=Release.ALPHA)
-	public <K extends Object> JRedis discard () throws RedisException {
-		throw new ProviderException("NOT IMPLEMENTED");
-//		// works
-//		this.serviceRequest(Command.DISCARD);
-//		return this;
+	public JRedisTransaction multi () {
+		return new TransactionRequest(this);
 	}
 	// ------------------------------------------------------------------------
 	// utility
@@ -2084,4 +2356,23 @@ public abstract class JRedisSupport implements JRedis {
 	public static <K extends Object> byte[] getKeyBytes(K key) throws IllegalArgumentException {
 		return DefaultKeyCodec.provider().encode(key);
 	}
+
+	/**
+	 * @param keys
+	 * @return the bytes of the keys, in order
+	 * @throws IllegalArgumentException if no keys are specified or a key is invalid
+	 */
+	public static <K extends Object> byte[][] getKeysBytes(K[] keys) throws IllegalArgumentException {
+		if(null == keys || keys.length == 0) throw new IllegalArgumentException("no keys specified");
+		byte[] keydata = null;
+		byte[][] keybytes = new byte[keys.length][];
+		int i=0;
+		for(K k : keys) {
+			if((keydata = getKeyBytes(k)) == null) 
+				throw new IllegalArgumentException ("invalid key => ["+k+"] @ index: " + i);
+			
+			keybytes[i++] = keydata;
+		}
+		return keybytes;
+	}
 }
@@ -1,39 +1,112 @@
-///*
-// *   Copyright 2009 Joubin Houshyar
-// * 
-// *   Licensed under the Apache License, Version 2.0 (the "License");
-// *   you may not use this file except in compliance with the License.
-// *   You may obtain a copy of the License at
-// *    
-// *   http://www.apache.org/licenses/LICENSE-2.0
-// *    
-// *   Unless required by applicable law or agreed to in writing, software
-// *   distributed under the License is distributed on an "AS IS" BASIS,
-// *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
-// *   See the License for the specific language governing permissions and
-// *   limitations under the License.
-// */
-//
-//package org.jredis.ri.alphazero;
-//
-///**
-// * TODO: think about depcrecating this -- there really would be only one version
-// * of Redis.
-// * <p>
-// * [TODO: document me!]
-// *
-// * @author  Joubin Houshyar (alphazero@sensesay.net)
-// * @version alpha.0, Apr 12, 2009
-// * @since   alpha.0
-// * 
-// */
-////public enum RedisVersion {
-////	current_revision ("0.09"),
-////	beta_0_09 ("0.09");
-////	public String id;
-////	public String getId() { return id; }
-////	private RedisVersion(String id) {
-////		this.id = id;
-////	}
-////
-////}
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+/**
+ * The version of a Redis server, as reported by the <code>redis_version</code> of
+ * INFO, e.g. "2.0.4".  Used to select the commands a server supports.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+public final class RedisVersion implements Comparable<RedisVersion> {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	/** the version of a server that did not report its version */
+	public static final RedisVersion unknown = new RedisVersion(0, 0, 0);
+
+	/** first version supporting SCAN */
+	public static final RedisVersion scan = new RedisVersion(2, 8, 0);
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	public final int major;
+	public final int minor;
+	public final int patch;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	public RedisVersion (int major, int minor, int patch) {
+		this.major = major;
+		this.minor = minor;
+		this.patch = patch;
+	}
+
+	/**
+	 * @param version the version string, e.g. "2.0.4".  Missing or non-numeric
+	 * trailing parts (e.g. "2.1.1-rc1") are read as 0.
+	 * @return the version, or {@link RedisVersion#unknown} if version is null
+	 * @throws IllegalArgumentException if the major version is not a number
+	 */
+	public static RedisVersion valueOf (String version) throws IllegalArgumentException {
+		if(null == version) return unknown;
+		final String[] parts = version.trim().split("\\.");
+		try {
+			return new RedisVersion(Integer.parseInt(parts[0]), part(parts, 1), part(parts, 2));
+		}
+		catch (NumberFormatException e){
+			throw new IllegalArgumentException("invalid redis version => " + version, e);
+		}
+	}
+	private static int part (String[] parts, int i) {
+		if(i >= parts.length) return 0;
+		int n = 0;
+		for(int j=0; j<parts[i].length() && Character.isDigit(parts[i].charAt(j)); j++)
+			n = n * 10 + (parts[i].charAt(j) - '0');
+		return n;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @param version
+	 * @return true if this version is the same or later than version
+	 */
+	public boolean isAtLeast (RedisVersion version) {
+		return compareTo(version) >= 0;
+	}
+
+	/* (non-Javadoc) @see java.lang.Comparable#compareTo(java.lang.Object) */
+	public int compareTo (RedisVersion o) {
+		if(major != o.major) return major < o.major ? -1 : 1;
+		if(minor != o.minor) return minor < o.minor ? -1 : 1;
+		if(patch != o.patch) return patch < o.patch ? -1 : 1;
+		return 0;
+	}
+
+	@Override
+	public boolean equals (Object o) {
+		return o instanceof RedisVersion && compareTo((RedisVersion) o) == 0;
+	}
+
+	@Override
+	public int hashCode () {
+		return (major * 31 + minor) * 31 + patch;
+	}
+
+	@Override
+	public String toString () {
+		return major + "." + minor + "." + patch;
+	}
+}
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.NoSuchElementException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.KeyIterator;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.protocol.Reply;
+import org.jredis.ri.alphazero.protocol.ReplyResponse;
+import org.jredis.ri.alphazero.support.Convert;
+
+/**
+ * {@link KeyIterator} that fetches the keys in chunks with SCAN, issuing the next SCAN
+ * (on the client) only once the current chunk has been iterated.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * 
+ */
+final class ScanKeyIterator implements KeyIterator {
+
+	// ------------------------------------------------------------------------
+	// Consts
+	// ------------------------------------------------------------------------
+	private static final byte[]		START_CURSOR = Convert.toBytes(0);
+	private static final byte[][]	NO_KEYS = new byte[0][];
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final JRedisSupport	client;
+	private final byte[]		pattern;
+	private final byte[]		count;
+	
+	/** cursor of the next SCAN -- null once the server has returned the final chunk */
+	private byte[]		cursor = START_CURSOR;
+	/** the current chunk */
+	private byte[][]	keys = NO_KEYS;
+	/** index of the next key of the current chunk */
+	private int			next = 0;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param client
+	 * @param pattern
+	 * @param count number of keys per SCAN (a hint)
+	 */
+	ScanKeyIterator (JRedisSupport client, byte[] pattern, int count) {
+		this.client = client;
+		this.pattern = pattern;
+		this.count = Convert.toBytes(count);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: KeyIterator
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see java.util.Iterator#hasNext() */
+	public boolean hasNext () throws ClientRuntimeException {
+		// a SCAN may return an empty chunk mid-iteration
+		while(next == keys.length && null != cursor)
+			scan();
+		return next < keys.length;
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#next() */
+	public byte[] next () throws ClientRuntimeException {
+		if(!hasNext()) throw new NoSuchElementException();
+		final byte[] key = keys[next];
+		keys[next++] = null;
+		return key;
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#remove() */
+	public void remove () {
+		throw new UnsupportedOperationException("remove is not supported");
+	}
+
+	/* (non-Javadoc) @see org.jredis.KeyIterator#isCursor() */
+	public boolean isCursor () { return true; }
+
+	/* (non-Javadoc) @see org.jredis.KeyIterator#close() */
+	public void close () {
+		cursor = null;
+		keys = NO_KEYS;
+		next = 0;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Fetches the next chunk of keys.
+	 */
+	private void scan () throws ClientRuntimeException {
+		Response response = null;
+		try {
+			response = client.serviceRequest(Command.SCAN, cursor, Command.Option.MATCH.bytes, pattern, Command.Option.COUNT.bytes, count);
+		}
+		catch (RedisException e){
+			throw new ClientRuntimeException("SCAN failed => " + e.getLocalizedMessage(), e);
+		}
+		Reply reply = null;
+		try {
+			reply = ((ReplyResponse) response).getReply();
+		}
+		catch (ClassCastException e){
+			throw new ProviderException("Expecting a ReplyResponse here => " + e.getLocalizedMessage(), e);
+		}
+		if(reply.size() != 2 || reply.get(1).getType() != Reply.Type.MULTI_BULK)
+			throw new ProviderException("Unexpected SCAN reply => " + reply.getType() + " of size " + reply.size());
+		
+		final byte[] nextCursor = reply.get(0).getData();
+		final Reply chunk = reply.get(1);
+		keys = new byte[chunk.size()][];
+		for(int i=0; i<keys.length; i++)
+			keys[i] = chunk.get(i).getData();
+		next = 0;
+		cursor = Convert.toLong(nextCursor) == 0 ? null : nextCursor;
+	}
+}
@@ -0,0 +1,75 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.NoSuchElementException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.KeyIterator;
+import org.jredis.protocol.MultiBulkStream;
+
+/**
+ * {@link KeyIterator} over the (lazily read) reply of a KEYS, for servers that do not 
+ * support SCAN.  The keys are read from the connection as they are iterated.
+ * <p>
+ * A request issued on the connection before the iteration is complete drains the
+ * stream.  Rather than silently ending, the iterator then raises a {@link ClientRuntimeException}. 
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see MultiBulkStream
+ */
+final class StreamKeyIterator implements KeyIterator {
+
+	private final MultiBulkStream stream;
+	/** number of keys iterated */
+	private int		count = 0;
+	private boolean closed = false;
+
+	StreamKeyIterator (MultiBulkStream stream) {
+		this.stream = stream;
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#hasNext() */
+	public boolean hasNext () throws ClientRuntimeException { 
+		if(stream.hasNext()) return true;
+		if(!closed && count < stream.size())
+			throw new ClientRuntimeException("KEYS reply was drained by a request issued during the iteration -- iterated " + count + " of " + stream.size() + " keys");
+		return false;
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#next() */
+	public byte[] next () throws ClientRuntimeException { 
+		if(!hasNext()) throw new NoSuchElementException();
+		count++;
+		return stream.next(); 
+	}
+
+	/* (non-Javadoc) @see java.util.Iterator#remove() */
+	public void remove () {
+		throw new UnsupportedOperationException("remove is not supported");
+	}
+
+	/* (non-Javadoc) @see org.jredis.KeyIterator#isCursor() */
+	public boolean isCursor () { return false; }
+
+	/* (non-Javadoc) @see org.jredis.KeyIterator#close() */
+	public void close () throws ClientRuntimeException { 
+		closed = true;
+		stream.close(); 
+	}
+}
@@ -0,0 +1,174 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedisTransaction;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.BatchRequest.BatchedResponse;
+import org.jredis.ri.alphazero.protocol.Reply;
+import org.jredis.ri.alphazero.protocol.ReplyResponse;
+
+/**
+ * The {@link JRedisTransaction} of a {@link JRedisSupport} client.  MULTI, the buffered 
+ * commands, and EXEC are serviced as one batch by {@link JRedisSupport#serviceRequests(Command[], byte[][][])}.
+ * <p>
+ * The (+QUEUED) replies to the commands are only checked for errors (and are not allocated
+ * per reply by the synchronous connections), and the responses of the commands are the elements
+ * of the (nested) EXEC reply.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+final class TransactionRequest extends JRedisFutureSupport implements JRedisTransaction {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	private static final byte[][]	NO_ARGS = new byte[0][];
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the transaction's client */
+	private final JRedisSupport				client;
+
+	/** the commands of the transaction */
+	private final List<BatchedResponse>		queued = new ArrayList<BatchedResponse>();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param client
+	 */
+	TransactionRequest (JRedisSupport client) {
+		this.client = client;
+	}
+
+	// ------------------------------------------------------------------------
+	// Super overrides
+	// ------------------------------------------------------------------------
+	/**
+	 * Adds the command to the transaction.
+	 * @throws IllegalArgumentException for {@link Command#QUIT}
+	 * @see org.jredis.ri.alphazero.JRedisFutureSupport#queueRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	@Override
+	protected Future<Response> queueRequest (Command cmd, byte[]... args) throws ClientRuntimeException, ProviderException {
+		if(cmd.responseType == Command.ResponseType.VIRTUAL)
+			throw new IllegalArgumentException(cmd.code + " can not be part of a transaction");
+		final BatchedResponse response = new BatchedResponse(cmd, args);
+		queued.add(response);
+		return response;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: JRedisTransaction
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.JRedisTransaction#exec() */
+	public void exec () throws RedisException, ClientRuntimeException, ProviderException {
+		final int cnt = queued.size();
+		if(cnt == 0) return;
+
+		final BatchedResponse[] requests = queued.toArray(new BatchedResponse[cnt]);
+		queued.clear();
+		final Command[] cmds = new Command[cnt + 2];
+		final byte[][][] args = new byte[cnt + 2][][];
+		cmds[0] = Command.MULTI;
+		args[0] = NO_ARGS;
+		for(int i=0; i<cnt; i++){
+			cmds[i+1] = requests[i].cmd;
+			args[i+1] = requests[i].args;
+		}
+		cmds[cnt+1] = Command.EXEC;
+		args[cnt+1] = NO_ARGS;
+
+		final Response[] responses;
+		try {
+			responses = client.serviceRequests(cmds, args);
+		}
+		catch (ClientRuntimeException e){
+			fail(requests, e);
+			throw e;
+		}
+
+		if(responses[0].isError())
+			throw fail(requests, new RedisException(Command.MULTI, responses[0].getStatus().message()));
+
+		// commands that were not queued fail with their own error
+		for(int i=0; i<cnt; i++){
+			if(responses[i+1].isError())
+				requests[i].setResponse(responses[i+1]);
+		}
+
+		final Response exec = responses[cnt+1];
+		if(exec.isError())
+			throw fail(requests, new RedisException(Command.EXEC, exec.getStatus().message()));
+		if(!(exec instanceof ReplyResponse))
+			throw fail(requests, new ProviderException("Expecting a ReplyResponse for EXEC => " + exec.getClass().getName()));
+		final Reply results = ((ReplyResponse) exec).getReply();
+		if(results.isNil())
+			throw fail(requests, new RedisException(Command.EXEC, "Transaction aborted"));
+
+		int r = 0;
+		for(int i=0; i<cnt; i++){
+			if(null != requests[i].getResponse()) continue;
+			if(r == results.size())
+				throw fail(requests, new ProviderException("EXEC reply has fewer results than queued commands: " + r));
+			requests[i].setResponse(ReplyResponse.forReply(requests[i].cmd, results.get(r++)));
+		}
+	}
+
+	/* (non-Javadoc) @see org.jredis.JRedisTransaction#discard() */
+	public void discard () {
+		final ClientRuntimeException discarded = new ClientRuntimeException("Transaction discarded");
+		for(BatchedResponse request : queued)
+			request.setError(discarded);
+		queued.clear();
+	}
+
+	/* (non-Javadoc) @see org.jredis.JRedisTransaction#size() */
+	public int size () {
+		return queued.size();
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Fails the (incomplete) requests with the error.
+	 * @param requests
+	 * @param error
+	 * @return the error
+	 */
+	private static <E extends Exception> E fail (BatchedResponse[] requests, E error) {
+		for(BatchedResponse request : requests) {
+			if(null == request.getResponse())
+				request.setError(error);
+		}
+		return error;
+	}
+}
@@ -0,0 +1,68 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ * 
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *    
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *    
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import org.jredis.ZSetEntries;
+import org.jredis.protocol.BulkDataView;
+import org.jredis.ri.alphazero.support.Convert;
+
+/**
+ * {@link ZSetEntries} decoded from the (value, score) pairs of a WITHSCORES reply.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * 
+ */
+
+final class ZSetEntriesImpl implements ZSetEntries {
+
+	private final byte[][] values;
+	private final double[] scores;
+
+	private ZSetEntriesImpl (byte[][] values, double[] scores) {
+		this.values = values;
+		this.scores = scores;
+	}
+
+	/**
+	 * Scores are parsed in place from the view, and values are only copied if the view's
+	 * elements share a buffer.
+	 * @param view a view of the reply's (value, score) pairs
+	 * @return the entries, or null if view is null
+	 */
+	static ZSetEntries valueOf (BulkDataView view) {
+		if(null == view) return null;
+		final int size = view.size() / 2;
+		final byte[][] values = new byte[size][];
+		final double[] scores = new double[size];
+		for(int i=0, j=0; i<size; i++, j+=2){
+			values[i] = view.data(j);
+			scores[i] = Convert.toDouble(view.array(j+1), view.offset(j+1), view.length(j+1));
+		}
+		return new ZSetEntriesImpl(values, scores);
+	}
+
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#size() */
+	public int size () { return values.length; }
+
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getValues() */
+	public byte[][] getValues () { return values; }
+
+	/* (non-Javadoc) @see org.jredis.ZSetEntries#getScores() */
+	public double[] getScores () { return scores; }
+}
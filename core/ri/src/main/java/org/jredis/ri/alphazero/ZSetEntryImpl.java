@@ -30,11 +30,21 @@ import org.jredis.ri.alphazero.support.DefaultCodec;
 
 class ZSetEntryImpl extends Pair<byte[], byte[]> implements ZSetEntry {
 
+	/** the parsed score -- valid if scoreParsed */
+	private double score;
+	private boolean scoreParsed;
+	
     public ZSetEntryImpl (byte[] valueBytes, byte[] scoreBytes) {
     	super(valueBytes, scoreBytes);
     }
 	/* (non-Javadoc) @see org.jredis.ZSetEntry#getScore() */
-	public double getScore () { return DefaultCodec.toDouble(t2); }
+	public double getScore () { 
+		if(!scoreParsed) {
+			score = DefaultCodec.toDouble(t2);
+			scoreParsed = true;
+		}
+		return score; 
+	}
 
 	/* (non-Javadoc) @see org.jredis.ZSetEntry#getValue() */
 	public byte[] getValue () { return t1;}
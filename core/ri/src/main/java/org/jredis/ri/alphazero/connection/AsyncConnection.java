@@ -16,7 +16,11 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Future;
@@ -31,14 +35,18 @@ import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.protocol.ByteBufferRequest;
 import org.jredis.ri.alphazero.protocol.ConcurrentSyncProtocol;
+import org.jredis.ri.alphazero.protocol.DefaultProtocolFactory;
 import org.jredis.ri.alphazero.protocol.VirtualResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.FastBufferedInputStream;
 import org.jredis.ri.alphazero.support.Log;
 
 /**
- * [TODO: document me!]
+ * An {@link Modality#Asynchronous} connection with a dedicated request processor
+ * thread.  Queued requests are drained in batches: all requests of a batch are 
+ * written to the socket in one write, and their responses are then read in order.
  *
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Nov 6, 2009
@@ -47,6 +55,12 @@ import org.jredis.ri.alphazero.support.Log;
  */
 
 public class AsyncConnection extends ConnectionBase implements Connection {
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** max number of requests written (and responses read) per batch */
+	public static final int MAX_BATCH_SIZE = 1024;
+	
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
@@ -58,6 +72,9 @@ public class AsyncConnection extends ConnectionBase implements Connection {
 
 	/**  */
 	private BlockingQueue<PendingRequest>	pendingQueue;
+
+	/** set once the processor thread stops -- no further requests are accepted */
+	private volatile boolean		stopped = false;
 	
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -94,7 +111,7 @@ public class AsyncConnection extends ConnectionBase implements Connection {
      */
     @Override
     protected Protocol newProtocolHandler () {
-		return new ConcurrentSyncProtocol();
+		return new ConcurrentSyncProtocol(spec.getConnectionFlag(Flag.BULK_VIEWS), DefaultProtocolFactory.getGatherWriteThreshold(spec));
     }
     
     /**
@@ -135,6 +152,9 @@ public class AsyncConnection extends ConnectionBase implements Connection {
 		
 		PendingRequest pending = new PendingRequest(cmd, args);
 		pendingQueue.add(pending);
+		// raced with the stop of the processor: unless it has already failed the request
+		if(stopped && pendingQueue.remove(pending))
+			throw new NotConnectedException ("Not connected!");
 		return pending;
     }
     
@@ -142,13 +162,25 @@ public class AsyncConnection extends ConnectionBase implements Connection {
 	// Inner Class
 	// ------------------------------------------------------------------------
     public final class RequestProcessor implements Runnable {
+    	
+    	/** requests of a batch are buffered here -- used by the processor thread only */
+    	private ByteArrayOutputStream writeBuffer;
+    	
+    	/** writeBuffer is flushed when it reaches this size */
+    	private int writeBufferLimit;
 
     	/**
     	 * Keeps processing the {@link PendingRequest}s in the pending {@link Queue}
 		 * until a QUIT is encountered in the pending queue.  Thread will stop after
 		 * processing the QUIT response (which is expected to be a {@link VirtualResponse}.
+		 * <p>
+		 * Requests are processed in batches of (up to) {@link AsyncConnection#MAX_BATCH_SIZE}
+		 * queued requests: the batch is written in a single write, and then the responses 
+		 * are read in order.
     	 * <p>
-    	 * TODO: not entirely clear what is the best way to handle exceptions.
+    	 * Once a write or read of a batch fails, the replies on the stream can no longer
+    	 * be matched to the requests: the connection is faulted, and the thread stops.
+    	 * Requests that have not completed when the thread stops are failed.
     	 * <p>
     	 * TODO: socket Reconnect in the context of pipelining is non-trivial, and maybe
     	 * not even practically possible.  (e.g. request n is sent but pipe breaks on
@@ -159,54 +191,150 @@ public class AsyncConnection extends ConnectionBase implements Connection {
 			Log.log("AsyncConnection processor thread <%s> started.", Thread.currentThread().getName());
         	/** Response handler thread specific protocol handler -- optimize fencing */
         	Protocol protocol = Assert.notNull (newProtocolHandler(), "the delegate protocol handler", ClientRuntimeException.class);
-        	PendingRequest pending = null;
-        	while(true){
+        	writeBufferLimit = spec.getSocketProperty(Connection.Socket.Property.SO_SNDBUF);
+        	writeBuffer = new ByteArrayOutputStream(writeBufferLimit);
+        	List<PendingRequest> batch = new ArrayList<PendingRequest>(MAX_BATCH_SIZE);
+        	List<PendingRequest> written = new ArrayList<PendingRequest>(MAX_BATCH_SIZE);
+        	boolean quit = false;
+        	/** set if the connection faulted */
+        	ClientRuntimeException fault = null;
+        	while(!quit){
 				try {
-	                pending = pendingQueue.take();
+					batch.clear();
+					written.clear();
+					batch.add(pendingQueue.take());
+					pendingQueue.drainTo(batch, MAX_BATCH_SIZE - 1);
+				}
+				catch (InterruptedException e1) {
+					Log.log("AsyncConnection processor thread interrupted.");
+					fault = new ClientRuntimeException("AsyncConnection processor thread interrupted", e1);
+					break;
+				}
+				
+				// write all the requests of the batch (up to a QUIT) ...
+				// requests queued after QUIT are left in the queue, and failed on stop
+				int end = batch.size();
+				int i = 0;
+				try {
+					for(; i<end; i++){
+						PendingRequest pending = batch.get(i);
+						Request request = null;
+						try {
+							request = Assert.notNull(protocol.createRequest (pending.cmd, pending.args), "request object from handler", ProviderException.class);
+						}
+						catch (ClientRuntimeException cre) {
+							Log.error ("ClientRuntimeException: " + cre.getLocalizedMessage());
+							pending.setCRE(cre);
+							continue;
+						}
+						if(request instanceof ByteBufferRequest && ((ByteBufferRequest) request).size() >= writeBufferLimit) {
+							flush();
+							request.write(getOutputStream());
+						}
+						else {
+							request.write(writeBuffer);
+							if(writeBuffer.size() >= writeBufferLimit)
+								flush();
+						}
+						written.add(pending);
+						if(pending.cmd == Command.QUIT) {
+							for(int j=i+1; j<end; j++) pendingQueue.add(batch.get(j));
+							end = i+1;
+							quit = true;
+						}
+					}
+					flush();
+				}
+				catch (ClientRuntimeException cre) {
+					// some of the batch may have been written: the stream is out of sync
+					Log.error ("ClientRuntimeException on write: " + cre.getLocalizedMessage());
+					writeBuffer.reset();
+					for(PendingRequest pending : written) pending.setCRE(cre);
+					for(int j=i; j<end; j++) batch.get(j).setCRE(cre);
+					fault = cre;
+					break;
+				}
+				// ... then read their responses, in order.
+				for(i=0; i<written.size(); i++){
+					PendingRequest pending = written.get(i);
 					try {
-						Request request = Assert.notNull(protocol.createRequest (pending.cmd, pending.args), "request object from handler", ProviderException.class);
-						request.write(getOutputStream());
+						Response response = protocol.createResponse(pending.cmd);
+						response.read(getInputStream());
 						
-						pending.response = protocol.createResponse(pending.cmd);
-						pending.response.read(getInputStream());
-						
-						pending.completion.signal();
-						if(pending.response.getStatus().isError()) {
-							Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + pending.response.getStatus().message());
+						// log before signaling -- the response may be released once consumed
+						if(response.getStatus().isError()) {
+							Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + response.getStatus().message());
 						}
-
-					}
-					catch (ProviderException bug){
-						Log.error ("ProviderException: " + bug.getLocalizedMessage());
-						bug.printStackTrace();
-						pending.setCRE(bug);
+						pending.setResponse(response);
 					}
 					catch (ClientRuntimeException cre) {
+						// the stream is out of sync: fail this and the remaining responses of the batch
 						Log.error ("ClientRuntimeException: " + cre.getLocalizedMessage());
 						cre.printStackTrace();
-						pending.setCRE(cre);
+						for(int j=i; j<written.size(); j++) written.get(j).setCRE(cre);
+						fault = cre;
+						break;
 					}
 					catch (RuntimeException e){
 						Log.error("Unexpected RuntimeException ", e);
 						e.printStackTrace();
-						pending.setCRE(new ProviderException("Unexpected runtime exception in response handler"));
-						pending.setResponse(null);
+						ProviderException bug = new ProviderException("Unexpected runtime exception in response handler");
+						for(int j=i; j<written.size(); j++) written.get(j).setCRE(bug);
+						fault = bug;
 						break;
 					}
-					
-					// redis (1.00) simply shutsdown connection even if pending responses
-					// are expected, so quit is NOT sent.  we simply close connection on this
-					// end. 
-					if(pending.cmd == Command.QUIT) {
-						AsyncConnection.this.disconnect();
-						break;
-					}
-                }
-                catch (InterruptedException e1) {
-	                e1.printStackTrace();
-                }
+				}
+				if(null != fault) break;
+				
+				// redis (1.00) simply shutsdown connection even if pending responses
+				// are expected, so quit is NOT sent.  we simply close connection on this
+				// end. 
+				if(!written.isEmpty() && written.get(written.size()-1).cmd == Command.QUIT) {
+					AsyncConnection.this.disconnect();
+				}
         	}
+        	stop(fault);
 			Log.log("AsyncConnection processor thread <%s> stopped.", Thread.currentThread().getName());
         }
+
+        /**
+         * Closes the connection, if still connected, and fails the requests still queued.  
+         * Further requests are rejected by {@link AsyncConnection#queueRequest(Command, byte[]...)}.
+         * @param fault the cause, or null if stopped after QUIT
+         */
+        private void stop (ClientRuntimeException fault) {
+        	stopped = true;
+        	if(isConnected()) {
+        		AsyncConnection.this.disconnect();
+        		if(null != fault)
+        			onConnectionFault(fault.getMessage(), false);
+        	}
+        	final ClientRuntimeException cause = null != fault ? fault : 
+        		new ClientRuntimeException("Connection closed on QUIT; request not processed");
+        	PendingRequest pending;
+        	while((pending = pendingQueue.poll()) != null)
+        		pending.setCRE(cause);
+        }
+        
+        /**
+         * Writes the buffered requests to the socket.
+         */
+        private void flush () throws ClientRuntimeException {
+        	final int size = writeBuffer.size();
+        	if(size == 0) return;
+        	try {
+        		writeBuffer.writeTo(getOutputStream());
+        	}
+        	catch (IOException e) {
+        		throw new ClientRuntimeException ("stream io exception", e);
+        	}
+        	finally {
+        		// don't retain the buffer if a large batch has grown it
+        		if(size > writeBufferLimit * 2)
+        			writeBuffer = new ByteArrayOutputStream(writeBufferLimit);
+        		else
+        			writeBuffer.reset();
+        	}
+        }
     }
 }
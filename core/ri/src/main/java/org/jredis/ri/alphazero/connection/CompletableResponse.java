@@ -0,0 +1,42 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.Future;
+import org.jredis.protocol.Response;
+
+/**
+ * A future {@link Response} that runs callbacks on its completion.  The futures
+ * of {@link org.jredis.JRedisFuture} implementations notify their listeners through
+ * these callbacks.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ * @see PendingRequest
+ *
+ */
+public interface CompletableResponse extends Future<Response> {
+	/**
+	 * Registers a callback to run on completion of the response, on the thread that
+	 * completes it, or, if the response has already completed, immediately on the
+	 * caller's thread.  Callbacks must not block.  Runtime exceptions raised by the
+	 * callback are logged and suppressed.
+	 * @param callback
+	 */
+	public void onCompletion (Runnable callback);
+}
@@ -27,7 +27,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
@@ -72,6 +74,12 @@ public abstract class ConnectionBase implements Connection{
 	/** Thread specific protocol handler -- optimize fencing */
 	ThreadLocal<Protocol> thrdProtocol = new ThreadLocal<Protocol>();
 	
+	/** 
+	 * Protocol handler shared by all threads -- set by {@link ConnectionBase#useConnectionProtocol()}.
+	 * Not volatile: it is set before the connection is handed off to other threads.
+	 */
+	private Protocol			connProtocol;
+	
 	/** Protocol specific matters are delegated to an instance of {@link Protocol} */
 //	private Protocol 			protocol;
 
@@ -163,7 +171,88 @@ public abstract class ConnectionBase implements Connection{
 				"Response.serviceRequest(RequestListener requestListener, " +
 				"Object , Command, byte[]...) is not supported.");
 	}
-	
+
+//	@Override
+	public void queueNoReplyRequest(Command cmd, byte[]... args) 
+		throws ClientRuntimeException, ProviderException 
+	{
+		throw new NotSupportedException (
+				"Connection.queueNoReplyRequest(Command, byte[]...) is not supported.");
+	}
+
+//	@Override
+	public long awaitNoReplies() throws ClientRuntimeException, ProviderException {
+		throw new NotSupportedException (
+				"Connection.awaitNoReplies() is not supported.");
+	}
+
+	/**
+	 * Queues all requests before awaiting any of their responses, which is a single round
+	 * trip for the connections that pipeline their requests.  {@link SyncConnection} overrides.
+	 */
+//	@Override
+	public Response[] serviceRequests(Command[] cmds, byte[][][] args)
+		throws ClientRuntimeException, ProviderException
+	{
+		return serviceQueued(this, cmds, args);
+	}
+
+	/**
+	 * Validates the requests of {@link Connection#serviceRequests(Command[], byte[][][])}.
+	 * @param cmds
+	 * @param args
+	 * @throws IllegalArgumentException
+	 */
+	static void checkBatch (Command[] cmds, byte[][][] args) throws IllegalArgumentException {
+		if(null == cmds || null == args || cmds.length != args.length)
+			throw new IllegalArgumentException("a batch requires the same number of commands and args");
+		if(cmds.length == 0)
+			throw new IllegalArgumentException("a batch requires at least one command");
+		for(Command cmd : cmds) {
+			if(cmd.responseType == Command.ResponseType.VIRTUAL || cmd.responseType == Command.ResponseType.MULTI_BULK_STREAM)
+				throw new IllegalArgumentException(cmd.code + " can not be batched");
+		}
+	}
+
+	/**
+	 * {@link Connection#serviceRequests(Command[], byte[][][])} for connections that support
+	 * {@link Connection#queueRequest(Command, byte[]...)}.  The error responses are obtained
+	 * from the {@link PendingRequest}s of the connection.
+	 * @param conn
+	 * @param cmds
+	 * @param args
+	 * @return the responses
+	 */
+	static Response[] serviceQueued (Connection conn, Command[] cmds, byte[][][] args)
+		throws ClientRuntimeException, ProviderException
+	{
+		checkBatch(cmds, args);
+		final List<Future<Response>> futures = new ArrayList<Future<Response>>(cmds.length);
+		for(int i=0; i<cmds.length; i++)
+			futures.add(conn.queueRequest(cmds[i], args[i]));
+
+		final Response[] responses = new Response[cmds.length];
+		for(int i=0; i<cmds.length; i++){
+			final Future<Response> future = futures.get(i);
+			try {
+				responses[i] = future.get();
+			}
+			catch (InterruptedException e) {
+				throw new ClientRuntimeException("Interrupted while awaiting the responses of a batch", e);
+			}
+			catch (ExecutionException e) {
+				final Throwable cause = e.getCause();
+				if(cause instanceof RedisException && future instanceof PendingRequest)
+					responses[i] = ((PendingRequest) future).response;
+				else if(cause instanceof ClientRuntimeException)
+					throw (ClientRuntimeException) cause;
+				else
+					throw new ProviderException("on batch response get()", e);
+			}
+		}
+		return responses;
+	}
+
 	// ------------------------------------------------------------------------
 	// Event management
 
@@ -532,8 +621,30 @@ public abstract class ConnectionBase implements Connection{
 //		this.protocol = notNull(protocolHandler, "protocolHandler for ConnectionBase", ClientRuntimeException.class);
 	}
 	
+	/**
+	 * @return the protocol handler of the calling thread -- created on first use, so that
+	 * (shared) connections can be used by threads other than the one that created them.
+	 */
 	final protected Protocol getProtocolHandler() {
-		return notNull(thrdProtocol.get(), "protocolHandler for ConnectionBase", ClientRuntimeException.class);
+		Protocol protocol = connProtocol;
+		if(null != protocol) return protocol;
+		protocol = thrdProtocol.get();
+		if(null == protocol) {
+			protocol = notNull(newProtocolHandler(), "protocolHandler for ConnectionBase", ClientRuntimeException.class);
+			thrdProtocol.set(protocol);
+		}
+		return protocol;
+	}
+
+	/**
+	 * Has all threads use the calling thread's protocol handler, rather than one per thread.
+	 * For connections used by one thread at a time (such as pooled connections), which must 
+	 * be handed off between threads with a happens-before edge, and use a protocol whose 
+	 * responses are not reused (i.e. per {@link Connection.Flag#SHARED}).
+	 */
+	final void useConnectionProtocol () {
+		connProtocol = getProtocolHandler();
+		thrdProtocol.remove();
 	}
 
 	final protected OutputStream getOutputStream() {
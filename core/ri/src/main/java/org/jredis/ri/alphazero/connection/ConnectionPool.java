@@ -0,0 +1,520 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.support.Assert;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * A bounded pool of {@link Connection.Modality#Synchronous} connections, shared by any
+ * number of threads.  Each request borrows a connection for its duration.
+ * <p>
+ * The borrow/return path takes no locks: the idle connections are kept on a lock-free
+ * (LIFO) stack, so that the most recently used connections are reused and the others
+ * age out, and the number of borrowed connections is bounded by a {@link Semaphore}
+ * (a single CAS unless the pool is exhausted).  Connections are created on demand, up
+ * to the max size.
+ * <p>
+ * Connections idle for longer than the {@link ConnectionPool#setMaxIdleTime(long) max idle time}
+ * are closed by a (daemon) sweeper thread, down to the pool's min size.  A connection idle for
+ * longer than the {@link ConnectionPool#setValidationInterval(long) validation interval} is
+ * validated with a {@link Command#PING} before it is borrowed, and a connection whose request
+ * raised a {@link RuntimeException} is discarded.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+public final class ConnectionPool {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** Default max idle time (ms) of the connections in excess of the min size: 60 sec. */
+	public static final long DEFAULT_MAX_IDLE_TIME = 60 * 1000;
+
+	/** Default idle time (ms) after which a connection is validated before use: 30 sec. */
+	public static final long DEFAULT_VALIDATION_INTERVAL = 30 * 1000;
+
+	/** the sweeper's min period */
+	private static final long MIN_SWEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final ConnectionSpec		spec;
+
+	private final Connection.Factory	factory;
+
+	private final int					minSize;
+
+	private final int					maxSize;
+
+	/** bounds the number of borrowed connections */
+	private final Semaphore				permits;
+
+	/** number of open connections -- idle, borrowed, or being swept */
+	private final AtomicInteger			size = new AtomicInteger(0);
+
+	/** the idle connections */
+	private final AtomicReference<Node>	idle = new AtomicReference<Node>();
+
+	private volatile long				maxIdleNanos;
+
+	private volatile long				validationNanos;
+
+	/** max wait for a connection -- negative to wait indefinitely */
+	private volatile long				maxWaitNanos = -1;
+
+	private volatile boolean			closed = false;
+
+	private volatile Thread				sweeper;
+
+	// metrics
+	private final AtomicLong			borrowCnt = new AtomicLong();
+	private final AtomicLong			waitCnt = new AtomicLong();
+	private final AtomicLong			waitNanos = new AtomicLong();
+	/** (benignly) racy */
+	private volatile long				maxWaitedNanos = 0;
+	private final AtomicLong			timeoutCnt = new AtomicLong();
+	private final AtomicLong			createCnt = new AtomicLong();
+	private final AtomicLong			evictCnt = new AtomicLong();
+	private final AtomicLong			discardCnt = new AtomicLong();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * Creates the pool and its min number of connections.  Connections are created by the spec's
+	 * {@link Connection.Property#CONNECTION_FACTORY}.
+	 * @param spec the spec of the connections
+	 * @param minSize number of connections kept open
+	 * @param maxSize max number of connections
+	 * @throws ClientRuntimeException if the min number of connections could not be created
+	 */
+	public ConnectionPool (ConnectionSpec spec, int minSize, int maxSize) throws ClientRuntimeException {
+		if(minSize < 0 || maxSize < 1 || minSize > maxSize)
+			throw new IllegalArgumentException(String.format("min size %d, max size %d", minSize, maxSize));
+		this.spec = Assert.notNull(spec, "connection spec", ClientRuntimeException.class);
+		this.factory = Assert.notNull((Connection.Factory) spec.getConnectionProperty(Connection.Property.CONNECTION_FACTORY), "connection factory", ClientRuntimeException.class);
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.permits = new Semaphore(maxSize);
+
+		try {
+			for(int i=0; i<minSize; i++){
+				size.incrementAndGet();
+				push(new Entry(newConnection()));
+			}
+		}
+		catch (RuntimeException e){
+			close();
+			throw e;
+		}
+		setMaxIdleTime(DEFAULT_MAX_IDLE_TIME);
+		setValidationInterval(DEFAULT_VALIDATION_INTERVAL);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: configuration
+	// ------------------------------------------------------------------------
+	/**
+	 * Connections (beyond the min size) idle for longer than maxIdleTime are closed.
+	 * @param maxIdleTime in millisecs.  0 disables eviction.
+	 */
+	public void setMaxIdleTime (long maxIdleTime) {
+		if(maxIdleTime < 0) throw new IllegalArgumentException("maxIdleTime: " + maxIdleTime);
+		maxIdleNanos = TimeUnit.MILLISECONDS.toNanos(maxIdleTime);
+		if(maxIdleTime > 0 && minSize < maxSize)
+			startSweeper();
+		final Thread s = sweeper;
+		if(null != s) LockSupport.unpark(s);	// reschedule per the new max idle time
+	}
+
+	/**
+	 * Connections idle for longer than validationInterval are validated before use.
+	 * @param validationInterval in millisecs.  0 validates on every borrow; negative never validates.
+	 */
+	public void setValidationInterval (long validationInterval) {
+		validationNanos = validationInterval < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(validationInterval);
+	}
+
+	/**
+	 * @param maxWait max wait (millisecs) for a connection when all are in use.
+	 * Negative (default) waits indefinitely.
+	 */
+	public void setMaxWait (long maxWait) {
+		maxWaitNanos = maxWait < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(maxWait);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: service
+	// ------------------------------------------------------------------------
+	/**
+	 * Services the request on a pooled connection.
+	 * @param cmd
+	 * @param args
+	 * @return the response
+	 * @throws RedisException
+	 * @throws ClientRuntimeException if the pool is closed, or no connection was available in time
+	 * @throws ProviderException
+	 */
+	public Response serviceRequest (Command cmd, byte[]... args) throws RedisException, ClientRuntimeException, ProviderException {
+		final Entry entry = borrow();
+		boolean ok = false;
+		try {
+			final Response response = entry.conn.serviceRequest(cmd, args);
+			ok = true;
+			return response;
+		}
+		catch (RedisException e){
+			ok = true;	// an error reply -- the connection is fine
+			throw e;
+		}
+		finally {
+			release(entry, ok);
+		}
+	}
+
+	/**
+	 * Services the batched requests on a pooled connection.
+	 * @param cmds
+	 * @param args
+	 * @return the responses
+	 * @throws ClientRuntimeException if the pool is closed, or no connection was available in time
+	 * @throws ProviderException
+	 * @see Connection#serviceRequests(Command[], byte[][][])
+	 */
+	public Response[] serviceRequests (Command[] cmds, byte[][][] args) throws ClientRuntimeException, ProviderException {
+		ConnectionBase.checkBatch(cmds, args);	// before borrowing: an invalid batch is not a connection fault
+		final Entry entry = borrow();
+		boolean ok = false;
+		try {
+			final Response[] responses = entry.conn.serviceRequests(cmds, args);
+			ok = true;
+			return responses;
+		}
+		finally {
+			release(entry, ok);
+		}
+	}
+
+	/**
+	 * Closes the idle connections, and the borrowed connections as they are returned.
+	 * Further requests raise a {@link ClientRuntimeException}.
+	 */
+	public void close () {
+		closed = true;
+		final Thread s = sweeper;
+		if(null != s) s.interrupt();
+		Node node = idle.getAndSet(null);
+		for(; null != node; node = node.next){
+			size.decrementAndGet();
+			discard(node.entry.conn);
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: metrics
+	// ------------------------------------------------------------------------
+	/** @return the min number of connections */
+	public int getMinSize () { return minSize; }
+
+	/** @return the max number of connections */
+	public int getMaxSize () { return maxSize; }
+
+	/** @return the number of open connections */
+	public int getSize () { return size.get(); }
+
+	/** @return the number of borrowed connections */
+	public int getActiveCount () { return maxSize - permits.availablePermits(); }
+
+	/** @return number of requests serviced (or attempted) */
+	public long getBorrowCount () { return borrowCnt.get(); }
+
+	/** @return number of requests that had to wait for a connection */
+	public long getWaitCount () { return waitCnt.get(); }
+
+	/** @return total wait time (nanos) of the requests that waited for a connection */
+	public long getTotalWaitTime () { return waitNanos.get(); }
+
+	/** @return the longest wait (nanos) for a connection */
+	public long getMaxWaitTime () { return maxWaitedNanos; }
+
+	/** @return number of requests that timed out waiting for a connection */
+	public long getTimeoutCount () { return timeoutCnt.get(); }
+
+	/** @return number of connections created */
+	public long getCreateCount () { return createCnt.get(); }
+
+	/** @return number of idle connections closed by the sweeper */
+	public long getEvictCount () { return evictCnt.get(); }
+
+	/** @return number of connections discarded on failed validation or request */
+	public long getDiscardCount () { return discardCnt.get(); }
+
+	@Override
+	public String toString () {
+		final long waits = waitCnt.get();
+		return String.format("%s[size:%d active:%d borrows:%d waits:%d avg-wait:%dus max-wait:%dus timeouts:%d created:%d evicted:%d discarded:%d]",
+				getClass().getSimpleName(), size.get(), getActiveCount(), borrowCnt.get(), waits,
+				waits > 0 ? waitNanos.get() / waits / 1000 : 0, maxWaitedNanos / 1000, timeoutCnt.get(),
+				createCnt.get(), evictCnt.get(), discardCnt.get());
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops: borrow/return
+	// ------------------------------------------------------------------------
+	/**
+	 * @return an idle (or new) connection
+	 */
+	private Entry borrow () throws ClientRuntimeException {
+		if(closed) throw new ClientRuntimeException("Connection pool is closed");
+		borrowCnt.incrementAndGet();
+		if(!permits.tryAcquire())
+			awaitPermit();
+		try {
+			while(true){
+				final Entry entry = pop();
+				if(null != entry){
+					if(isValid(entry)) return entry;
+					size.decrementAndGet();
+					discardCnt.incrementAndGet();
+					discard(entry.conn);
+					continue;
+				}
+				if(closed) throw new ClientRuntimeException("Connection pool is closed");
+				if(size.incrementAndGet() <= maxSize){
+					try {
+						return new Entry(newConnection());
+					}
+					catch (RuntimeException e){
+						size.decrementAndGet();
+						throw e;
+					}
+				}
+				// the idle connections are (briefly) off the stack for sweeping
+				size.decrementAndGet();
+				Thread.yield();
+			}
+		}
+		catch (RuntimeException e){
+			permits.release();
+			throw e;
+		}
+	}
+
+	private void awaitPermit () throws ClientRuntimeException {
+		waitCnt.incrementAndGet();
+		final long start = System.nanoTime();
+		try {
+			final long wait = maxWaitNanos;
+			if(wait < 0)
+				permits.acquire();
+			else if(!permits.tryAcquire(wait, TimeUnit.NANOSECONDS)) {
+				timeoutCnt.incrementAndGet();
+				throw new ClientRuntimeException("Timed out waiting for a pooled connection (pool size: " + maxSize + ")");
+			}
+		}
+		catch (InterruptedException e) {
+			throw new ClientRuntimeException("Interrupted while waiting for a pooled connection", e);
+		}
+		finally {
+			final long waited = System.nanoTime() - start;
+			waitNanos.addAndGet(waited);
+			if(waited > maxWaitedNanos) maxWaitedNanos = waited;
+		}
+	}
+
+	/**
+	 * Returns the connection to the pool, unless it failed, or the pool is closed.
+	 * @param entry
+	 * @param ok false if the request raised a {@link RuntimeException}
+	 */
+	private void release (Entry entry, boolean ok) {
+		try {
+			if(ok && !closed){
+				entry.lastUsed = System.nanoTime();
+				push(entry);
+				if(closed) close();	// raced with close()
+			}
+			else {
+				size.decrementAndGet();
+				if(!ok) discardCnt.incrementAndGet();
+				discard(entry.conn);
+			}
+		}
+		finally {
+			permits.release();
+		}
+	}
+
+	private boolean isValid (Entry entry) {
+		final long validation = validationNanos;
+		if(validation < 0 || System.nanoTime() - entry.lastUsed < validation)
+			return true;
+		try {
+			entry.conn.serviceRequest(Command.PING);
+			return true;
+		}
+		catch (Exception e){
+			Log.problem("Pooled connection failed validation => " + e.getLocalizedMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * Pooled connections are used by one thread at a time, and are handed off through the idle
+	 * stack, so those of the {@link Connection.Flag#SHARED} spec use a single protocol handler
+	 * (rather than one per borrowing thread).
+	 */
+	private Connection newConnection () throws ClientRuntimeException {
+		final Connection conn = Assert.notNull(factory.newConnection(spec), "connection", ProviderException.class);
+		createCnt.incrementAndGet();
+		if(conn instanceof ConnectionBase && spec.getConnectionFlag(Connection.Flag.SHARED))
+			((ConnectionBase) conn).useConnectionProtocol();
+		return conn;
+	}
+
+	/** Quits the connection, ignoring errors (it may be faulted) */
+	private void discard (Connection conn) {
+		try {
+			conn.serviceRequest(Command.QUIT);
+		}
+		catch (Exception ignore) { }
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops: idle stack
+	// ------------------------------------------------------------------------
+	/** Pushes on a new node so that the stack is not subject to ABA */
+	private void push (Entry entry) {
+		final Node node = new Node(entry);
+		Node top;
+		do {
+			top = idle.get();
+			node.next = top;
+		} while(!idle.compareAndSet(top, node));
+	}
+
+	private Entry pop () {
+		Node top;
+		do {
+			top = idle.get();
+			if(null == top) return null;
+		} while(!idle.compareAndSet(top, top.next));
+		return top.entry;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops: eviction
+	// ------------------------------------------------------------------------
+	private synchronized void startSweeper () {
+		if(null != sweeper || closed) return;
+		sweeper = new Thread(new Runnable() {
+			public void run () {
+				// parked rather than sleeping, so that setMaxIdleTime can reschedule the sweep
+				while(!closed) {
+					final long period = maxIdleNanos;
+					LockSupport.parkNanos(this, period > 0 ? Math.max(MIN_SWEEP_NANOS, period / 2) : TimeUnit.SECONDS.toNanos(1));
+					final long idleNanos = maxIdleNanos;
+					if(idleNanos > 0 && !closed)
+						sweep(idleNanos);
+				}
+			}
+		}, "jredis-connection-pool-sweeper");
+		sweeper.setDaemon(true);
+		sweeper.start();
+	}
+
+	/**
+	 * Takes the idle stack, pushes back the connections used within idleNanos (and
+	 * those kept for the min size) in their original order, and then closes the others,
+	 * so that borrowers do not wait on the QUITs of the evicted connections.
+	 * @param idleNanos
+	 */
+	private void sweep (long idleNanos) {
+		Node node = idle.getAndSet(null);
+		if(null == node) return;
+		final long now = System.nanoTime();
+		Node keep = null;	// reversed
+		Node evict = null;
+		for(; null != node; node = node.next){
+			final Node n = new Node(node.entry);
+			if(now - n.entry.lastUsed > idleNanos && decrementAboveMin()) {
+				n.next = evict;
+				evict = n;
+			}
+			else {
+				n.next = keep;
+				keep = n;
+			}
+		}
+		for(; null != keep; keep = keep.next)
+			push(keep.entry);
+		if(closed) close();
+		for(; null != evict; evict = evict.next){
+			evictCnt.incrementAndGet();
+			discard(evict.entry.conn);
+		}
+	}
+
+	/** @return true if the size was decremented, without going below the min size */
+	private boolean decrementAboveMin () {
+		int s;
+		do {
+			s = size.get();
+			if(s <= minSize) return false;
+		} while(!size.compareAndSet(s, s - 1));
+		return true;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner types
+	// ------------------------------------------------------------------------
+	/** a pooled connection */
+	private static final class Entry {
+		final Connection conn;
+		/** nano time the connection was last returned */
+		volatile long lastUsed;
+		Entry (Connection conn) {
+			this.conn = conn;
+			this.lastUsed = System.nanoTime();
+		}
+	}
+
+	/** idle stack node */
+	private static final class Node {
+		final Entry entry;
+		Node next;
+		Node (Entry entry) { this.entry = entry; }
+	}
+}
@@ -18,6 +18,7 @@ import org.jredis.connector.ConnectionSpec;
 import org.jredis.connector.Connection.Flag;
 import org.jredis.connector.Connection.Modality;
 import org.jredis.ri.alphazero.protocol.DefaultProtocolFactory;
+import org.jredis.ri.alphazero.protocol.SyncProtocol;
 import org.jredis.ri.alphazero.support.Assert;
 
 /**
@@ -86,6 +87,8 @@ final public class DefaultConnectionSpec extends ConnectionSpec.RefImpl {
 	private static final Modality DEFAULT_CP_CONN_MODALITY = Modality.Synchronous;
 	/** def value: <code>3</code> */
 	private static final Integer DEFAULT_CP_MAX_CONNECT_ATTEMPT = 3;
+	/** def value: <code>16KB</code> */
+	private static final Integer DEFAULT_CP_GATHER_WRITE_THRESHOLD = SyncProtocol.DEFAULT_GATHER_WRITE_THRESHOLD;
 	
 	// ------------------------------------------------------------------------
 	// Constructors
@@ -163,6 +166,7 @@ final public class DefaultConnectionSpec extends ConnectionSpec.RefImpl {
     	setConnectionProperty(Connection.Property.MAX_CONNECT_ATTEMPT, DEFAULT_CP_MAX_CONNECT_ATTEMPT);
     	setConnectionProperty(Connection.Property.PROTOCOL_FACTORY, new DefaultProtocolFactory());
     	setConnectionProperty(Connection.Property.CONNECTION_FACTORY, new DefaultConnectionFactory());
+    	setConnectionProperty(Connection.Property.GATHER_WRITE_THRESHOLD, DEFAULT_CP_GATHER_WRITE_THRESHOLD);
     	
     	setHeartbeat(DEFAULT_HEARTBEAT_SEC);
     }
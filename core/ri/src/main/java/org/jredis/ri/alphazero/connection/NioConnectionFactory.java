@@ -0,0 +1,105 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.NotSupportedException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * A {@link Connection.Factory} that creates {@link NioPipelineConnection}s for
+ * {@link Connection.Modality#Asynchronous} specs, all serviced by a fixed set of
+ * {@link SelectorLoop} threads (assigned round-robin).  Other modalities are
+ * delegated to the {@link DefaultConnectionFactory}.
+ * <p>
+ * Usage:
+ * <pre><code>
+ * ConnectionSpec spec = DefaultConnectionSpec.newSpec();
+ * spec.setConnectionProperty(Connection.Property.CONNECTION_FACTORY, new NioConnectionFactory());
+ * JRedisFuture pipeline = new JRedisPipeline(spec);
+ * </code></pre>
+ * Share the factory instance across the specs of your connections, as each factory
+ * instance has its own selector threads.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 18, 2011
+ * @since   alpha.0
+ *
+ */
+public class NioConnectionFactory implements Connection.Factory {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** default number of selector threads */
+	public static final int DEFAULT_SELECTOR_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final SelectorLoop[]	loops;
+
+	private final AtomicInteger		next = new AtomicInteger(0);
+
+	private final Connection.Factory delegate = new DefaultConnectionFactory();
+
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	public NioConnectionFactory () {
+		this (DEFAULT_SELECTOR_THREADS);
+	}
+
+	/**
+	 * @param selectorThreads number of selector threads.  Threads are started on first use.
+	 */
+	public NioConnectionFactory (int selectorThreads) {
+		if(selectorThreads < 1)
+			throw new IllegalArgumentException("selectorThreads must be positive: " + selectorThreads);
+		loops = new SelectorLoop[selectorThreads];
+		for(int i=0; i<selectorThreads; i++)
+			loops[i] = new SelectorLoop("selector-loop-" + i);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: Connection.Factory
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.connector.Connection.Factory#newConnection(org.jredis.connector.ConnectionSpec) */
+	public Connection newConnection (ConnectionSpec spec)
+		throws ClientRuntimeException, NotSupportedException
+	{
+		if(spec.getModality() != Connection.Modality.Asynchronous)
+			return delegate.newConnection(spec);
+
+		SelectorLoop loop = loops[(next.getAndIncrement() & Integer.MAX_VALUE) % loops.length];
+		Connection conn = new NioPipelineConnection(spec, loop);
+		Log.debug("Created new %s", conn);
+		return conn;
+	}
+
+	/**
+	 * Stops the selector threads.  Connections created by this factory can not be used
+	 * after this call.
+	 */
+	public void shutdown () {
+		for(SelectorLoop loop : loops)
+			loop.shutdown();
+	}
+}
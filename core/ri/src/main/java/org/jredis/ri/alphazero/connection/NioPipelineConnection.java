@@ -0,0 +1,639 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import static org.jredis.connector.Connection.Socket.Property.SO_PREF_BANDWIDTH;
+import static org.jredis.connector.Connection.Socket.Property.SO_PREF_CONN_TIME;
+import static org.jredis.connector.Connection.Socket.Property.SO_PREF_LATENCY;
+import static org.jredis.connector.Connection.Socket.Property.SO_RCVBUF;
+import static org.jredis.connector.Connection.Socket.Property.SO_SNDBUF;
+import static org.jredis.ri.alphazero.support.Assert.notNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.jredis.ClientRuntimeException;
+import org.jredis.NotSupportedException;
+import org.jredis.ProviderException;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.NotConnectedException;
+import org.jredis.connector.Connection.Event.Type;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Protocol;
+import org.jredis.protocol.Request;
+import org.jredis.protocol.Response;
+import org.jredis.protocol.Command.ResponseType;
+import org.jredis.ri.alphazero.protocol.ByteBufferRequest;
+import org.jredis.ri.alphazero.protocol.ConcurrentSyncProtocol;
+import org.jredis.ri.alphazero.protocol.DefaultProtocolFactory;
+import org.jredis.ri.alphazero.protocol.Reply;
+import org.jredis.ri.alphazero.support.Assert;
+import org.jredis.ri.alphazero.support.Convert;
+import org.jredis.ri.alphazero.support.FastBufferedInputStream;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * An {@link Modality#Asynchronous} pipeline {@link Connection} using a non-blocking
+ * {@link SocketChannel}.  The socket io of the connection is performed by a
+ * {@link SelectorLoop} thread that is shared with other connections (created by the same
+ * {@link NioConnectionFactory}), so a large number of pipelines do not require a
+ * dedicated response handler thread each.
+ * <p>
+ * Requests are written by the caller's thread if the socket can accept them
+ * immediately; otherwise, the remainder is buffered and written by the selector
+ * loop.  Replies are framed and read in place from the receive buffer, and the
+ * {@link PendingRequest}s are completed on the selector loop thread.
+ * <p>
+ * As with {@link PipelineConnectionBase}, once a {@link Command#QUIT} has been queued
+ * no further requests are accepted, and the connection is closed once all pending
+ * responses have been received.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 18, 2011
+ * @since   alpha.0
+ *
+ */
+public class NioPipelineConnection implements Connection {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** Connection specs used to create this {@link Connection} */
+	final protected ConnectionSpec		spec;
+
+	/** the loop servicing this connection's io */
+	private final SelectorLoop			loop;
+
+	/** address of the socket connection */
+	private final InetSocketAddress		socketAddress;
+
+	/** Thread specific protocol handler used to create requests */
+	private final ThreadLocal<Protocol>	thrdProtocol = new ThreadLocal<Protocol>();
+
+	/** protocol handler used (only) by the selector loop to read responses */
+	private final Protocol				loopProtocol;
+
+	/** Connector Listeners */
+	final private Set<Connection.Listener> listeners = new HashSet<Connection.Listener>();
+
+	private volatile State				state = State.INITIALIZED;
+
+	/**
+	 * set once {@link #connect()} has completed the AUTH and SELECT of the spec -- until
+	 * then, requesting threads block on connect(), so that no request can precede these.
+	 * If either fails, the connection is faulted (and so never initialized).
+	 */
+	private volatile boolean			initialized = false;
+
+	private SocketChannel				channel;
+
+	/** set on the loop thread on registration */
+	private SelectionKey				key;
+
+	/** synchronization object used to serialize request queuing and writes */
+	private final Object				serviceLock = new Object();
+
+	/** pending responses -- in request order */
+	private final Queue<PendingRequest>	pendingQueue = new ConcurrentLinkedQueue<PendingRequest>();
+
+	/** bounds the pending responses -- acquired before queuing, released on the loop thread */
+	private final PendingWindow			pendingWindow;
+
+	/** no-reply request bookkeeping */
+	private final NoReplyTracker		noReplies = new NoReplyTracker();
+
+	/** if true (after QUIT) requests are no longer accepted */
+	private boolean						pendingQuit = false;
+
+	/** request bytes not yet accepted by the socket -- guarded by serviceLock */
+	private ByteBuffer					outbound;
+
+	/** true if the loop has been requested to write outbound -- guarded by serviceLock */
+	private boolean						writeInterest = false;
+
+	/** receive buffer -- used only by the loop thread */
+	private ByteBuffer					inbound;
+
+	/** offset of the first unread reply byte in inbound */
+	private int							readPos = 0;
+
+	/** frames the replies in inbound -- keeps the state of a partially received reply across reads */
+	private final Reply.Framer			framer = new Reply.Framer();
+
+	/** used to read framed replies in place from inbound */
+	private final FastBufferedInputStream replyStream = new FastBufferedInputStream();
+
+	/** reads pending replies on the loop thread */
+	private final Runnable				replyProcessor = new Runnable() {
+		public void run () { processReplies(); }
+	};
+
+	/** sets the write interest of the channel on the loop thread */
+	private final Runnable				writeEnabler = new Runnable() {
+		public void run () {
+			synchronized (serviceLock) {
+				if(writeInterest && null != key && key.isValid())
+					key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		}
+	};
+
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Use {@link NioConnectionFactory} to create instances.
+	 * @param spec
+	 * @param loop the selector loop that will service this connection
+	 * @throws ClientRuntimeException if connection attempt to specified host is not possible and
+	 * connect immediate was requested.
+	 */
+	NioPipelineConnection (ConnectionSpec spec, SelectorLoop loop) throws ClientRuntimeException {
+		this.spec = notNull(spec, "ConnectionSpec init parameter", ClientRuntimeException.class);
+		this.loop = notNull(loop, "SelectorLoop init parameter", ClientRuntimeException.class);
+		try {
+			socketAddress = new InetSocketAddress(spec.getAddress(), spec.getPort());
+		}
+		catch (IllegalArgumentException e) {
+			throw new ClientRuntimeException
+				("invalid connection spec parameters: " + e.getLocalizedMessage(), e);
+		}
+		spec.setModality(Modality.Asynchronous);
+		spec.setConnectionFlag(Flag.PIPELINE, true);
+		spec.setConnectionFlag(Flag.SHARED, true);
+
+		loopProtocol = newProtocolHandler();
+		pendingWindow = new PendingWindow(spec, PipelineConnectionBase.PENDING_QUEUE_CAPACITY);
+		inbound = ByteBuffer.allocate(spec.getSocketProperty(SO_RCVBUF));
+		outbound = ByteBuffer.allocate(spec.getSocketProperty(SO_SNDBUF));
+
+		if(spec.getConnectionFlag(Flag.CONNECT_IMMEDIATELY))
+			connect();
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: Connection
+	// ------------------------------------------------------------------------
+	public ConnectionSpec getSpec () {
+		return spec;
+	}
+
+	/**
+	 * Not supported -- this is an {@link Modality#Asynchronous} connection.
+	 */
+	public Response serviceRequest (Command cmd, byte[]... args)
+		throws RedisException, ClientRuntimeException, ProviderException
+	{
+		throw new NotSupportedException (
+				"Response.serviceRequest(Command cmd, " +
+				"byte[]...) is not supported.");
+	}
+
+	/**
+	 * Writes the request (if the socket can accept it without blocking) and
+	 * returns the {@link Future} response, which is completed by the selector loop.
+	 * <p>
+	 * Once a QUIT request has been queued, no further requests are accepted and a
+	 * ClientRuntimeException is thrown.
+	 *
+	 * @see org.jredis.connector.Connection#queueRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	public Future<Response> queueRequest (Command cmd, byte[]... args)
+		throws ClientRuntimeException, ProviderException
+	{
+		if(!initialized)
+			connect();
+		if(state != State.CONNECTED)
+			throw new NotConnectedException ("Not connected!");
+
+		Request 		request = Assert.notNull(getProtocolHandler().createRequest (cmd, args), "request object from handler", ProviderException.class);
+		PendingRequest 	pendingResponse = new PendingRequest(cmd);
+
+		pendingWindow.acquire();
+		synchronized (serviceLock) {
+			if(pendingQuit || state != State.CONNECTED) {
+				pendingWindow.release();
+				if(pendingQuit)
+					throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
+				throw new NotConnectedException ("Not connected!");
+			}
+
+			// queued before the write, as the reply may be read before the write returns
+			pendingQueue.add(pendingResponse);
+			if(cmd != Command.QUIT) {
+				write(request);
+			}
+			else {
+				pendingQuit = true;
+				loop.execute(replyProcessor);
+			}
+		}
+		return pendingResponse;
+	}
+
+	/**
+	 * Writes the request, with the shared no-reply marker queued in place of a 
+	 * {@link PendingRequest}: the selector loop only counts the reply (and its errors).
+	 *
+	 * @see org.jredis.connector.Connection#queueNoReplyRequest(org.jredis.protocol.Command, byte[][])
+	 */
+	public void queueNoReplyRequest (Command cmd, byte[]... args)
+		throws ClientRuntimeException, ProviderException
+	{
+		if(!initialized)
+			connect();
+		if(state != State.CONNECTED)
+			throw new NotConnectedException ("Not connected!");
+		NoReplyTracker.checkCommand(cmd);
+
+		Request 		request = Assert.notNull(getProtocolHandler().createRequest (cmd, args), "request object from handler", ProviderException.class);
+
+		pendingWindow.acquire();
+		synchronized (serviceLock) {
+			if(pendingQuit || state != State.CONNECTED) {
+				pendingWindow.release();
+				if(pendingQuit)
+					throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
+				throw new NotConnectedException ("Not connected!");
+			}
+
+			pendingQueue.add(NoReplyTracker.NO_REPLY);
+			noReplies.onQueued();
+			write(request);
+		}
+	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#awaitNoReplies() */
+	public long awaitNoReplies () throws ClientRuntimeException, ProviderException {
+		final long target;
+		synchronized (serviceLock) {
+			target = noReplies.queued();
+		}
+		return noReplies.await(target);
+	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#serviceRequests(org.jredis.protocol.Command[], byte[][][]) */
+	public Response[] serviceRequests (Command[] cmds, byte[][][] args) throws ClientRuntimeException, ProviderException {
+		return ConnectionBase.serviceQueued(this, cmds, args);
+	}
+
+	/**
+	 * @return the in-flight window of this pipeline, e.g. for monitoring its occupancy.
+	 */
+	public final PendingWindow getPendingWindow () {
+		return pendingWindow;
+	}
+
+	final public boolean addListener (Listener connListener) {
+		return listeners.add(connListener);
+	}
+
+	final public boolean removeListener (Listener connListener) {
+		return listeners.remove(connListener);
+	}
+
+	@Override
+	public String toString () {
+		return String.format("%s[%s]", getClass().getSimpleName(), socketAddress);
+	}
+
+	// ------------------------------------------------------------------------
+	// Extension points
+	// ------------------------------------------------------------------------
+	/**
+	 * Pipeline must use a concurrent protocol handler.
+	 * @return
+	 */
+	protected Protocol newProtocolHandler () {
+		return new ConcurrentSyncProtocol(spec.getConnectionFlag(Flag.BULK_VIEWS), DefaultProtocolFactory.getGatherWriteThreshold(spec));
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops: selector loop callbacks
+	// ------------------------------------------------------------------------
+	/**
+	 * @param key the key of the registered channel
+	 */
+	void onRegistered (SelectionKey key) {
+		synchronized (serviceLock) {
+			this.key = key;
+		}
+	}
+
+	/**
+	 * Writes the buffered request bytes, and clears the write interest once done.
+	 */
+	void onWritable () {
+		synchronized (serviceLock) {
+			if(state != State.CONNECTED) return;
+			outbound.flip();
+			try {
+				channel.write(outbound);
+			}
+			catch (IOException e) {
+				onFault(new ClientRuntimeException("IOException writing requests", e));
+				return;
+			}
+			finally {
+				outbound.compact();
+			}
+			if(outbound.position() == 0) {
+				writeInterest = false;
+				key.interestOps(SelectionKey.OP_READ);
+				if(outbound.capacity() > spec.getSocketProperty(SO_SNDBUF))
+					outbound = ByteBuffer.allocate(spec.getSocketProperty(SO_SNDBUF));
+			}
+		}
+	}
+
+	/**
+	 * Reads available bytes and completes the pending requests of all complete replies.
+	 */
+	void onReadable () {
+		if(!inbound.hasRemaining()) {
+			if(readPos > 0) {
+				inbound.flip().position(readPos);
+				inbound.compact();
+				readPos = 0;
+			}
+			else {
+				ByteBuffer newbuffer = ByteBuffer.allocate(inbound.capacity() * 2);
+				inbound.flip();
+				newbuffer.put(inbound);
+				inbound = newbuffer;
+			}
+		}
+		int c;
+		try {
+			c = channel.read(inbound);
+		}
+		catch (IOException e) {
+			onFault(new ClientRuntimeException("IOException reading replies", e));
+			return;
+		}
+		if(c == -1) {
+			onFault(new ClientRuntimeException("Connection closed by server"));
+			return;
+		}
+		processReplies();
+	}
+
+	/**
+	 * Closes the connection, so that no further requests are accepted, and fails all 
+	 * pending requests.  May be called on any thread: the pending requests are failed on
+	 * the loop thread, as it is the sole consumer of the pending queue.
+	 * @param cre cause
+	 */
+	void onFault (final ClientRuntimeException cre) {
+		synchronized (serviceLock) {
+			if(state != State.CONNECTED) return;
+			state = State.DISCONNECTED;
+			close();
+		}
+		loop.execute(new Runnable() {
+			public void run () { failPending(cre); }
+		});
+		Log.problem("Conn FAULT: %s - %s", cre.getMessage(), this);
+		notifyListeners(new Event(this, Type.FAULTED, cre.getMessage()));
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Completes the pending requests, in order, for which a complete reply has been received.
+	 * Called on the loop thread.
+	 */
+	private void processReplies () {
+		final byte[] data = inbound.array();
+		PendingRequest pending;
+		try {
+			// (re)checked per reply -- once faulted, the pending requests are failed by failPending
+			while(state == State.CONNECTED && (pending = pendingQueue.peek()) != null){
+				if(pending == NoReplyTracker.NO_REPLY) {
+					final int len = framer.frame(data, readPos, inbound.position() - readPos);
+					if(len < 0) break;
+					replyStream.wrap(data, readPos, len);
+					readPos += len;
+					noReplies.onReply(replyStream);
+					pendingQueue.poll();
+					pendingWindow.release();
+					continue;
+				}
+				if(pending.cmd.responseType != ResponseType.VIRTUAL) {
+					final int len = framer.frame(data, readPos, inbound.position() - readPos);
+					if(len < 0) break;
+					replyStream.wrap(data, readPos, len);
+					readPos += len;
+				}
+				else {
+					replyStream.wrap(data, readPos, 0);
+				}
+				Response response = loopProtocol.createResponse(pending.cmd);
+				response.read(replyStream);
+				pendingQueue.poll();
+				pendingWindow.release();
+
+				// log before signaling -- the response may be released once consumed
+				if(response.getStatus().isError()) {
+					Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + response.getStatus().message());
+				}
+				pending.setResponse(response);
+
+				if(pending.cmd == Command.QUIT) {
+					disconnect();
+					return;
+				}
+			}
+		}
+		catch (ClientRuntimeException cre) {
+			onFault(cre);
+			return;
+		}
+		catch (RuntimeException e){
+			onFault(new ClientRuntimeException("Unexpected (and not handled) RuntimeException", e));
+			return;
+		}
+		if(readPos == inbound.position()) {
+			readPos = 0;
+			inbound.clear();
+			if(inbound.capacity() > spec.getSocketProperty(SO_RCVBUF))
+				inbound = ByteBuffer.allocate(spec.getSocketProperty(SO_RCVBUF));
+		}
+	}
+
+	/**
+	 * Fails the pending requests of a faulted connection.  Called on the loop thread.
+	 * @param cre cause
+	 */
+	private void failPending (ClientRuntimeException cre) {
+		PendingRequest pending;
+		while((pending = pendingQueue.poll()) != null) {
+			if(pending == NoReplyTracker.NO_REPLY)
+				noReplies.onFault(cre);
+			else
+				pending.setCRE(cre);
+			pendingWindow.release();
+		}
+	}
+
+	/**
+	 * Writes what the socket will accept and buffers the rest for the loop.
+	 * Called with the serviceLock held.
+	 * @param request
+	 */
+	private void write (Request request) {
+		ByteBuffer[] segments = segmentsOf(request);
+		if(outbound.position() == 0) {
+			try {
+				channel.write(segments);
+			}
+			catch (IOException e) {
+				onFault(new ClientRuntimeException("IOException writing request", e));
+				return;
+			}
+		}
+		for(ByteBuffer segment : segments) {
+			if(segment.hasRemaining()) {
+				if(outbound.remaining() < segment.remaining()) {
+					ByteBuffer newbuffer = ByteBuffer.allocate(Math.max(outbound.capacity() * 2, outbound.position() + segment.remaining()));
+					outbound.flip();
+					newbuffer.put(outbound);
+					outbound = newbuffer;
+				}
+				outbound.put(segment);
+			}
+		}
+		if(outbound.position() > 0 && !writeInterest) {
+			writeInterest = true;
+			loop.execute(writeEnabler);
+		}
+	}
+
+	private static ByteBuffer[] segmentsOf (Request request) {
+		if(request instanceof ByteBufferRequest)
+			return ((ByteBufferRequest) request).getSegments();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		request.write(out);
+		return new ByteBuffer[]{ ByteBuffer.wrap(out.toByteArray()) };
+	}
+
+	private Protocol getProtocolHandler () {
+		Protocol protocol = thrdProtocol.get();
+		if(null == protocol) {
+			protocol = Assert.notNull (newProtocolHandler(), "the delegate protocol handler", ClientRuntimeException.class);
+			thrdProtocol.set(protocol);
+		}
+		return protocol;
+	}
+
+	/**
+	 * Connects the (blocking) socket, registers the (non-blocking) channel with
+	 * the loop, and then authorizes and selects the db per the spec.
+	 */
+	private synchronized void connect () throws ClientRuntimeException {
+		if(state != State.INITIALIZED) return;
+		try {
+			channel = SocketChannel.open();
+			java.net.Socket socket = channel.socket();
+			socket.setKeepAlive (spec.getSocketFlag (Connection.Socket.Flag.SO_KEEP_ALIVE));
+			socket.setPerformancePreferences(
+					spec.getSocketProperty (SO_PREF_CONN_TIME),
+					spec.getSocketProperty (SO_PREF_LATENCY),
+					spec.getSocketProperty (SO_PREF_BANDWIDTH));
+			if(socket.getSendBufferSize() < spec.getSocketProperty(SO_SNDBUF))
+				socket.setSendBufferSize(spec.getSocketProperty(SO_SNDBUF));
+			if(socket.getReceiveBufferSize() < spec.getSocketProperty(SO_RCVBUF))
+				socket.setReceiveBufferSize(spec.getSocketProperty(SO_RCVBUF));
+			Integer maxConnectWait = (Integer) spec.getConnectionProperty(Property.MAX_CONNECT_WAIT);
+			socket.connect(socketAddress, null != maxConnectWait ? maxConnectWait : 0);
+			channel.configureBlocking(false);
+		}
+		catch (IOException e) {
+			close();
+			String fault = "Socket connect failed [cause: "+e+"] -- make sure the server is running at " + spec.getAddress().getHostName();
+			notifyListeners(new Event(this, Type.FAULTED, fault));
+			Log.problem("Conn FAULT: %s - %s", fault, this);
+			throw new ClientRuntimeException(fault);
+		}
+		state = State.CONNECTED;
+		loop.register(channel, this);
+
+		ClientRuntimeException fault = null;
+		try {
+			if(null!=spec.getCredentials()) {
+				this.queueRequest(Command.AUTH, spec.getCredentials()).get();
+			}
+			if(spec.getDatabase() != 0) {
+				this.queueRequest(Command.SELECT, Convert.toBytes(spec.getDatabase())).get();
+			}
+		}
+		catch (InterruptedException e) {
+			fault = new ClientRuntimeException("Interrupted while initializing asynchronous connection", e);
+		}
+		catch (ExecutionException e) {
+			fault = new ClientRuntimeException("Failed to initialize the connection", e.getCause());
+		}
+		if(null != fault) {
+			// not authorized or not on the spec's db -- the connection must not be used
+			onFault(fault);
+			if(fault.getCause() instanceof RedisException)
+				throw new IllegalArgumentException("Failed to connect -- check credentials and/or database settings for the connection spec", fault.getCause());
+			throw fault;
+		}
+		initialized = true;
+		Log.debug ("CONNECTED | conn: %s", toString());
+		notifyListeners(new Event(this, Type.CONNECTED));
+	}
+
+	/**
+	 * Closes the connection after QUIT.
+	 */
+	private void disconnect () {
+		synchronized (serviceLock) {
+			state = State.DISCONNECTED;
+			close();
+		}
+		notifyListeners(new Event(this, Type.DISCONNECTED));
+		Log.debug ("DISCONNECTED | conn: %s", toString());
+	}
+
+	private void close () {
+		try {
+			if(null != key) key.cancel();
+			if(null != channel) channel.close();
+		}
+		catch (IOException e) {
+			Log.error("[IO] on close -- close() continues ..." + e.getLocalizedMessage());
+		}
+	}
+
+	private void notifyListeners (Connection.Event e) {
+		for(Connection.Listener l : listeners)
+			l.onEvent(e);
+	}
+}
@@ -0,0 +1,152 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.InputStream;
+import java.util.concurrent.locks.LockSupport;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.connector.Connection;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.protocol.Reply;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * Bookkeeping of the no-reply requests of a pipeline connection -- see 
+ * {@link Connection#queueNoReplyRequest(Command, byte[]...)}.  No-reply requests 
+ * are queued as the shared {@link NoReplyTracker#NO_REPLY} marker in place of a 
+ * {@link PendingRequest}, and their replies are read into a single (reused) 
+ * {@link Reply} by the response handler, which only counts them and their errors.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 21, 2011
+ * @since   alpha.0
+ *
+ */
+final class NoReplyTracker {
+
+	/** queued in place of the pending request of a no-reply request */
+	static final PendingRequest NO_REPLY = new PendingRequest((Command) null);
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** number of queued no-reply requests -- guarded by the connection's service lock */
+	private long					queued;
+
+	/** number of replies read -- written by the response handler only */
+	private volatile long			completed;
+
+	/** number of error replies -- written by the response handler only */
+	private volatile long			errors;
+
+	/** errors reported by {@link NoReplyTracker#await(long)} so far */
+	private long					errorsReported;
+
+	/** set if the connection faulted with no-reply requests pending */
+	private volatile ClientRuntimeException fault;
+
+	/** the thread waiting in {@link NoReplyTracker#await(long)}, or null */
+	private volatile Thread			waiter;
+
+	/** reused for all replies -- used by the response handler only */
+	private final Reply				reply = new Reply();
+
+	// ------------------------------------------------------------------------
+	// Interface: requester side
+	// ------------------------------------------------------------------------
+	/**
+	 * @param cmd
+	 * @throws IllegalArgumentException for commands without a (real) reply
+	 */
+	static void checkCommand (Command cmd) throws IllegalArgumentException {
+		if(cmd == Command.QUIT || cmd.responseType == Command.ResponseType.VIRTUAL)
+			throw new IllegalArgumentException("Command " + cmd.code + " can not be queued as a no-reply request");
+	}
+
+	/**
+	 * Called with the connection's service lock held, once the request is queued.
+	 */
+	void onQueued () {
+		queued++;
+	}
+
+	/**
+	 * Called with the connection's service lock held.
+	 * @return number of no-reply requests queued so far
+	 */
+	long queued () {
+		return queued;
+	}
+
+	/**
+	 * Waits for the response handler to read the replies of the first <code>target</code> 
+	 * no-reply requests.
+	 * @param target
+	 * @return the number of error replies since the previous call
+	 * @throws ClientRuntimeException if interrupted, or the connection faulted before 
+	 * the replies were read
+	 */
+	synchronized long await (long target) throws ClientRuntimeException {
+		waiter = Thread.currentThread();
+		try {
+			while(completed < target) {
+				if(null != fault)
+					throw new ClientRuntimeException("Connection faulted with pending no-reply requests", fault);
+				if(Thread.interrupted())
+					throw new ClientRuntimeException("Interrupted while waiting for no-reply requests");
+				LockSupport.park(this);
+			}
+		}
+		finally {
+			waiter = null;
+		}
+		final long e = errors;
+		final long reported = e - errorsReported;
+		errorsReported = e;
+		return reported;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: response handler side
+	// ------------------------------------------------------------------------
+	/**
+	 * Reads and checks the reply of the next no-reply request.
+	 * @param in
+	 * @throws ClientRuntimeException
+	 * @throws ProviderException
+	 */
+	void onReply (InputStream in) throws ClientRuntimeException, ProviderException {
+		reply.read(in);
+		if(reply.isError()) {
+			Log.error ("(Asynch) Error response for no-reply request => " + new String(reply.getData()));
+			errors++;
+		}
+		completed++;
+		final Thread w = waiter;
+		if(null != w) LockSupport.unpark(w);
+	}
+
+	/**
+	 * @param cre the cause of the connection fault
+	 */
+	void onFault (ClientRuntimeException cre) {
+		fault = cre;
+		final Thread w = waiter;
+		if(null != w) LockSupport.unpark(w);
+	}
+}
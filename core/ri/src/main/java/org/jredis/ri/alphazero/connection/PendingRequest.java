@@ -20,36 +20,53 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.RedisException;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
-import org.jredis.ri.alphazero.support.Signal;
+import org.jredis.ri.alphazero.protocol.ReplyResponse;
+import org.jredis.ri.alphazero.support.Log;
 
 /**
  * An implementation of {@link Future} for parameteric <code>T</code> type {@link Response}
  * used for processing of pipelined responses from the server.
  * <p>
  * Note that this implementation does NOT support canceling of {@link Request}s.
+ * <p>
+ * Completion is a volatile flag, set once by the response handler, with a (CAS
+ * maintained) stack of parked waiters: {@link PendingRequest#isDone()} is a plain 
+ * volatile read, and waiting threads briefly spin (on multiprocessors) before
+ * parking until the handler unparks them.  Completion callbacks registered via
+ * {@link PendingRequest#onCompletion(Runnable)} share the same stack.
  * 
  * @author  Joubin Houshyar (alphazero@sensesay.net)
  * @version alpha.0, Sep 7, 2009
  * @since   alpha.0
  * 
  */
-public final class PendingRequest implements Future<Response> {
+public final class PendingRequest implements CompletableResponse {
 
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
-	/** Used to signal completion of the request */
-//	final private BooleanLatch completion = new BooleanLatch();
-	final Signal completion = new Signal();
+	/** number of busy checks before a waiter parks -- spinning is pointless on uniprocessors */
+	private static final int	SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 256 : 0;
+
+	/** set (once) on completion of the request */
+	private volatile boolean done = false;
+
+	/** stack of threads and callbacks waiting for completion -- {@link PendingRequest#COMPLETED} on completion */
+	private volatile Waiter waiters = null;
 
-	/** awaited response */
-	Response response;
+	private static final AtomicReferenceFieldUpdater<PendingRequest, Waiter> waitersUpdater = 
+		AtomicReferenceFieldUpdater.newUpdater(PendingRequest.class, Waiter.class, "waiters");
+
+	/** awaited response -- null after {@link PendingRequest#release()} */
+	volatile Response response;
 
 	/** Pending command */
 	final Command cmd;
@@ -59,6 +76,12 @@ public final class PendingRequest implements Future<Response> {
 	
 	/** if {@link PendingRequest#excepted} is true, this will be set to the cause. */
 	private ClientRuntimeException cre = null;
+
+	/** 
+	 * the message of an error response, set on completion -- the (pooled) response may be
+	 * released and reused by the protocol handler while other threads check the status.
+	 */
+	private String errorMessage = null;
 	
 	final byte[][] args;
 	// ------------------------------------------------------------------------
@@ -90,8 +113,10 @@ public final class PendingRequest implements Future<Response> {
 	 * @param response
 	 */
 	final void setResponse(Response response){
+		if(response != null && response.isError())
+			errorMessage = response.getStatus().message();
 		this.response = response;
-		this.completion.signal();
+		signal();
 	}
 
 	/**
@@ -102,7 +127,6 @@ public final class PendingRequest implements Future<Response> {
 		this.cre = cre;
 		excepted = true;
 		setResponse(null);
-//		this.completion.signal();
 	}
 	
 	
@@ -126,8 +150,125 @@ public final class PendingRequest implements Future<Response> {
 			}
 		}
 		// check for Redis Errors
-		if(response.isError())
-			throw new ExecutionException("Redis Exception on ["+cmd.name()+"] " + response.getStatus().message(), new RedisException(cmd, response.getStatus().message()));
+		if(errorMessage != null)
+			throw new ExecutionException("Redis Exception on ["+cmd.name()+"] " + errorMessage, new RedisException(cmd, errorMessage));
+	}
+
+	// ------------------------------------------------------------------------
+	// Completion
+	// ------------------------------------------------------------------------
+	/** A completion waiter node: a parked thread or a completion callback */
+	private static final class Waiter {
+		final Thread	thread;
+		final Runnable	callback;
+		Waiter			next;
+		Waiter (Thread thread, Runnable callback) { this.thread = thread; this.callback = callback; }
+	}
+
+	/** head of the waiter stack once completed -- no further waiters are pushed */
+	private static final Waiter COMPLETED = new Waiter(null, null);
+
+	/**
+	 * Pushes the waiter, unless the request has completed.
+	 * @param w
+	 * @return false if completed.
+	 */
+	private final boolean push (Waiter w) {
+		Waiter head;
+		do {
+			head = waiters;
+			if(head == COMPLETED) return false;
+			w.next = head;
+		} while(!waitersUpdater.compareAndSet(this, head, w));
+		return true;
+	}
+
+	/**
+	 * Marks the request done, unparks all waiting threads, and runs the completion
+	 * callbacks (in order of registration) on the calling thread.
+	 */
+	private final void signal () {
+		done = true;
+		Waiter w = waitersUpdater.getAndSet(this, COMPLETED);
+		if(w == COMPLETED) return;
+		Waiter ordered = null;
+		while(w != null) {
+			final Waiter next = w.next;
+			w.next = ordered;
+			ordered = w;
+			w = next;
+		}
+		for(w = ordered; w != null; w = w.next){
+			if(w.thread != null) 
+				LockSupport.unpark(w.thread);
+			else 
+				runCallback(w.callback);
+		}
+	}
+
+	private static final void runCallback (Runnable callback) {
+		try {
+			callback.run();
+		}
+		catch (RuntimeException e){
+			Log.error("PendingRequest completion callback raised " + e);
+		}
+	}
+
+	/**
+	 * Waits for completion: spins, then parks.
+	 * @param nanos max wait, or negative to wait indefinitely
+	 * @return true if done, false if timed out
+	 * @throws InterruptedException
+	 */
+	private final boolean await (long nanos) throws InterruptedException {
+		for(int tries = 0; !done && tries < SPIN_TRIES; tries++)
+			;
+		if(done) return true;
+
+		final boolean timed = nanos >= 0;
+		final long deadline = timed ? System.nanoTime() + nanos : 0;
+		if(!push(new Waiter(Thread.currentThread(), null)))
+			return true;
+
+		while(!done) {
+			if(Thread.interrupted()) throw new InterruptedException();
+			if(timed){
+				nanos = deadline - System.nanoTime();
+				if(nanos <= 0) return false;
+				LockSupport.parkNanos(this, nanos);
+			}
+			else {
+				LockSupport.park(this);
+			}
+		}
+		return true;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.ri.alphazero.connection.CompletableResponse#onCompletion(java.lang.Runnable) */
+	public void onCompletion (Runnable callback) {
+		if(null == callback) throw new NullPointerException("callback");
+		if(!push(new Waiter(null, callback)))
+			runCallback(callback);
+	}
+
+	/**
+	 * Releases the (pooled) response of a completed request for reuse by the protocol 
+	 * handler.  To be called only by the (sole) consumer of the response, once it has
+	 * obtained the response values.  Subsequent calls to {@link PendingRequest#get()} 
+	 * will return null.  Has no effect if the request has not completed.
+	 * @see ReplyResponse#release()
+	 */
+	public synchronized void release () {
+		if(!done) return;
+		final Response response = this.response;
+		if(response instanceof ReplyResponse) {
+			this.response = null;
+			((ReplyResponse) response).release();
+		}
 	}
 
 	// ------------------------------------------------------------------------
@@ -137,7 +278,7 @@ public final class PendingRequest implements Future<Response> {
 	/* (non-Javadoc) @see java.util.concurrent.Future#get() */
 	//        @Override
 	public Response get () throws InterruptedException, ExecutionException {
-		completion.await();
+		await(-1);
 
 		checkStatus();
 		return response;
@@ -148,7 +289,7 @@ public final class PendingRequest implements Future<Response> {
 	public Response get (long timeout, TimeUnit unit)
 	throws InterruptedException, ExecutionException, TimeoutException 
 	{
-		if(!completion.await(timeout, unit))
+		if(!await(Math.max(0, unit.toNanos(timeout))))
 			throw new TimeoutException();
 		
 		checkStatus();
@@ -173,8 +314,6 @@ public final class PendingRequest implements Future<Response> {
 
 	//        @Override
 	public boolean isDone () { 
-//		return completion.isSignalled();
-		
-		return completion.isSignalled(); 
+		return done; 
 	}
 }
\ No newline at end of file
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jredis.ClientRuntimeException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.PendingWindowFullException;
+
+/**
+ * The in-flight window of a pipeline connection: bounds the number of requests
+ * awaiting their replies, per {@link Connection.Property#MAX_PENDING_REQUESTS} and
+ * {@link Connection.Property#MAX_PENDING_WAIT}, and tracks the window's occupancy.
+ * <p>
+ * A slot is acquired by the requesting thread <i>before</i> it takes the connection's 
+ * service lock (so that waiting requesters do not hold up the writes of queued requests), 
+ * and is released by the response handler once the reply has been read, or the
+ * request failed.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 22, 2011
+ * @since   alpha.0
+ *
+ */
+public final class PendingWindow {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final int			size;
+
+	private final Semaphore		slots;
+
+	/** max wait for a slot -- negative to wait indefinitely */
+	private final long			maxWaitNanos;
+
+	/** max observed occupancy -- (benignly) racy */
+	private volatile int		highWaterMark = 0;
+
+	private final AtomicLong	waitCnt = new AtomicLong();
+
+	private final AtomicLong	rejectCnt = new AtomicLong();
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param spec 
+	 * @param defaultSize used if the spec does not specify {@link Connection.Property#MAX_PENDING_REQUESTS}
+	 */
+	PendingWindow (ConnectionSpec spec, int defaultSize) {
+		Object maxPending = spec.getConnectionProperty(Connection.Property.MAX_PENDING_REQUESTS);
+		Object maxWait = spec.getConnectionProperty(Connection.Property.MAX_PENDING_WAIT);
+		size = null != maxPending ? ((Number) maxPending).intValue() : defaultSize;
+		if(size < 1)
+			throw new ClientRuntimeException("MAX_PENDING_REQUESTS must be positive: " + size);
+		maxWaitNanos = null != maxWait ? TimeUnit.MILLISECONDS.toNanos(((Number) maxWait).longValue()) : -1;
+		slots = new Semaphore(size);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: connection
+	// ------------------------------------------------------------------------
+	/**
+	 * Acquires a slot for a request, waiting per the window's policy.
+	 * @throws PendingWindowFullException if a slot could not be acquired in time
+	 * @throws ClientRuntimeException if interrupted
+	 */
+	void acquire () throws PendingWindowFullException, ClientRuntimeException {
+		if(!slots.tryAcquire()) {
+			if(maxWaitNanos == 0) 
+				reject();
+			waitCnt.incrementAndGet();
+			try {
+				if(maxWaitNanos < 0)
+					slots.acquire();
+				else if(!slots.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS))
+					reject();
+			}
+			catch (InterruptedException e) {
+				throw new ClientRuntimeException("Interrupted while waiting for the pending request window", e);
+			}
+		}
+		final int occupancy = size - slots.availablePermits();
+		if(occupancy > highWaterMark) 
+			highWaterMark = occupancy;
+	}
+
+	/**
+	 * Releases the slot of a completed (or failed) request.
+	 */
+	void release () {
+		slots.release();
+	}
+
+	private void reject () throws PendingWindowFullException {
+		rejectCnt.incrementAndGet();
+		throw new PendingWindowFullException("Pending request window (" + size + ") is full");
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: metrics
+	// ------------------------------------------------------------------------
+	/** @return the max number of requests awaiting their replies */
+	public int getSize () { return size; }
+
+	/** @return the (current) number of requests awaiting their replies */
+	public int getOccupancy () { return size - slots.availablePermits(); }
+
+	/** @return the highest observed occupancy */
+	public int getHighWaterMark () { return highWaterMark; }
+
+	/** @return number of requests that had to wait for a slot */
+	public long getWaitCount () { return waitCnt.get(); }
+
+	/** @return number of requests rejected with a {@link PendingWindowFullException} */
+	public long getRejectCount () { return rejectCnt.get(); }
+
+	@Override
+	public String toString () {
+		return String.format("%s[size:%d occupancy:%d high:%d waits:%d rejects:%d]", getClass().getSimpleName(), 
+				size, getOccupancy(), highWaterMark, waitCnt.get(), rejectCnt.get());
+	}
+}
@@ -16,13 +16,12 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.NoSuchElementException;
-import java.util.Queue;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.jredis.ClientRuntimeException;
@@ -34,11 +33,14 @@ import org.jredis.protocol.Command;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.protocol.ByteBufferRequest;
 import org.jredis.ri.alphazero.protocol.ConcurrentSyncProtocol;
+import org.jredis.ri.alphazero.protocol.DefaultProtocolFactory;
 import org.jredis.ri.alphazero.protocol.VirtualResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.FastBufferedInputStream;
 import org.jredis.ri.alphazero.support.Log;
+import org.jredis.ri.alphazero.support.RingQueue;
 
 /**
  * Abstract base for all Pipeline connections, providing basically all of the
@@ -59,6 +61,12 @@ import org.jredis.ri.alphazero.support.Log;
 
 public abstract class PipelineConnectionBase extends ConnectionBase {
 
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** default max number of pending responses -- see {@link Connection.Property#MAX_PENDING_REQUESTS} */
+	public static final int PENDING_QUEUE_CAPACITY = 1024 * 64;
+	
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
@@ -68,11 +76,17 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 	/**  */
 	private Thread 					respHandlerThread;
 
-	/**  */
-	private BlockingQueue<PendingRequest>	pendingResponseQueue;
+	/** pending responses -- added under serviceLock, and taken by the response handler */
+	private RingQueue<PendingRequest>	pendingResponseQueue;
+	
+	/** bounds the pending responses -- acquired before queuing, released by the response handler */
+	private PendingWindow			pendingWindow;
 
-	/** synchronization object used to serialize request queuing  */
-	private Object					serviceLock = new Object();
+	/** 
+	 * synchronization object used to serialize request queuing -- set in initializeComponents.
+	 * (no initializer, as it would replace the lock in use by the flusher after the super constructor)
+	 */
+	private Object					serviceLock;
 	
 	/** 
 	 * flag (default false) indicates if a pending QUIT command is being processed.  
@@ -85,6 +99,32 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 	
 	/** counted down on notifyConnect */
 	private CountDownLatch		    connectionEstablished;
+	
+	/* 
+	 * write coalescing -- see Connection.Property#COALESCE_WRITE_DELAY.
+	 * note: (as with all other fields set in initializeComponents) no initializers, 
+	 * as this is called in the super constructor
+	 */
+	/** if not null, requests are buffered here and written by the flusher -- guarded by serviceLock */
+	private ByteArrayOutputStream	writeBuffer;
+	
+	/** writeBuffer is flushed immediately when it reaches this size */
+	private int						writeBufferLimit;
+	
+	/** max delay of buffered requests */
+	private long					coalesceDelayNanos;
+	
+	/** number of buffered requests -- used by the flusher to detect a (momentarily) idle queue */
+	private volatile long			bufferedCnt;
+	
+	/**  */
+	private Thread					flusherThread;
+	
+	/** no-reply request bookkeeping -- set in initializeComponents */
+	private NoReplyTracker			noReplies;
+
+	/** set if a write of the buffered requests failed -- pending requests are then failed with it */
+	private volatile ClientRuntimeException	writeFault;
 
 	// ------------------------------------------------------------------------
 	// Constructor(s)
@@ -115,11 +155,22 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	isActive = new AtomicBoolean(false);
     	connectionEstablished = new CountDownLatch(1);
     	
-    	pendingResponseQueue = new LinkedBlockingQueue<PendingRequest>();
+    	pendingWindow = new PendingWindow(spec, PENDING_QUEUE_CAPACITY);
+    	pendingResponseQueue = new RingQueue<PendingRequest>(pendingWindow.getSize());
+    	noReplies = new NoReplyTracker();
     	respHandler = new ResponseHandler();
     	respHandlerThread = new Thread(respHandler, "response-handler");
     	respHandlerThread.start();
     	
+    	Object coalesceDelay = spec.getConnectionProperty(Property.COALESCE_WRITE_DELAY);
+    	if(null != coalesceDelay) {
+    		coalesceDelayNanos = TimeUnit.MICROSECONDS.toNanos(((Number) coalesceDelay).longValue());
+    		writeBufferLimit = spec.getSocketProperty(Connection.Socket.Property.SO_SNDBUF);
+    		writeBuffer = new ByteArrayOutputStream(writeBufferLimit);
+    		flusherThread = new Thread(new RequestFlusher(), "request-flusher");
+    		flusherThread.start();
+    	}
+    	
     	isActive.set(false);
     }
     
@@ -127,6 +178,7 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     protected void cleanup () {
       super.cleanup();
       respHandlerThread.interrupt();
+      if(null != flusherThread) flusherThread.interrupt();
     }
 
     @Override
@@ -151,15 +203,11 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
      */
     @Override
     protected Protocol newProtocolHandler () {
-		return new ConcurrentSyncProtocol();
+		return new ConcurrentSyncProtocol(spec.getConnectionFlag(Flag.BULK_VIEWS), DefaultProtocolFactory.getGatherWriteThreshold(spec));
 //		return new SynchProtocol();
     }
 
-    // TODO: write chunking + mod ProtocolBase.Stream...Request + Command.FLUSH_BUFFERS.
-//    @Override
-//    protected OutputStream newOutputStream(OutputStream socketOutputStream) {
-//    	return new BufferedOutputStream(socketOutputStream);
-//    }
+    // write chunking: see Connection.Property#COALESCE_WRITE_DELAY.
 
     /**
      * Just make sure its a {@link FastBufferedInputStream}.
@@ -183,6 +231,10 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
      * occur in this method, so when this method returns, your request has been
      * sent.  This simply defers the response read to the response handler.
      * <p>
+     * If the {@link Connection.Property#COALESCE_WRITE_DELAY} is specified, the request is
+     * buffered instead, and written (along with the requests of other threads) by the
+     * request flusher.
+     * <p>
      * Other item of note is that once a QUIT request has been queued, no further
      * requests are accepted and a ClientRuntimeException is thrown.
      * 
@@ -203,28 +255,199 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 		if(pendingQuit) 
 			throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
 		
-		synchronized (serviceLock) {
-			
-			if(cmd != Command.QUIT)
-				request.write(getOutputStream());
-			else {
-				pendingQuit = true;
-				isActive.set(false);
+		pendingWindow.acquire();
+		boolean queued = false;
+		try {
+			synchronized (serviceLock) {
+				checkWriteFault();
+
+				if(cmd != Command.QUIT) {
+					writeRequest(request);
+				}
+				else {
+					if(null != writeBuffer)
+						flushWriteBuffer();
+					pendingQuit = true;
+					isActive.set(false);
+				}
+				queuePending(pendingResponse);
+				queued = true;
 			}
-				
-			pendingResponseQueue.add(pendingResponse);
+		}
+		finally {
+			if(!queued) pendingWindow.release();
 		}
 		return pendingResponse;
     }
 
+    /**
+     * Sends the request, and queues the shared no-reply marker in place of a
+     * {@link PendingRequest}: the response handler reads the reply into a reused
+     * {@link org.jredis.ri.alphazero.protocol.Reply} and only counts it (and its errors).
+     * 
+     * @see org.jredis.ri.alphazero.connection.ConnectionBase#queueNoReplyRequest(org.jredis.protocol.Command, byte[][])
+     */
+    @Override
+    public final void queueNoReplyRequest (Command cmd, byte[]... args) 
+    	throws ClientRuntimeException, ProviderException 
+    {
+		if(!isConnected()) 
+			throw new NotConnectedException ("Not connected!");
+		NoReplyTracker.checkCommand(cmd);
+		
+		Protocol		protocol = Assert.notNull(getProtocolHandler(), "thread protocol handler", ProviderException.class);
+		Request 		request = Assert.notNull(protocol.createRequest (cmd, args), "request object from handler", ProviderException.class);
+		
+		if(pendingQuit) 
+			throw new ClientRuntimeException("Pipeline shutting down: Quit in progess; no further requests are accepted.");
+		
+		pendingWindow.acquire();
+		boolean queued = false;
+		try {
+			synchronized (serviceLock) {
+				checkWriteFault();
+				writeRequest(request);
+				queuePending(NoReplyTracker.NO_REPLY);
+				noReplies.onQueued();
+				queued = true;
+			}
+		}
+		finally {
+			if(!queued) pendingWindow.release();
+		}
+    }
+
+    /* (non-Javadoc) @see org.jredis.ri.alphazero.connection.ConnectionBase#awaitNoReplies() */
+    @Override
+    public final long awaitNoReplies () throws ClientRuntimeException, ProviderException {
+    	final long target;
+    	synchronized (serviceLock) {
+    		checkWriteFault();
+    		if(null != writeBuffer)
+    			flushWriteBuffer();
+    		target = noReplies.queued();
+    	}
+    	return noReplies.await(target);
+    }
+
+    /**
+     * @return the in-flight window of this pipeline, e.g. for monitoring its occupancy.
+     */
+    public final PendingWindow getPendingWindow () {
+    	return pendingWindow;
+    }
+
+    /**
+     * Writes (or buffers) the request.  Called with serviceLock held.
+     * @param request
+     */
+    private void writeRequest (Request request) {
+    	if(null != writeBuffer)
+    		bufferRequest(request);
+    	else
+    		request.write(getOutputStream());
+    }
+    
+    /**
+     * Queues the pending response for the response handler.  Called with serviceLock held.
+     * @param pending
+     */
+    private void queuePending (PendingRequest pending) {
+		// buffered requests must be written if we are to wait for their responses
+		if(null != writeBuffer && pendingResponseQueue.isFull())
+			flushWriteBuffer();
+		try {
+			pendingResponseQueue.put(pending);
+		}
+		catch (InterruptedException e) {
+			throw new ClientRuntimeException("Interrupted while waiting for the pending response queue", e);
+		}
+    }
+
+    /**
+     * Appends the request to the write buffer, and wakes up the flusher.  Requests that
+     * do not fit the buffer are written directly (after the buffered requests).
+     * Called with serviceLock held.
+     * @param request
+     */
+    private void bufferRequest (Request request) {
+    	if(request instanceof ByteBufferRequest && ((ByteBufferRequest) request).size() >= writeBufferLimit) {
+    		flushWriteBuffer();
+    		request.write(getOutputStream());
+    		return;
+    	}
+    	request.write(writeBuffer);
+    	bufferedCnt++;
+    	if(writeBuffer.size() >= writeBufferLimit)
+    		flushWriteBuffer();
+    	else
+    		serviceLock.notify();
+    }
+    
+    /**
+     * Writes the buffered requests to the socket in one write.  On failure, the
+     * connection is faulted -- see {@link #onWriteFault(ClientRuntimeException)}.
+     * Called with serviceLock held.
+     */
+    private void flushWriteBuffer () {
+    	final int size = writeBuffer.size();
+    	if(size == 0) return;
+    	try {
+    		writeBuffer.writeTo(getOutputStream());
+    	}
+    	catch (IOException e) {
+    		Log.error("PipelineConnectionBase.flushWriteBuffer(): IOException on write: " + e.getLocalizedMessage());
+    		ClientRuntimeException cre = new ClientRuntimeException ("stream io exception", e);
+    		onWriteFault(cre);
+    		throw cre;
+    	}
+    	finally {
+    		// don't retain the buffer if a burst has grown it
+    		if(size > writeBufferLimit * 2)
+    			writeBuffer = new ByteArrayOutputStream(writeBufferLimit);
+    		else
+    			writeBuffer.reset();
+    	}
+    }
+    
+    /**
+     * The buffered requests are lost, but their pending responses are queued.  The
+     * connection is faulted and its socket is closed, so that the response handler
+     * (the only consumer of the pending queue) fails the pending requests with cre.
+     * Called with serviceLock held.
+     * @param cre
+     */
+    private void onWriteFault (ClientRuntimeException cre) {
+    	if(null != writeFault) return;
+    	writeFault = cre;
+    	isActive.set(false);
+    	onConnectionFault(cre.getMessage(), false);
+    	try {
+    		getOutputStream().close();
+    	}
+    	catch (IOException e) {
+    		Log.error("PipelineConnectionBase.onWriteFault(): IOException on close: " + e.getLocalizedMessage());
+    	}
+    }
+
+    /**
+     * Rejects requests once a write has failed.  Called with serviceLock held.
+     */
+    private void checkWriteFault () throws ClientRuntimeException {
+    	if(null != writeFault)
+    		throw new ClientRuntimeException("Pipeline faulted on write of buffered requests", writeFault);
+    }
+
     private void onResponseHandlerError (ClientRuntimeException cre, PendingRequest request) {
+    	// a read error following a failed write is a consequence of it
+    	if(null != writeFault) cre = writeFault;
     	Log.error("Pipeline response handler encountered an error: " + cre.getMessage());
     	
     	// signal fault
     	onConnectionFault(cre.getMessage(), false);
     	
     	// set execution error for future object
-    	request.setCRE(cre);
+    	setCRE(request, cre);
     	
 		// BEST:
 		// 1 - block the request phase
@@ -236,18 +459,61 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	// with execution error
     	//
 		PendingRequest pending = null;
-		while(true){
-			try {
-				pending = pendingResponseQueue.remove();
-				pending.setCRE(cre);
-				Log.log("set pending %s response to error with CRE", pending.cmd);
-			}
-			catch (NoSuchElementException empty){ break; }
+		while((pending = pendingResponseQueue.poll()) != null){
+			setCRE(pending, cre);
+			Log.log("set pending %s response to error with CRE", pending.cmd);
 		}
     }
+    
+    private void setCRE (PendingRequest pending, ClientRuntimeException cre) {
+    	if(pending == NoReplyTracker.NO_REPLY)
+    		noReplies.onFault(cre);
+    	else
+    		pending.setCRE(cre);
+    	pendingWindow.release();
+    }
 	// ------------------------------------------------------------------------
 	// Inner Class
 	// ------------------------------------------------------------------------
+    /**
+     * Writes the buffered requests once the write buffer is non-empty and no further 
+     * requests are being queued, or the coalesce delay has passed.
+     */
+    private final class RequestFlusher implements Runnable {
+//    	@Override
+    	public void run () {
+			Log.log("Pipeline <%s> thread for <%s> started.", Thread.currentThread().getName(), PipelineConnectionBase.this);
+    		while(true) {
+    			try {
+    				synchronized (serviceLock) {
+    					while(writeBuffer.size() == 0)
+    						serviceLock.wait();
+    				}
+    				final long deadline = System.nanoTime() + coalesceDelayNanos;
+    				long seen = bufferedCnt;
+    				while(System.nanoTime() < deadline) {
+    					Thread.yield();
+    					final long cnt = bufferedCnt;
+    					if(cnt == seen) break;
+    					seen = cnt;
+    				}
+    				synchronized (serviceLock) {
+    					flushWriteBuffer();
+    				}
+    			}
+    			catch (InterruptedException e) {
+    				break;
+    			}
+    			catch (ClientRuntimeException cre) {
+    				// the connection is faulted -- see onWriteFault
+    				Log.problem ("ClientRuntimeException: " + cre.getMessage());
+    				break;
+    			}
+    		}
+			Log.log("Pipeline <%s> thread for <%s> stopped.", Thread.currentThread().getName(), PipelineConnectionBase.this);
+    	}
+    }
+    
     /**
      * Provides the response processing logic as a {@link Runnable}.
      * <p>
@@ -284,7 +550,7 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
     	 */
     	// ------------------------------------------------------------------------
     	/**
-    	 * Keeps processing the {@link PendingRequest}s in the pending {@link Queue}
+    	 * Keeps processing the {@link PendingRequest}s in the pending {@link RingQueue}
 		 * until a QUIT is encountered in the pending queue.  Thread will stop after
 		 * processing the QUIT response (which is expected to be a {@link VirtualResponse}.
     	 * <p>
@@ -308,14 +574,19 @@ public abstract class PipelineConnectionBase extends ConnectionBase {
 				try {
 	                pending = pendingResponseQueue.take();
 					try {
+						if(pending == NoReplyTracker.NO_REPLY) {
+							noReplies.onReply(getInputStream());
+							pendingWindow.release();
+							continue;
+						}
 						response = protocol.createResponse(pending.cmd);
 						response.read(getInputStream());
-						pending.response = response;
-						pending.completion.signal();
+						// log before signaling -- the response may be released once consumed
 						if(response.getStatus().isError()) {
 							Log.error ("(Asynch) Error response for " + pending.cmd.code + " => " + response.getStatus().message());
 						}
-
+						pending.setResponse(response);
+						pendingWindow.release();
 					}
 					
 					// this exception handling as of now is basically broken and fairly useless
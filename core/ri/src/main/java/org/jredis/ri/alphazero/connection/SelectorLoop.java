@@ -0,0 +1,165 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * A single (daemon) thread multiplexing the socket io of any number of
+ * {@link NioPipelineConnection}s using a {@link Selector}.  All channel
+ * registration and interest changes are performed on the loop thread, via
+ * {@link SelectorLoop#execute(Runnable)}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 18, 2011
+ * @since   alpha.0
+ *
+ */
+final class SelectorLoop implements Runnable {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Selector			selector;
+
+	/** tasks to run on the loop thread */
+	private final Queue<Runnable>	tasks = new ConcurrentLinkedQueue<Runnable>();
+
+	/** set on first use */
+	private final AtomicBoolean		started = new AtomicBoolean(false);
+
+	private volatile boolean		run_flag = true;
+
+	private final Thread			thread;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param name of the loop thread
+	 * @throws ClientRuntimeException if the selector can not be opened
+	 */
+	SelectorLoop (String name) throws ClientRuntimeException {
+		try {
+			selector = Selector.open();
+		}
+		catch (IOException e) {
+			throw new ClientRuntimeException ("Failed to open selector", e);
+		}
+		thread = new Thread(this, name);
+		thread.setDaemon(true);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * Queues the task to run on the loop thread, and wakes up the selector.
+	 * @param task
+	 */
+	void execute (Runnable task) {
+		if(started.compareAndSet(false, true))
+			thread.start();
+		tasks.add(task);
+		selector.wakeup();
+	}
+
+	/**
+	 * Registers the (non-blocking) channel for reads.
+	 * @param channel
+	 * @param connection
+	 */
+	void register (final SocketChannel channel, final NioPipelineConnection connection) {
+		execute(new Runnable() {
+			public void run () {
+				try {
+					connection.onRegistered(channel.register(selector, SelectionKey.OP_READ, connection));
+				}
+				catch (IOException e) {
+					connection.onFault(new ClientRuntimeException("Failed to register channel", e));
+				}
+			}
+		});
+	}
+
+	/**
+	 * @return true if called on the loop thread.
+	 */
+	boolean inLoop () {
+		return Thread.currentThread() == thread;
+	}
+
+	/**
+	 * Stops the loop.  Registered connections are not closed.
+	 */
+	void shutdown () {
+		run_flag = false;
+		selector.wakeup();
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: Runnable
+	// ------------------------------------------------------------------------
+	public void run () {
+		Log.log("SelectorLoop <%s> started.", Thread.currentThread().getName());
+		while(run_flag) {
+			try {
+				selector.select();
+				Runnable task;
+				while((task = tasks.poll()) != null)
+					task.run();
+
+				Iterator<SelectionKey> selected = selector.selectedKeys().iterator();
+				while(selected.hasNext()) {
+					SelectionKey key = selected.next();
+					selected.remove();
+					NioPipelineConnection connection = (NioPipelineConnection) key.attachment();
+					try {
+						if(key.isWritable())
+							connection.onWritable();
+						if(key.isReadable())
+							connection.onReadable();
+					}
+					catch (CancelledKeyException e) { /* connection was closed */ }
+				}
+			}
+			catch (IOException e) {
+				Log.problem("SelectorLoop <%s> select failed: %s", Thread.currentThread().getName(), e.getMessage());
+			}
+			catch (RuntimeException e) {
+				Log.error("SelectorLoop <%s> unexpected RuntimeException: %s", Thread.currentThread().getName(), e.getMessage());
+			}
+		}
+		try {
+			selector.close();
+		}
+		catch (IOException e) {
+			Log.error("SelectorLoop <%s> on close: %s", Thread.currentThread().getName(), e.getMessage());
+		}
+		Log.log("SelectorLoop <%s> stopped.", Thread.currentThread().getName());
+	}
+}
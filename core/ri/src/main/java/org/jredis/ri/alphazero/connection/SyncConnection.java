@@ -16,6 +16,11 @@
 
 package org.jredis.ri.alphazero.connection;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import org.jredis.ClientRuntimeException;
@@ -30,6 +35,8 @@ import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
+import org.jredis.ri.alphazero.protocol.Reply;
+import org.jredis.ri.alphazero.protocol.ReplyResponse;
 import org.jredis.ri.alphazero.support.Assert;
 import org.jredis.ri.alphazero.support.Log;
 
@@ -44,6 +51,18 @@ import org.jredis.ri.alphazero.support.Log;
  */
 public class SyncConnection extends ConnectionBase implements Connection {
 
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** initial size of the buffer of a batch's requests */
+	private static final int PREFERRED_BATCH_BUFFER_SIZE = 1024 * 4;
+
+	/** the (shared) response of the +QUEUED replies of a transaction's commands */
+	private static final Response QUEUED_RESPONSE = new ReplyResponse(Command.MULTI);
+	static {
+		QUEUED_RESPONSE.read(new ByteArrayInputStream("+QUEUED\r\n".getBytes()));
+	}
+
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
@@ -160,6 +179,86 @@ public class SyncConnection extends ConnectionBase implements Connection {
 
 		return response;
 	}
+
+	/**
+	 * Writes all requests (in one write) before reading any of their replies.  The replies are
+	 * read into (non-shared) {@link ReplyResponse}s, as the responses of this connection's
+	 * protocol handler are reused per request.
+	 * <p>
+	 * For a transaction (a batch of {@link Command#MULTI}, the queued commands, and {@link Command#EXEC}),
+	 * the replies preceding EXEC are read into one reused {@link Reply}, and the +QUEUED replies
+	 * share one (status) response.
+	 * @see org.jredis.ri.alphazero.connection.ConnectionBase#serviceRequests(org.jredis.protocol.Command[], byte[][][])
+	 */
+	@Override
+	public Response[] serviceRequests (Command[] cmds, byte[][][] args)
+		throws ClientRuntimeException, ProviderException
+	{
+		checkBatch(cmds, args);
+		if(!isConnected()) throw new NotConnectedException ("Not connected!");
+
+		final Response[]	responses = new Response[cmds.length];
+		Protocol			protocol = Assert.notNull(getProtocolHandler(), "thread protocol handler", ProviderException.class);
+
+		try {
+			// 1 - Requests
+			final ByteArrayOutputStream batch = new ByteArrayOutputStream(PREFERRED_BATCH_BUFFER_SIZE);
+			for(int i=0; i<cmds.length; i++)
+				Assert.notNull(protocol.createRequest (cmds[i], args[i]), "request object from handler", ProviderException.class).write(batch);
+			try {
+				final OutputStream out = super.getOutputStream();
+				batch.writeTo(out);
+				out.flush();
+			}
+			catch (IOException e) {
+				throw new ClientRuntimeException ("stream io exception", e);
+			}
+
+			// 2 - responses
+			final InputStream in = super.getInputStream();
+			final int last = cmds.length - 1;
+			int i = 0;
+			if(cmds[0] == Command.MULTI && cmds[last] == Command.EXEC){
+				Reply reply = null;
+				for(; i<last; i++){
+					if(null == reply) reply = new Reply();
+					reply.read(in);
+					if(reply.isQueued())
+						responses[i] = QUEUED_RESPONSE;
+					else {
+						responses[i] = ReplyResponse.forReply(cmds[i], reply);
+						reply = null;
+					}
+				}
+			}
+			for(; i<cmds.length; i++){
+				responses[i] = new ReplyResponse(cmds[i]);
+				responses[i].read(in);
+			}
+		}
+		catch (ProviderException bug){
+			Log.bug ("serviceRequests() -- ProviderException: " + bug.getLocalizedMessage());
+			Log.log ("serviceRequests() -- closing connection ...");
+			disconnect();
+			throw bug;
+		}
+		catch (ClientRuntimeException cre) {
+			Log.problem ("serviceRequests() -- ClientRuntimeException  => " + cre.getLocalizedMessage());
+			reconnect();
+
+			throw new ConnectionReset ("Connection re-established but batched requests not (fully) processed:  " + cre.getLocalizedMessage());
+		}
+		catch (RuntimeException e){
+			e.printStackTrace();
+			Log.bug ("serviceRequests() -- *unexpected* RuntimeException: " + e.getLocalizedMessage());
+
+			Log.log ("serviceRequests() -- closing connection ...");
+			disconnect();
+
+			throw new ClientRuntimeException("unexpected runtime exeption: " + e.getLocalizedMessage(), e);
+		}
+		return responses;
+	}
 	@SuppressWarnings("unused")
     private Lock acquireLock() {
 		lock.lock();
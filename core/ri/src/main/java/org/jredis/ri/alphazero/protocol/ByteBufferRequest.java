@@ -0,0 +1,367 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.protocol.Request;
+import org.jredis.ri.alphazero.support.Log;
+
+/**
+ * A reusable {@link Request} that encodes the command directly into a
+ * {@link ByteBuffer} -- heap or direct -- without the synchronization and
+ * growth copying of a {@link java.io.ByteArrayOutputStream}, and without
+ * allocating the ASCII length headers of the arguments.  The size headers
+ * ("$len\r\n") of small arguments are precomputed.
+ * <p>
+ * Arguments larger than the <code>gatherThreshold</code> are not copied into
+ * the buffer: the request keeps a reference to the argument and it is written
+ * as a separate segment, using a gathering write if the request is written to a
+ * {@link GatheringByteChannel}.  The caller must not modify such arguments until
+ * the request has been written.
+ * <p>
+ * Like {@link ProtocolBase.StreamBufferRequest}, instances are meant to be
+ * reused by a single requesting thread: {@link ByteBufferRequest#reset()}
+ * discards the previously encoded request.
+ * <p>
+ * Direct buffers only pay off when the request is written to a
+ * {@link WritableByteChannel}; writes to an {@link OutputStream} go through
+ * a (reused) heap transfer array.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 15, 2011
+ * @since   alpha.0
+ *
+ */
+public class ByteBufferRequest implements Request {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** size headers ("$len\r\n") for lengths less than this are precomputed */
+	public static final int			PRECOMPUTED_SIZE_HEADERS = 1024;
+
+	/** count headers ("*cnt\r\n") for counts less than this are precomputed */
+	public static final int			PRECOMPUTED_COUNT_HEADERS = 256;
+
+	/** chunk size used to write direct buffers to {@link OutputStream}s */
+	private static final int		TRANSFER_CHUNK_SIZE = 1024 * 8;
+
+	private static final byte[][]	sizeHeaders = precomputeHeaders(ProtocolBase.SIZE_BYTE, PRECOMPUTED_SIZE_HEADERS);
+	private static final byte[][]	countHeaders = precomputeHeaders(ProtocolBase.COUNT_BYTE, PRECOMPUTED_COUNT_HEADERS);
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** the encoded request -- position is the end of the request data */
+	private ByteBuffer		buffer;
+
+	/** if true, buffers are allocated using {@link ByteBuffer#allocateDirect(int)} */
+	private final boolean	direct;
+
+	/** initial (and retained) capacity */
+	private final int		initialCapacity;
+
+	/** buffers grown beyond this size are replaced on reset */
+	private final int		maxRetainedCapacity;
+
+	/** used to write direct buffers to {@link OutputStream}s */
+	private byte[]			transferBuffer;
+
+	/** arguments of this size or larger are written by reference */
+	private final int		gatherThreshold;
+
+	/** number of arguments written by reference */
+	private int				refCnt;
+
+	/** the arguments written by reference */
+	private byte[][]		refs = new byte[4][];
+
+	/** refs[i] is written after the buffer content up to refPositions[i] */
+	private int[]			refPositions = new int[4];
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * Instantiates a request buffer that copies all arguments.
+	 * @param initialCapacity initial size of the buffer.
+	 * @param maxRetainedCapacity if the buffer grows beyond this size (to accommodate a
+	 * large request) it is replaced with a buffer of initialCapacity on {@link ByteBufferRequest#reset()}
+	 * @param direct if true, the buffer is a direct {@link ByteBuffer}.
+	 */
+	public ByteBufferRequest (int initialCapacity, int maxRetainedCapacity, boolean direct) {
+		this (initialCapacity, maxRetainedCapacity, direct, Integer.MAX_VALUE);
+	}
+	/**
+	 * @param initialCapacity initial size of the buffer.
+	 * @param maxRetainedCapacity if the buffer grows beyond this size (to accommodate a
+	 * large request) it is replaced with a buffer of initialCapacity on {@link ByteBufferRequest#reset()}
+	 * @param direct if true, the buffer is a direct {@link ByteBuffer}.
+	 * @param gatherThreshold arguments of this size or larger are written by reference.
+	 */
+	public ByteBufferRequest (int initialCapacity, int maxRetainedCapacity, boolean direct, int gatherThreshold) {
+		this.initialCapacity = initialCapacity;
+		this.maxRetainedCapacity = Math.max(initialCapacity, maxRetainedCapacity);
+		this.direct = direct;
+		this.gatherThreshold = gatherThreshold;
+		this.buffer = allocate(initialCapacity);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: encoding
+	// ------------------------------------------------------------------------
+	/**
+	 * Discards the encoded request.
+	 * @return this
+	 */
+	public ByteBufferRequest reset () {
+		if(buffer.capacity() > maxRetainedCapacity)
+			buffer = allocate(initialCapacity);
+		else
+			buffer.clear();
+		for(int i=0; i<refCnt; i++)
+			refs[i] = null;
+		refCnt = 0;
+		return this;
+	}
+
+	/**
+	 * Copies the (pre-encoded) data to the request buffer as is.
+	 * @param data
+	 */
+	public final void put (byte[] data) {
+		ensureCapacity(data.length);
+		buffer.put(data);
+	}
+
+	/**
+	 * Encodes the multi-bulk count line ("*cnt\r\n").
+	 * @param count
+	 */
+	public final void writeCount (int count) {
+		if(count >= 0 && count < PRECOMPUTED_COUNT_HEADERS)
+			put(countHeaders[count]);
+		else
+			writeHeader(ProtocolBase.COUNT_BYTE, count);
+	}
+
+	/**
+	 * Encodes the bulk data, preceded by its size line ("$len\r\n") and followed by CRLF.
+	 * @param data
+	 */
+	public final void writeBulk (byte[] data) {
+		final int len = data.length;
+		if(len >= gatherThreshold) {
+			writeHeader(ProtocolBase.SIZE_BYTE, len);
+			addRef(data);
+			put(ProtocolBase.CRLF);
+			return;
+		}
+		ensureCapacity(len + 16);
+		if(len < PRECOMPUTED_SIZE_HEADERS)
+			buffer.put(sizeHeaders[len]);
+		else
+			writeHeader(ProtocolBase.SIZE_BYTE, len);
+		buffer.put(data);
+		buffer.put(ProtocolBase.CRLF);
+	}
+
+	/**
+	 * @return the number of bytes of the encoded request.
+	 */
+	public final long size () {
+		long size = buffer.position();
+		for(int i=0; i<refCnt; i++)
+			size += refs[i].length;
+		return size;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: Request
+	// ------------------------------------------------------------------------
+	/* (non-Javadoc) @see org.jredis.connector.Message#read(java.io.InputStream) */
+	@Override
+	public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+		throw new ProviderException("Request.read is not supported by this class!");
+	}
+
+	/**
+	 * Writes the entire content of the request to the output stream and flushes it.
+	 *
+	 * @param out the stream to write the Request message to.
+	 */
+	@Override
+	public void write(OutputStream out) throws ClientRuntimeException, ProviderException {
+		try {
+			int from = 0;
+			for(int i=0; i<refCnt; i++){
+				write(out, from, refPositions[i]);
+				out.write(refs[i]);
+				from = refPositions[i];
+			}
+			write(out, from, buffer.position());
+			out.flush();
+		}
+		catch (SocketException e){
+			Log.error("ByteBufferRequest.write(): SocketException on write: " + e.getLocalizedMessage());
+			throw new ClientRuntimeException ("socket exception", e);
+		}
+		catch (IOException e) {
+			Log.error("ByteBufferRequest.write(): IOException on write: " + e.getLocalizedMessage());
+			throw new ClientRuntimeException ("stream io exception", e);
+		}
+	}
+
+	/**
+	 * Writes the entire content of the request to the channel.
+	 * @param channel
+	 */
+	public void write(WritableByteChannel channel) throws ClientRuntimeException {
+		ByteBuffer[] segments = getSegments();
+		try {
+			if(segments.length > 1 && channel instanceof GatheringByteChannel) {
+				final ByteBuffer last = segments[segments.length-1];
+				while(last.hasRemaining())
+					((GatheringByteChannel) channel).write(segments);
+			}
+			else {
+				for(ByteBuffer segment : segments) {
+					while(segment.hasRemaining())
+						channel.write(segment);
+				}
+			}
+		}
+		catch (IOException e) {
+			Log.error("ByteBufferRequest.write(): IOException on write: " + e.getLocalizedMessage());
+			throw new ClientRuntimeException ("channel io exception", e);
+		}
+	}
+
+	/**
+	 * @return the request as a sequence of buffers: the encoded regions of the
+	 * request buffer, interleaved with the by-reference arguments (if any).
+	 */
+	public ByteBuffer[] getSegments () {
+		ByteBuffer[] segments = new ByteBuffer[2*refCnt + 1];
+		int from = 0;
+		for(int i=0; i<refCnt; i++){
+			segments[2*i] = slice(from, refPositions[i]);
+			segments[2*i+1] = ByteBuffer.wrap(refs[i]);
+			from = refPositions[i];
+		}
+		segments[2*refCnt] = slice(from, buffer.position());
+		return segments;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Writes buffer content [from, to) to the stream.
+	 */
+	private final void write (OutputStream out, int from, int to) throws IOException {
+		if(buffer.hasArray()) {
+			out.write(buffer.array(), buffer.arrayOffset() + from, to - from);
+			return;
+		}
+		if(null == transferBuffer)
+			transferBuffer = new byte[TRANSFER_CHUNK_SIZE];
+		ByteBuffer data = slice(from, to);
+		while(data.hasRemaining()){
+			int n = Math.min(data.remaining(), transferBuffer.length);
+			data.get(transferBuffer, 0, n);
+			out.write(transferBuffer, 0, n);
+		}
+	}
+
+	/**
+	 * @return a view of the buffer content [from, to)
+	 */
+	private final ByteBuffer slice (int from, int to) {
+		ByteBuffer data = buffer.duplicate();
+		data.limit(to).position(from);
+		return data;
+	}
+
+	private final void addRef (byte[] data) {
+		if(refCnt == refs.length) {
+			byte[][] newrefs = new byte[refCnt * 2][];
+			System.arraycopy(refs, 0, newrefs, 0, refCnt);
+			refs = newrefs;
+			int[] newpositions = new int[refCnt * 2];
+			System.arraycopy(refPositions, 0, newpositions, 0, refCnt);
+			refPositions = newpositions;
+		}
+		refs[refCnt] = data;
+		refPositions[refCnt] = buffer.position();
+		refCnt++;
+	}
+
+	/**
+	 * Encodes ctlByte, the ASCII digits of num, and CRLF.
+	 */
+	private final void writeHeader (byte ctlByte, int num) {
+		ensureCapacity(14);
+		buffer.put(ctlByte);
+		if(num < 0) {
+			buffer.put((byte) '-');
+			num = -num;
+		}
+		int div = 1;
+		while(num / div >= 10) div *= 10;
+		for(; div > 0; div /= 10)
+			buffer.put((byte) (ProtocolBase.ASCII_ZERO + (num / div) % 10));
+		buffer.put(ProtocolBase.CRLF);
+	}
+
+	private final void ensureCapacity (int len) {
+		if(buffer.remaining() >= len) return;
+
+		int capacity = Math.max(buffer.capacity() * 2, TRANSFER_CHUNK_SIZE);
+		while(capacity - buffer.position() < len) capacity *= 2;
+		ByteBuffer newbuff = allocate(capacity);
+		buffer.flip();
+		newbuff.put(buffer);
+		buffer = newbuff;
+	}
+
+	private final ByteBuffer allocate (int capacity) {
+		return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+	}
+
+	private static final byte[][] precomputeHeaders (byte ctlByte, int cnt) {
+		byte[][] headers = new byte[cnt][];
+		for(int i=0; i<cnt; i++){
+			byte[] digits = Integer.toString(i).getBytes();
+			byte[] header = new byte[digits.length + 3];
+			header[0] = ctlByte;
+			System.arraycopy(digits, 0, header, 1, digits.length);
+			header[header.length-2] = ProtocolBase.CRLF[0];
+			header[header.length-1] = ProtocolBase.CRLF[1];
+			headers[i] = header;
+		}
+		return headers;
+	}
+}
@@ -29,9 +29,45 @@ import org.jredis.protocol.Response;
  */
 
 public class ConcurrentSyncProtocol extends SyncProtocol {
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** max number of free {@link ReplyResponse}s retained per protocol instance */
+	public static final int MAX_POOLED_RESPONSES = 1024;
+	
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
+	/** 
+	 * recycled responses.  Responses are acquired by the thread using this protocol instance
+	 * and are released by the consumers of the (pending) responses.
+	 */
+	private final ReplyResponsePool responsePool = new ReplyResponsePool(MAX_POOLED_RESPONSES);
+	
+	// ------------------------------------------------------------------------
+	// Constructor(s)
+	// ------------------------------------------------------------------------
+	
+	public ConcurrentSyncProtocol() {
+		super (false);
+	}
+	
+	/**
+	 * @param useBulkViews
+	 * @see SyncProtocol#SyncProtocol(boolean)
+	 */
+	public ConcurrentSyncProtocol(boolean useBulkViews) {
+		super (useBulkViews);
+	}
+	
+	/**
+	 * @param useBulkViews
+	 * @param gatherWriteThreshold
+	 * @see SyncProtocol#SyncProtocol(boolean, int)
+	 */
+	public ConcurrentSyncProtocol(boolean useBulkViews, int gatherWriteThreshold) {
+		super (useBulkViews, gatherWriteThreshold);
+	}
 	
 	// ------------------------------------------------------------------------
 	// Super Extensions
@@ -47,33 +83,53 @@ public class ConcurrentSyncProtocol extends SyncProtocol {
 //		return new StreamBufferRequest (buffer);	
 //	}
 
+	/* 
+	 * Responses are decoded per the actual reply type into (compact) {@link ReplyResponse}s, 
+	 * so no per response line buffers are allocated.  The responses are pooled, and 
+	 * recycled once released by their consumer.
+	 * @see ReplyResponse#release()
+	 */
 	@Override
 	protected Response createStatusResponse(Command cmd) {
-		return new SyncLineResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, ValueType.STATUS);
+		return responsePool.acquire (cmd);
 	}
 	
 	@Override
 	protected Response createBooleanResponse(Command cmd) {
-		return new SyncLineResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, ValueType.BOOLEAN);
+		return responsePool.acquire (cmd);
 	}
 	@Override
 	protected Response createStringResponse(Command cmd) {
-		return new SyncLineResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, ValueType.STRING);
+		return responsePool.acquire (cmd);
 	}
 	
 	@Override
 	protected Response createNumberResponse(Command cmd /*, boolean isBigNum*/) {
-		ValueType flavor = ValueType.NUMBER64;
-		return new SyncLineResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, flavor);
+		return responsePool.acquire (cmd);
 	}
 	
+	/** @return a {@link SyncBulkResponse} if using bulk views; otherwise a {@link ReplyResponse} */
 	@Override
 	protected Response createBulkResponse(Command cmd) {
-		return new SyncBulkResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd);
+		if(useBulkViews)
+			return new SyncBulkResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd);
+		return responsePool.acquire (cmd);
 	}
 	
+	/** @return a {@link SyncMultiBulkResponse} if using bulk views; otherwise a {@link ReplyResponse} */
 	@Override
 	protected Response createMultiBulkResponse(Command cmd) {
-		return new SyncMultiBulkResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd);
+		if(useBulkViews)
+			return new SyncMultiBulkResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd);
+		return responsePool.acquire (cmd);
+	}
+	
+	/**
+	 * Responses are read by a dedicated thread of the connection, so the stream is 
+	 * read eagerly and only iterated by the caller.
+	 */
+	@Override
+	protected Response createMultiBulkStreamResponse(Command cmd) {
+		return new SyncMultiBulkStreamResponse (new byte[PREFERRED_LINE_BUFFER_SIZE], cmd, false);
 	}
 }
@@ -38,7 +38,21 @@ public class DefaultProtocolFactory implements Protocol.Factory {
     	 * check various Connection.Property/Spec keys.  
     	 * 
     	 */
-		return connSpec.getConnectionFlag(Connection.Flag.SHARED) ? new ConcurrentSyncProtocol() : new SyncProtocol();
+		boolean useBulkViews = connSpec.getConnectionFlag(Connection.Flag.BULK_VIEWS);
+		int gatherWriteThreshold = getGatherWriteThreshold(connSpec);
+		return connSpec.getConnectionFlag(Connection.Flag.SHARED) ? 
+				new ConcurrentSyncProtocol(useBulkViews, gatherWriteThreshold) : 
+				new SyncProtocol(useBulkViews, gatherWriteThreshold);
+    }
+    
+    /**
+     * @param connSpec
+     * @return the {@link Connection.Property#GATHER_WRITE_THRESHOLD} of the spec, or 
+     * {@link SyncProtocol#DEFAULT_GATHER_WRITE_THRESHOLD} if not specified.
+     */
+    public static int getGatherWriteThreshold (ConnectionSpec connSpec) {
+    	Object threshold = connSpec.getConnectionProperty(Connection.Property.GATHER_WRITE_THRESHOLD);
+    	return threshold != null ? ((Number) threshold).intValue() : SyncProtocol.DEFAULT_GATHER_WRITE_THRESHOLD;
     }
 
 }
@@ -0,0 +1,66 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import org.jredis.protocol.BulkDataView;
+
+/**
+ * {@link BulkDataView} over bulk data that has already been read into individual
+ * arrays.  Release is a no-op.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 12, 2011
+ * @since   alpha.0
+ *
+ */
+final class ListBulkDataView implements BulkDataView {
+
+	private final List<byte[]> datalist;
+
+	ListBulkDataView (List<byte[]> datalist) {
+		this.datalist = datalist;
+	}
+
+	public int size () { return datalist.size(); }
+
+	public boolean isNull (int i) { return datalist.get(i) == null; }
+
+	public byte[] array (int i) { return datalist.get(i); }
+
+	public int offset (int i) { return 0; }
+
+	public int length (int i) {
+		byte[] data = datalist.get(i);
+		return data == null ? -1 : data.length;
+	}
+
+	public ByteBuffer view (int i) {
+		byte[] data = datalist.get(i);
+		return data == null ? null : ByteBuffer.wrap(data).asReadOnlyBuffer();
+	}
+
+	public byte[] copy (int i) {
+		byte[] data = datalist.get(i);
+		return data == null ? null : data.clone();
+	}
+
+	public byte[] data (int i) { return datalist.get(i); }
+
+	public void release () { }
+}
@@ -0,0 +1,141 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import org.jredis.ClientRuntimeException;
+import org.jredis.protocol.BulkDataView;
+import org.jredis.ri.alphazero.support.BufferPool;
+
+/**
+ * {@link BulkDataView} of bulk data elements read contiguously into a single 
+ * buffer obtained from a {@link BufferPool}.  Elements are appended as they are 
+ * read from the stream, and the buffer is returned to the pool on 
+ * {@link PooledBulkDataView#release()}.
+ * <p>
+ * Not thread-safe: a view is expected to be filled by the thread reading the 
+ * response and then handed off to (one) consumer.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 12, 2011
+ * @since   alpha.0
+ *
+ */
+final class PooledBulkDataView implements BulkDataView {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final BufferPool	pool;
+	private byte[]				buffer;
+	private int					position;
+	private final int[]			offsets;
+	private final int[]			lengths;
+	private int					size;
+	private boolean				released;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param pool the buffer pool
+	 * @param count number of expected elements
+	 * @param sizeHint expected total size of data -- used to size the initial buffer
+	 */
+	PooledBulkDataView (BufferPool pool, int count, int sizeHint) {
+		this.pool = pool;
+		this.offsets = new int[count];
+		this.lengths = new int[count];
+		this.buffer = pool.acquire(sizeHint);
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Reads the next element's data (NOT including the trailing CRLF) from the stream.
+	 * @param in
+	 * @param length data length, or -1 for nil values
+	 * @throws IOException
+	 */
+	void append (InputStream in, int length) throws IOException {
+		offsets[size] = position;
+		lengths[size] = length;
+		size++;
+		if(length <= 0) return;
+		
+		if(position + length > buffer.length) {
+			int newsize = buffer.length * 2;
+			while(newsize < position + length) newsize *= 2;
+			byte[] newbuffer = new byte[newsize];
+			System.arraycopy(buffer, 0, newbuffer, 0, position);
+			buffer = newbuffer;
+		}
+		int readcnt = -1;
+		int end = position + length;
+		while(position < end){
+			if((readcnt = in.read (buffer, position, end-position)) ==-1 ) throw new ClientRuntimeException("IO - read returned -1 -- problem");
+			position += readcnt;
+		}
+	}
+	
+	private final void assertNotReleased () {
+		if(released) throw new IllegalStateException ("BulkDataView has been released.");
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: BulkDataView
+	// ------------------------------------------------------------------------
+	public int size () { return size; }
+
+	public boolean isNull (int i) { return lengths[i] == -1; }
+
+	public byte[] array (int i) {
+		assertNotReleased();
+		return buffer;
+	}
+
+	public int offset (int i) { return offsets[i]; }
+
+	public int length (int i) { return lengths[i]; }
+
+	public ByteBuffer view (int i) {
+		assertNotReleased();
+		if(lengths[i] == -1) return null;
+		return ByteBuffer.wrap(buffer, offsets[i], lengths[i]).slice().asReadOnlyBuffer();
+	}
+
+	public byte[] copy (int i) {
+		assertNotReleased();
+		if(lengths[i] == -1) return null;
+		byte[] data = new byte[lengths[i]];
+		System.arraycopy(buffer, offsets[i], data, 0, lengths[i]);
+		return data;
+	}
+
+	/** always a copy: the elements share the pooled buffer */
+	public byte[] data (int i) { return copy(i); }
+
+	public void release () {
+		if(released) return;
+		released = true;
+		pool.release(buffer);
+		buffer = null;
+	}
+}
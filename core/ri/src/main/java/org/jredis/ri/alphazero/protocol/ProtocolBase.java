@@ -31,7 +31,6 @@ import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
 import org.jredis.protocol.ResponseStatus;
 import org.jredis.ri.alphazero.support.Assert;
-import org.jredis.ri.alphazero.support.Convert;
 import org.jredis.ri.alphazero.support.Log;
 
 
@@ -60,6 +59,9 @@ public abstract class ProtocolBase implements Protocol {
 	public static final byte	NUM_BYTE 	= (byte) 58; // :
 	public static final byte	ASCII_ZERO	= (byte) 48; // 0
 	
+	/** null BULK_SET args are sent as empty bulk data */
+	static final byte[]			EMPTY_BULK = new byte[0];
+	
 	// ------------------------------------------------------------------------
 	// Protocol Revision specific consts
 	// ------------------------------------------------------------------------
@@ -81,71 +83,39 @@ public abstract class ProtocolBase implements Protocol {
 	@Override
 	public Request createRequest(Command cmd, byte[]... args) throws ProviderException, IllegalArgumentException {
 		
-		ByteArrayOutputStream buffer = createRequestBufffer (cmd);
+		ByteBufferRequest buffer = createRequestBufffer (cmd);
 
-		try {
-			byte[] cmdLenBytes = Convert.toBytes(cmd.bytes.length);
-			byte[] lineCntBytes = Convert.toBytes(args.length+1);
+		final byte[] header = cmd.header(args.length);
+		if(null != header) {
+			buffer.put(header);
+		}
+		else {
+			buffer.writeCount(args.length+1);
+			buffer.writeBulk(cmd.bytes);
+		}
 
-            buffer.write(COUNT_BYTE);
-            buffer.write(lineCntBytes);
-            buffer.write(CRLF);
-            buffer.write(SIZE_BYTE);
-            buffer.write(cmdLenBytes);
-            buffer.write(CRLF);
-            buffer.write(cmd.bytes);
-            buffer.write(CRLF);
-            
-			switch (cmd.requestType) {
+		switch (cmd.requestType) {
 
-			case NO_ARG:
-			    break;
-			    
-			// TODO: check w/ antirez if in fact nulls are now generally accepted
-			// that is the only diff here.
-			case BULK_SET:
-				String errmsg = "Only MSET, MSETNX, LINSERT bulk commands are supported";
-				Assert.isTrue(cmd == Command.MSET || cmd == Command.MSETNX || cmd == Command.LINSERT, errmsg, NotSupportedException.class);
+		case NO_ARG:
+			break;
 
-				// THIS IS CLEARLY BROKEN ... SO MUCH FOR COMPREHSIVE TESTS ...
-				buffer.write(COUNT_BYTE);
-				buffer.write(lineCntBytes);
-				buffer.write(CRLF);
-				buffer.write(SIZE_BYTE);
-				buffer.write(cmdLenBytes);
-				buffer.write(CRLF);
-				buffer.write(cmd.bytes);
-				buffer.write(CRLF);
-				
-				for(int s=0; s<args.length; s++){
-					buffer.write(SIZE_BYTE);
-					if (args[s] != null) {
-	  					buffer.write(Convert.toBytes(args[s].length));
-	  					buffer.write(CRLF);
-	  					buffer.write(args[s]);
-	  					buffer.write(CRLF);
-	  				} else {
-						buffer.write(ASCII_ZERO);
-						buffer.write(CRLF);
-						buffer.write(CRLF);
-	  				}
-				}
-				break;
-			
-			default:
-				for(int i=0;i<args.length; i++){
-					buffer.write(SIZE_BYTE);
-					buffer.write(Convert.toBytes(Assert.notNull(args[i], i, ProviderException.class).length));
-					buffer.write(CRLF);
-					buffer.write(args[i]);
-					buffer.write(CRLF);
-				}
-				break;
-			
+		// TODO: check w/ antirez if in fact nulls are now generally accepted
+		// that is the only diff here.
+		case BULK_SET:
+			String errmsg = "Only MSET, MSETNX, LINSERT bulk commands are supported";
+			Assert.isTrue(cmd == Command.MSET || cmd == Command.MSETNX || cmd == Command.LINSERT, errmsg, NotSupportedException.class);
+
+			for(int s=0; s<args.length; s++){
+				buffer.writeBulk(args[s] != null ? args[s] : EMPTY_BULK);
 			}
-		}
-		catch (IOException e) {
-			throw new ProviderException("Problem writing to the buffer" + e.getLocalizedMessage(), e);
+			break;
+
+		default:
+			for(int i=0;i<args.length; i++){
+				buffer.writeBulk(Assert.notNull(args[i], i, ProviderException.class));
+			}
+			break;
+
 		}
 		return createRequest(buffer);
 	}
@@ -167,6 +137,9 @@ public abstract class ProtocolBase implements Protocol {
 			case MULTI_BULK:
 				response = createMultiBulkResponse (cmd);
 				break;
+			case MULTI_BULK_STREAM:
+				response = createMultiBulkStreamResponse (cmd);
+				break;
 			case NUMBER:
 				response = createNumberResponse (cmd);
 				break;
@@ -179,6 +152,9 @@ public abstract class ProtocolBase implements Protocol {
 			case VIRTUAL:
 				response = new VirtualResponse(ResponseStatus.STATUS_CIAO);
 				break;
+			case RESULT_SET:
+				response = createReplyResponse (cmd);
+				break;
 		
 		}
 
@@ -191,14 +167,25 @@ public abstract class ProtocolBase implements Protocol {
 	// Extension Points
 	// ------------------------------------------------------------------------
 	
-	protected abstract ByteArrayOutputStream createRequestBufffer(Command cmd);
-	protected abstract Request createRequest (ByteArrayOutputStream buffer);
+	protected abstract ByteBufferRequest createRequestBufffer(Command cmd);
+	protected abstract Request createRequest (ByteBufferRequest buffer);
 	protected abstract Response createMultiBulkResponse(Command cmd) ;
+	protected abstract Response createMultiBulkStreamResponse(Command cmd) ;
 	protected abstract Response createBulkResponse(Command cmd) ;
 	protected abstract Response createNumberResponse(Command cmd /*, boolean bigNum*/) ;
 	protected abstract Response createBooleanResponse(Command cmd) ;
 	protected abstract Response createStringResponse(Command cmd) ;
 	protected abstract Response createStatusResponse(Command cmd);
+	
+	/**
+	 * Extension point for responses decoded per the actual (possibly nested) reply
+	 * type.  Used for {@link Command.ResponseType#RESULT_SET} commands.
+	 * @param cmd
+	 * @return a new {@link ReplyResponse}
+	 */
+	protected Response createReplyResponse(Command cmd) {
+		return new ReplyResponse(cmd);
+	}
 
 	
 	// ========================================================================
@@ -0,0 +1,382 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.util.Arrays;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.connector.ConnectionReset;
+import org.jredis.ri.alphazero.connection.UnexpectedEOFException;
+import org.jredis.ri.alphazero.support.Convert;
+import org.jredis.ri.alphazero.support.FastBufferedInputStream;
+
+/**
+ * A compact, reusable, and untyped representation of a Redis reply.  The reply
+ * is decoded in a single pass, per the type indicated by its first byte -- status,
+ * error, number, bulk, or (possibly nested) multi-bulk -- regardless of the
+ * type expected for the command.  Reading into a previously read instance reuses
+ * its element nodes.
+ * <p>
+ * Not thread safe.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 16, 2011
+ * @since   alpha.0
+ *
+ */
+public final class Reply {
+
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ------------------------------------------------------------------------
+	/** Reply types, per the first byte of the reply */
+	public enum Type {
+		/** '+' */
+		STATUS,
+		/** '-' */
+		ERROR,
+		/** ':' */
+		NUMBER,
+		/** '$' */
+		BULK,
+		/** '*' */
+		MULTI_BULK
+	}
+
+	/**
+	 * Frames replies in a buffer that is filled incrementally, as used by non-blocking
+	 * connections to determine that a reply is complete before reading it.  The framer
+	 * keeps the position of the last complete element of a partially received reply,
+	 * so that each read only scans the newly received elements, and not the headers of
+	 * a large multi-bulk reply from its start.
+	 * <p>
+	 * Not thread safe.
+	 */
+	public static final class Framer {
+		/** bytes of the current reply (from its start) framed so far */
+		private int		framed = 0;
+		/** number of elements of the current reply yet to be framed */
+		private long	remaining = 1;
+
+		/**
+		 * Frames the reply starting at off, continuing from the state of the previous 
+		 * call if that returned -1.  The reply must start at the same byte of the data 
+		 * on each call, though the buffer (and off) may change, e.g. on compaction.
+		 * @param buff
+		 * @param off start of the reply
+		 * @param len number of bytes available in buff from off
+		 * @return the length of the complete reply (including the final CRLF), or -1 if 
+		 * more bytes are required.
+		 * @throws ProviderException on protocol errors
+		 */
+		public int frame (byte[] buff, int off, int len) throws ProviderException {
+			final int end = off + len;
+			int pos = off + framed;
+			while(remaining > 0) {
+				int eol = pos;
+				while(true) {
+					if(eol + 1 >= end) return -1;
+					if(buff[eol] == ProtocolBase.CRLF[0] && buff[eol+1] == ProtocolBase.CRLF[1]) break;
+					eol++;
+				}
+				if(eol == pos) throw new ProviderException ("Bug? Empty reply line");
+				final byte ctlByte = buff[pos];
+				final int linelen = eol - pos;
+				int next = eol + ProtocolBase.CRLF_LEN;
+				long count = 0;
+				switch (ctlByte) {
+					case ProtocolBase.OK_BYTE:
+					case ProtocolBase.ERR_BYTE:
+					case ProtocolBase.NUM_BYTE:
+						break;
+					case ProtocolBase.SIZE_BYTE: {
+						final int size = Convert.toInt(buff, eol - linelen + 1, linelen - 1);
+						if(size >= 0) {
+							if(end - next < size + ProtocolBase.CRLF_LEN) return -1;
+							next += size + ProtocolBase.CRLF_LEN;
+						}
+						break;
+					}
+					case ProtocolBase.COUNT_BYTE:
+						count = Convert.toInt(buff, eol - linelen + 1, linelen - 1);
+						break;
+					default:
+						throw new ProviderException ("Bug? Unexpected reply type byte: " + ctlByte);
+				}
+				// the element is complete
+				pos = next;
+				framed = pos - off;
+				remaining--;
+				if(count > 0) remaining += count;
+			}
+			final int length = framed;
+			reset();
+			return length;
+		}
+
+		/** Discards the state of a partially framed reply. */
+		public void reset () {
+			framed = 0;
+			remaining = 1;
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** shared data of the most common status replies */
+	private static final byte[]		OK_DATA = "OK".getBytes();
+	private static final byte[]		QUEUED_DATA = "QUEUED".getBytes();
+
+	/** used to read lines from streams other than {@link FastBufferedInputStream} */
+	private static final int		LINE_BUFFER_SIZE = 64;
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private Type		type;
+
+	/** NUMBER value, or, the BULK length or MULTI_BULK count (-1 if nil) */
+	private long		number;
+
+	/** STATUS or ERROR line (sans type byte), or BULK data (null if nil) */
+	private byte[]		data;
+
+	/** MULTI_BULK elements -- nodes [0, number) are valid */
+	private Reply[]		elements;
+
+	/** line buffer for non-{@link FastBufferedInputStream}s */
+	private byte[]		line;
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/** @return the type of the reply */
+	public Type getType () { return type; }
+
+	/** @return true if this is an error reply */
+	public boolean isError () { return type == Type.ERROR; }
+
+	/** @return true if this is the +QUEUED status reply to a command of a transaction */
+	public boolean isQueued () { return type == Type.STATUS && data == QUEUED_DATA; }
+
+	/** @return true if this is a nil bulk or nil multi-bulk reply */
+	public boolean isNil () { return (type == Type.BULK || type == Type.MULTI_BULK) && number < 0; }
+
+	/** @return the value of a NUMBER reply, or the length (count) of the BULK (MULTI_BULK) reply */
+	public long getNumber () { return number; }
+
+	/**
+	 * @return the STATUS or ERROR message (sans the type byte), or the BULK data.
+	 * The array may be shared and must not be modified.
+	 */
+	public byte[] getData () { return data; }
+
+	/** @return number of elements of a MULTI_BULK reply; 0 for all other types */
+	public int size () { return type == Type.MULTI_BULK && number > 0 ? (int) number : 0; }
+
+	/**
+	 * @param i
+	 * @return the i-th element of a MULTI_BULK reply
+	 */
+	public Reply get (int i) {
+		if(i < 0 || i >= size()) throw new IndexOutOfBoundsException("index: " + i + " size: " + size());
+		return elements[i];
+	}
+
+	/**
+	 * Reads a complete reply from the stream.
+	 * @param in
+	 * @return this
+	 * @throws ClientRuntimeException on io errors
+	 * @throws ProviderException on protocol errors
+	 */
+	public Reply read (InputStream in) throws ClientRuntimeException, ProviderException {
+		try {
+			if(in instanceof FastBufferedInputStream)
+				read ((FastBufferedInputStream) in);
+			else
+				readSlow (in);
+		}
+		catch (SocketException e) {
+			throw new ConnectionReset("SocketException reading reply", e);
+		}
+		catch (IOException e) {
+			throw new ClientRuntimeException ("IOException reading reply", e);
+		}
+		return this;
+	}
+
+	/**
+	 * Determines if a complete reply (including all nested elements of multi-bulk 
+	 * replies) is available in the buffer, without decoding it.
+	 * @param buff
+	 * @param off start of the reply
+	 * @param len number of bytes available in buff from off
+	 * @return the length of the complete reply (including the final CRLF), or -1 if 
+	 * more bytes are required.
+	 * @throws ProviderException on protocol errors
+	 * @see Framer
+	 */
+	public static int frameLength (byte[] buff, int off, int len) throws ProviderException {
+		return new Framer().frame(buff, off, len);
+	}
+
+	/**
+	 * Drops the references to the data of the reply (and its elements), so that a 
+	 * retained (e.g. pooled) instance does not keep reply data reachable.  Element 
+	 * nodes are kept for reuse.
+	 */
+	void clear () {
+		if(type == Type.MULTI_BULK && null != elements) {
+			final int count = (int) Math.min(number, elements.length);
+			for(int i=0; i<count; i++)
+				elements[i].clear();
+		}
+		type = null;
+		number = 0;
+		data = null;
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	/**
+	 * Decodes the reply lines in place in the buffered window of the stream.
+	 */
+	private void read (FastBufferedInputStream in) throws IOException {
+		final int len = in.seekCRLF();
+		if(len < 1) {
+			if(len == -1) throw new UnexpectedEOFException ("Unexpected EOF (read -1) reading reply");
+			throw new ProviderException ("Bug? Empty reply line");
+		}
+		final byte[] window = in.array();
+		final int pos = in.position();
+		try {
+			decodeLine (window, pos, len);
+		}
+		finally {
+			in.consume(len + ProtocolBase.CRLF_LEN);
+		}
+		readBody (in);
+	}
+
+	/**
+	 * Reads the reply lines byte at a time.
+	 */
+	private void readSlow (InputStream in) throws IOException {
+		if(null == line) line = new byte[LINE_BUFFER_SIZE];
+		int len = 0;
+		int c;
+		while((c = in.read()) != -1) {
+			if(len == line.length) line = Arrays.copyOf(line, len * 2);
+			line[len++] = (byte) c;
+			if(len > 1 && line[len-2] == ProtocolBase.CRLF[0] && line[len-1] == ProtocolBase.CRLF[1])
+				break;
+		}
+		if(c == -1) throw new UnexpectedEOFException ("Unexpected EOF (read -1) reading reply");
+		if(len < 3) throw new ProviderException ("Bug? Empty reply line");
+		decodeLine (line, 0, len - ProtocolBase.CRLF_LEN);
+		readBody (in);
+	}
+
+	/**
+	 * Sets the type and header values of the reply per the reply line.
+	 * @param buff
+	 * @param off start of line
+	 * @param len length of line, not including CRLF
+	 */
+	private void decodeLine (byte[] buff, int off, int len) {
+		final byte ctlByte = buff[off];
+		data = null;
+		number = 0;
+		switch (ctlByte) {
+			case ProtocolBase.OK_BYTE:
+				type = Type.STATUS;
+				data = copyStatus(buff, off+1, len-1);
+				break;
+			case ProtocolBase.ERR_BYTE:
+				type = Type.ERROR;
+				data = Arrays.copyOfRange(buff, off+1, off+len);
+				break;
+			case ProtocolBase.NUM_BYTE:
+				type = Type.NUMBER;
+				number = Convert.toLong(buff, off+1, len-1);
+				break;
+			case ProtocolBase.SIZE_BYTE:
+				type = Type.BULK;
+				number = Convert.toInt(buff, off+1, len-1);
+				break;
+			case ProtocolBase.COUNT_BYTE:
+				type = Type.MULTI_BULK;
+				number = Convert.toInt(buff, off+1, len-1);
+				break;
+			default:
+				throw new ProviderException ("Bug? Unexpected reply type byte: " + ctlByte);
+		}
+	}
+
+	/**
+	 * Reads the bulk data, or the elements of a multi-bulk reply.
+	 */
+	private void readBody (InputStream in) throws IOException {
+		if(type == Type.BULK && number >= 0) {
+			final int length = (int) number;
+			data = new byte[length];
+			int offset = 0;
+			int readcnt;
+			while(offset < length){
+				if((readcnt = in.read (data, offset, length-offset)) == -1)
+					throw new UnexpectedEOFException ("Unexpected EOF (read -1) reading bulk data");
+				offset += readcnt;
+			}
+			for(int i=0; i<ProtocolBase.CRLF_LEN; i++){
+				if (in.read() == -1)
+					throw new UnexpectedEOFException ("Unexpected EOF (read -1) reading bulk data CRLF");
+			}
+		}
+		else if(type == Type.MULTI_BULK && number > 0) {
+			final int count = (int) number;
+			if(null == elements || elements.length < count) {
+				Reply[] newelements = new Reply[count];
+				if(null != elements)
+					System.arraycopy(elements, 0, newelements, 0, elements.length);
+				elements = newelements;
+			}
+			for(int i=0; i<count; i++){
+				if(null == elements[i]) elements[i] = new Reply();
+				elements[i].read(in);
+			}
+		}
+	}
+
+	private static byte[] copyStatus (byte[] buff, int off, int len) {
+		if(matches(buff, off, len, OK_DATA)) return OK_DATA;
+		if(matches(buff, off, len, QUEUED_DATA)) return QUEUED_DATA;
+		return Arrays.copyOfRange(buff, off, off+len);
+	}
+
+	private static boolean matches (byte[] buff, int off, int len, byte[] data) {
+		if(len != data.length) return false;
+		for(int i=0; i<len; i++)
+			if(buff[off+i] != data[i]) return false;
+		return true;
+	}
+}
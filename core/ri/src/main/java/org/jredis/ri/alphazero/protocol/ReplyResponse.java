@@ -0,0 +1,219 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.jredis.ClientRuntimeException;
+import org.jredis.ProviderException;
+import org.jredis.protocol.BulkDataView;
+import org.jredis.protocol.BulkResponse;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.protocol.ResponseStatus;
+import org.jredis.protocol.StatusResponse;
+import org.jredis.protocol.ValueResponse;
+
+/**
+ * A single {@link org.jredis.protocol.Response} class for all (non-virtual)
+ * reply types.  The reply is decoded into a {@link Reply} per its actual type,
+ * and the {@link Command#responseType} of the command is only used when
+ * converting the reply to the typed values of the response interfaces.
+ * <p>
+ * Nested replies (e.g. {@link Command#EXEC}) are accessed via {@link ReplyResponse#getReply()}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 16, 2011
+ * @since   alpha.0
+ *
+ */
+public class ReplyResponse extends ResponseSupport implements StatusResponse, ValueResponse, BulkResponse, MultiBulkResponse {
+
+	/** the decoded reply */
+	private final Reply reply;
+
+	/** the pool this response is released to -- null if not pooled */
+	private final ReplyResponsePool pool;
+
+	/**
+	 * @param cmd
+	 */
+	public ReplyResponse (Command cmd) {
+		this (cmd, new Reply());
+	}
+	/**
+	 * @param cmd
+	 * @param reply the (possibly reused) reply structure to read into
+	 */
+	public ReplyResponse (Command cmd, Reply reply) {
+		this (cmd, reply, null);
+	}
+	/**
+	 * @param cmd
+	 * @param pool the pool this response is returned to on {@link ReplyResponse#release()}
+	 */
+	ReplyResponse (Command cmd, ReplyResponsePool pool) {
+		this (cmd, new Reply(), pool);
+	}
+	private ReplyResponse (Command cmd, Reply reply, ReplyResponsePool pool) {
+		super(cmd, typeOf(cmd));
+		this.reply = reply;
+		this.pool = pool;
+	}
+
+	/**
+	 * Creates the response of a command from its (previously read) reply -- e.g. the responses
+	 * of the commands of a transaction, from the elements of the {@link Command#EXEC} reply.
+	 * @param cmd
+	 * @param reply the reply of the command
+	 * @return the response
+	 */
+	public static ReplyResponse forReply (Command cmd, Reply reply) {
+		final ReplyResponse response = new ReplyResponse(cmd, reply);
+		response.onRead();
+		return response;
+	}
+
+	/**
+	 * Prepares the (shared) instance for reading the response to the command.
+	 * @param cmd
+	 */
+	protected void reset (Command cmd) {
+		this.cmd = cmd;
+		this.type = typeOf(cmd);
+		this.didRead = false;
+		this.isError = false;
+		this.status = null;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: Message
+	// ------------------------------------------------------------------------
+	@Override
+	public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+		if(didRead) return;
+
+		reply.read(in);
+		onRead();
+	}
+
+	/** sets the status per the (read) reply */
+	private void onRead () {
+		if(isError = reply.isError())
+			status = new ResponseStatus(ResponseStatus.Code.ERROR, new String(reply.getData()));
+		else
+			status = ResponseStatus.STATUS_OK;
+		didRead = true;
+	}
+
+	/**
+	 * Returns a pooled response to its pool.  The caller must not use the response 
+	 * (or its {@link Reply}) after this call.  Values previously obtained from the 
+	 * response remain valid.  Has no effect if the response is not pooled.
+	 */
+	public void release () {
+		if(null == pool) return;
+		reply.clear();
+		status = null;
+		pool.release(this);
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: typed conversions
+	// ------------------------------------------------------------------------
+	/**
+	 * @return the decoded reply.
+	 */
+	public Reply getReply () {
+		assertResponseRead();
+		return reply;
+	}
+
+	@Override
+	public boolean getBooleanValue() throws IllegalStateException {
+		return getLongValue() == 1;
+	}
+
+	@Override
+	public long getLongValue() throws IllegalStateException {
+		assertReplyType(Reply.Type.NUMBER);
+		return reply.getNumber();
+	}
+
+	@Override
+	public String getStringValue() throws IllegalStateException {
+		assertResponseRead();
+		if(reply.getType() != Reply.Type.STATUS && reply.getType() != Reply.Type.BULK)
+			throw new IllegalStateException ("Reply type is " + reply.getType().name() + " not " + Reply.Type.STATUS.name());
+		return reply.getData() != null ? new String(reply.getData()) : null;
+	}
+
+	@Override
+	public byte[] getBulkData() {
+		assertReplyType(Reply.Type.BULK);
+		return reply.getData();
+	}
+
+	@Override
+	public List<byte[]> getMultiBulkData() throws ClientRuntimeException, ProviderException {
+		assertReplyType(Reply.Type.MULTI_BULK);
+		if(reply.isNil()) return null;
+
+		final int count = reply.size();
+		List<byte[]> datalist = new ArrayList<byte[]>(count);
+		for(int i=0; i<count; i++)
+			datalist.add(reply.get(i).getData());
+		return datalist;
+	}
+
+	@Override
+	public BulkDataView getBulkDataView() throws ClientRuntimeException, ProviderException {
+		assertResponseRead();
+		switch (reply.getType()){
+			case BULK:
+				return new ListBulkDataView(Collections.singletonList(reply.getData()));
+			case MULTI_BULK:
+				List<byte[]> datalist = getMultiBulkData();
+				return datalist != null ? new ListBulkDataView(datalist) : null;
+			default:
+				throw new IllegalStateException ("Reply type is " + reply.getType().name() + " not " + Reply.Type.BULK.name());
+		}
+	}
+
+	// ------------------------------------------------------------------------
+	// Inner ops
+	// ------------------------------------------------------------------------
+	private void assertReplyType (Reply.Type expected) {
+		assertResponseRead();
+		if(reply.getType() != expected)
+			throw new IllegalStateException ("Reply type is " + reply.getType().name() + " not " + expected.name());
+	}
+
+	private static Type typeOf (Command cmd) {
+		switch (cmd.responseType) {
+			case BULK: 			return Type.Bulk;
+			case MULTI_BULK:
+			case RESULT_SET: 	return Type.MultiBulk;
+			case STATUS:
+			case QUEUED:
+			case VIRTUAL:		return Type.Status;
+			default:			return Type.Value;
+		}
+	}
+}
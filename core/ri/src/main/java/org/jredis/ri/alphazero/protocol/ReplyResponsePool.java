@@ -0,0 +1,91 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.protocol.Command;
+
+/**
+ * A thread-safe free list of {@link ReplyResponse}s.  Responses are acquired by the
+ * (single) thread reading the responses of a connection, and are released by the
+ * consumers of the responses via {@link ReplyResponse#release()}, typically once the
+ * value of the response has been converted.  Responses that are never released are
+ * simply garbage collected.
+ * <p>
+ * The pool retains at most <code>maxPooled</code> free responses.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 17, 2011
+ * @since   alpha.0
+ *
+ */
+final class ReplyResponsePool {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** free responses */
+	private final Queue<ReplyResponse>	free = new ConcurrentLinkedQueue<ReplyResponse>();
+
+	/** number of responses in {@link ReplyResponsePool#free} */
+	private final AtomicInteger			freeCnt = new AtomicInteger(0);
+
+	/** max number of retained responses */
+	private final int					maxPooled;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param maxPooled maximum number of free responses retained
+	 */
+	ReplyResponsePool (int maxPooled) {
+		this.maxPooled = maxPooled;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @param cmd
+	 * @return a pooled response, reset for the command, if available; otherwise a new
+	 * response bound to this pool.
+	 */
+	ReplyResponse acquire (Command cmd) {
+		ReplyResponse response = free.poll();
+		if(response != null) {
+			freeCnt.decrementAndGet();
+			response.reset(cmd);
+			return response;
+		}
+		return new ReplyResponse(cmd, this);
+	}
+
+	/**
+	 * Returns the response to the pool.
+	 * @param response
+	 */
+	void release (ReplyResponse response) {
+		if(freeCnt.incrementAndGet() > maxPooled) {
+			freeCnt.decrementAndGet();
+			return;
+		}
+		free.offer(response);
+	}
+}
@@ -17,18 +17,22 @@
 package org.jredis.ri.alphazero.protocol;
 
 //import java.io.BufferedInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.SocketException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NoSuchElementException;
 import org.jredis.ClientRuntimeException;
 import org.jredis.ProviderException;
 import org.jredis.connector.ConnectionReset;
+import org.jredis.protocol.BulkDataView;
 import org.jredis.protocol.BulkResponse;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.MultiBulkResponse;
+import org.jredis.protocol.MultiBulkStream;
+import org.jredis.protocol.MultiBulkStreamResponse;
 import org.jredis.protocol.Protocol;
 import org.jredis.protocol.Request;
 import org.jredis.protocol.Response;
@@ -36,7 +40,9 @@ import org.jredis.protocol.ResponseStatus;
 import org.jredis.protocol.StatusResponse;
 import org.jredis.protocol.ValueResponse;
 import org.jredis.ri.alphazero.connection.UnexpectedEOFException;
+import org.jredis.ri.alphazero.support.BufferPool;
 import org.jredis.ri.alphazero.support.Convert;
+import org.jredis.ri.alphazero.support.FastBufferedInputStream;
 import org.jredis.ri.alphazero.support.Log;
 
 
@@ -57,34 +63,75 @@ public class SyncProtocol extends ProtocolBase {
 	/** Preferred size of request data buffer */
 	protected static final int			PREFERRED_REQUEST_BUFFER_SIZE	= 1024 * 48;
 	
+	/** Request data buffers grown beyond this size (for large values) are not retained */
+	protected static final int			MAX_RETAINED_REQUEST_BUFFER_SIZE	= 1024 * 1024;
+	
+	/** Default size of request arguments that are written by reference instead of copied to the request buffer */
+	public static final int				DEFAULT_GATHER_WRITE_THRESHOLD = 1024 * 16;
+	
 	/** Initial size of the shared line buffer */
 	protected static final int			PREFERRED_LINE_BUFFER_SIZE = 128;
 	
 	/**  */
 	protected static final int			INPUT_STREAM_BUFFER_SIZE = 1024 * 128;
 	
+	/** Initial size of pooled bulk data view buffers */
+	protected static final int			PREFERRED_BULK_VIEW_BUFFER_SIZE = 1024 * 16;
+	
+	/** Pooled bulk data view buffers larger than this are not retained */
+	protected static final int			MAX_POOLED_BULK_VIEW_BUFFER_SIZE = 1024 * 1024;
+	
+	/** Max number of pooled bulk data view buffers retained */
+	protected static final int			MAX_POOLED_BULK_VIEW_BUFFERS = 16;
+	
 	// ------------------------------------------------------------------------
 	// SyncConnection's can use the same buffers again and again and ...
 	// ------------------------------------------------------------------------
 	
 	/** Shared by <b>all</b> {@link Request} instances of this <b>non-thread-safe</b> {@link Protocol} implementation. */
-	private final ByteArrayOutputStream sharedRequestBuffer;
-
-	/** Shared {@link Request} instance of this <b>non-thread-safe</b> {@link Protocol} implementation. */
-	private final StreamBufferRequest   sharedRequestObject;
+	private final ByteBufferRequest sharedRequestBuffer;
 
 	/** Shared by <b>all</b> {@link Response} instances of this <b>non-thread-safe</b> {@link Protocol} implementation. */
 	private final byte[]	sharedResponseBuffer;
+	
+	/** if true, bulk data is read into pooled buffers and exposed via {@link BulkDataView}s */
+	protected final boolean	useBulkViews;
+	
+	/** Pool of buffers used for {@link BulkDataView}s -- null if not {@link SyncProtocol#useBulkViews} */
+	private final BufferPool bulkViewPool;
 
 	// ------------------------------------------------------------------------
 	// Constructor(s)
 	// ------------------------------------------------------------------------
 	
 	public SyncProtocol() {
-		sharedRequestBuffer = new ByteArrayOutputStream (PREFERRED_REQUEST_BUFFER_SIZE);
-		sharedRequestObject = new StreamBufferRequest (sharedRequestBuffer);
+		this (false);
+	}
+	
+	/**
+	 * @param useBulkViews if true, bulk data is read into pooled buffers and 
+	 * the {@link BulkResponse} and {@link MultiBulkResponse}s data arrays are
+	 * only created on demand.
+	 * @see BulkDataView
+	 */
+	public SyncProtocol(boolean useBulkViews) {
+		this (useBulkViews, DEFAULT_GATHER_WRITE_THRESHOLD);
+	}
+	
+	/**
+	 * @param useBulkViews
+	 * @param gatherWriteThreshold request arguments of this size or larger are not 
+	 * copied to the request buffer, and are written directly from the caller's array.
+	 * @see SyncProtocol#SyncProtocol(boolean)
+	 * @see ByteBufferRequest
+	 */
+	public SyncProtocol(boolean useBulkViews, int gatherWriteThreshold) {
+		sharedRequestBuffer = new ByteBufferRequest (PREFERRED_REQUEST_BUFFER_SIZE, MAX_RETAINED_REQUEST_BUFFER_SIZE, false, gatherWriteThreshold);
 		sharedResponseBuffer = new byte [PREFERRED_LINE_BUFFER_SIZE];
-
+		this.useBulkViews = useBulkViews;
+		this.bulkViewPool = useBulkViews ? 
+				new BufferPool(PREFERRED_BULK_VIEW_BUFFER_SIZE, MAX_POOLED_BULK_VIEW_BUFFER_SIZE, MAX_POOLED_BULK_VIEW_BUFFERS) : 
+				null;
 	}
 	
 	// ------------------------------------------------------------------------
@@ -94,18 +141,17 @@ public class SyncProtocol extends ProtocolBase {
 	 * @param cmd {@link Command} for this request - potentially useful for 
 	 * optimizing buffers.
 	 * 
-	 * @return the shared instance of {@link ByteArrayOutputStream} that
+	 * @return the shared (reset) instance of {@link ByteBufferRequest} that
 	 * is used <b>by all requests</b> created by this {@link Protocol} implementation.
 	 */
 	@Override
-	protected ByteArrayOutputStream createRequestBufffer(Command cmd) {
-		sharedRequestBuffer.reset();
-		return sharedRequestBuffer;
+	protected ByteBufferRequest createRequestBufffer(Command cmd) {
+		drainActiveStream();
+		return sharedRequestBuffer.reset();
 	}
 	
-	protected Request createRequest (ByteArrayOutputStream buffer) {
-//		sharedRequestObject.reset(buffer);
-		return sharedRequestObject;
+	protected Request createRequest (ByteBufferRequest buffer) {
+		return buffer;
 	}
 
 	SyncLineResponse cache_syncLineResponse = null;
@@ -170,6 +216,37 @@ public class SyncProtocol extends ProtocolBase {
 		return cache_syncMultiBulkResponse;
 	}
 	
+	ReplyResponse cache_replyResponse = null;
+	@Override
+	protected Response createReplyResponse(Command cmd) {
+		if(null == cache_replyResponse)
+			cache_replyResponse = new ReplyResponse(cmd);
+		else
+			cache_replyResponse.reset(cmd);
+		return cache_replyResponse;
+	}
+	
+	/** the last lazily read {@link MultiBulkStream} -- must be drained before the next request */
+	SyncMultiBulkStreamResponse activeStream = null;
+	@Override
+	protected Response createMultiBulkStreamResponse(Command cmd) {
+		drainActiveStream();
+		activeStream = new SyncMultiBulkStreamResponse(sharedResponseBuffer, cmd, true);
+		return activeStream;
+	}
+	
+	/**
+	 * Drains the unread elements (if any) of the last streamed multi-bulk reply,
+	 * so that the connection stream is positioned at the next reply.
+	 */
+	protected final void drainActiveStream () {
+		if(null != activeStream) {
+			SyncMultiBulkStreamResponse stream = activeStream;
+			activeStream = null;
+			stream.close();
+		}
+	}
+	
 	// ------------------------------------------------------------------------
 	// Inner Type
 	// ========================================================================
@@ -226,17 +303,22 @@ public class SyncProtocol extends ProtocolBase {
 			int c = -1;
 			int available = buffer.length;
 			try {
-				while ((c = in.read(buffer, offset, 1)) != -1) {
-					offset += c; 
-					available -= c;
-					if(offset > 2 && buffer[offset-2]==(byte)13 && buffer[offset-1]==(byte)10){
-						break;  // we're done
-					}
-					if(available == 0) {
-						byte[] newbuff = new byte[buffer.length * 2];
-						System.arraycopy(buffer, 0, newbuff, 0, buffer.length);
-						buffer = newbuff;
-						available = buffer.length - offset;
+				if(in instanceof FastBufferedInputStream) {
+					c = copyLine ((FastBufferedInputStream) in);
+				}
+				else {
+					while ((c = in.read(buffer, offset, 1)) != -1) {
+						offset += c; 
+						available -= c;
+						if(offset > 2 && buffer[offset-2]==(byte)13 && buffer[offset-1]==(byte)10){
+							break;  // we're done
+						}
+						if(available == 0) {
+							byte[] newbuff = new byte[buffer.length * 2];
+							System.arraycopy(buffer, 0, newbuff, 0, buffer.length);
+							buffer = newbuff;
+							available = buffer.length - offset;
+						}
 					}
 				}
 				if(c == -1) {
@@ -257,6 +339,30 @@ public class SyncProtocol extends ProtocolBase {
 				throw new ClientRuntimeException ("IOException in readLine.  Command: " + cmd.code, e);
 			}
 		}
+		
+		/**
+		 * Locates the line in the buffered window of the stream with a single scan and
+		 * copies it (including the CRLF) to the response buffer, growing the latter
+		 * if necessary.  Sets offset to the length of the copied line.
+		 * @param in
+		 * @return -1 on EOF, otherwise the number of bytes copied.
+		 * @throws IOException
+		 */
+		final int copyLine (FastBufferedInputStream in) throws IOException {
+			final int len = in.seekCRLF();
+			if(len == -1) return -1;
+			
+			final int linelen = len + CRLF_LEN;
+			if(linelen > buffer.length) {
+				int size = buffer.length * 2;
+				while(size < linelen) size *= 2;
+				buffer = new byte[size];
+			}
+			System.arraycopy(in.array(), in.position(), buffer, 0, linelen);
+			in.consume(linelen);
+			offset = linelen;
+			return linelen;
+		}
 	}
 	// ------------------------------------------------------------------------
 	// Inner Type
@@ -324,6 +430,11 @@ public class SyncProtocol extends ProtocolBase {
 //			BufferedInputStream bin = new BufferedInputStream(in, 1024 * 48);
 //			super.readSingleLineResponse (bin);
 
+			if(flavor == ValueType.NUMBER64 && in instanceof FastBufferedInputStream){
+				readNumberLine ((FastBufferedInputStream) in);
+				didRead = true;
+				return;
+			}
 			super.readSingleLineResponse (in);
 			didRead = true;
 
@@ -345,6 +456,44 @@ public class SyncProtocol extends ProtocolBase {
 				}
 			}
 		}
+		
+		/**
+		 * Parses the number reply in place in the buffered window of the stream,
+		 * without copying the line to the response buffer.
+		 * @param in
+		 */
+		private void readNumberLine (FastBufferedInputStream in) {
+			offset = 0;
+			try {
+				final int len = in.seekCRLF();
+				if(len == -1) {
+					Log.error("-1 read count in readLine() while reading response line.");
+					throw new UnexpectedEOFException ("Unexpected EOF (read -1) in readLine.  Command: " + cmd.code);
+				}
+				final byte[] window = in.array();
+				final int    pos = in.position();
+				try {
+					if((this.isError = window[pos] == ProtocolBase.ERR_BYTE) == true) {
+						status = new ResponseStatus(ResponseStatus.Code.ERROR, new String(window, pos+1, len-1));
+					}
+					else {
+						status = ResponseStatus.STATUS_OK;
+						longValue = Convert.toLong (window, pos+1, len-1);
+					}
+				}
+				finally {
+					in.consume(len + CRLF_LEN);
+				}
+			}
+			catch (SocketException e) {
+				// on connection reset
+				throw new ConnectionReset("SocketException in readLine.  Command: " + cmd.code, e);
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+				throw new ClientRuntimeException ("IOException in readLine.  Command: " + cmd.code, e);
+			}
+		}
 	}	
 	// ------------------------------------------------------------------------
 	// Inner Type
@@ -400,6 +549,9 @@ public class SyncProtocol extends ProtocolBase {
 		 * @return
 		 */
 		int readControlLine (InputStream in, boolean checkForError, byte ctlByte){
+			if(in instanceof FastBufferedInputStream)
+				return readControlLine ((FastBufferedInputStream) in, checkForError, ctlByte);
+			
 			seekToCRLF(in);
 			if(checkForError && (this.isError = buffer[0] == ProtocolBase.ERR_BYTE) == true) {
 				status = new ResponseStatus(ResponseStatus.Code.ERROR, new String(buffer, 1, offset-3));
@@ -412,6 +564,44 @@ public class SyncProtocol extends ProtocolBase {
 			status = ResponseStatus.STATUS_OK;
 			return Convert.toInt (buffer, 1, offset-3);
 		}
+		
+		/**
+		 * Parses the control line in place in the buffered window of the stream,
+		 * without copying it to the response buffer.
+		 * @param in
+		 * @param checkForError
+		 * @param ctlByte
+		 * @return
+		 */
+		private int readControlLine (FastBufferedInputStream in, boolean checkForError, byte ctlByte){
+			int len = -1;
+			try {
+				len = in.seekCRLF();
+			}
+			catch (IOException e) {
+				e.printStackTrace();
+				throw new ClientRuntimeException ("IOEx while reading line for command " + cmd.code, e);
+			}
+			if(len==-1) throw new ClientRuntimeException ("in.read returned -1");
+			
+			final byte[] window = in.array();
+			final int    pos = in.position();
+			try {
+				if(checkForError && (this.isError = window[pos] == ProtocolBase.ERR_BYTE) == true) {
+					status = new ResponseStatus(ResponseStatus.Code.ERROR, new String(window, pos+1, len-1));
+					didRead = true;  // we're done - error's are only one line
+					return -2;
+				}
+				if(window[pos] != ctlByte) {
+					throw new ProviderException ("Bug?  Expecting status code for size/count");
+				}
+				status = ResponseStatus.STATUS_OK;
+				return Convert.toInt (window, pos+1, len-1);
+			}
+			finally {
+				in.consume(len + CRLF_LEN);
+			}
+		}
 
 		/**
 		 * Will read up expected bulkdata bytes from the input stream.  Routine will
@@ -436,6 +626,31 @@ public class SyncProtocol extends ProtocolBase {
 				if((readcnt = in.read (data, offset, length-offset)) ==-1 ) throw new ClientRuntimeException("IO - read returned -1 -- problem");
 				offset += readcnt;
 			}
+			consumeCRLF(in);
+			return data;
+		}
+		
+		/**
+		 * Reads the bulk data into the pooled {@link BulkDataView}, including the 
+		 * trailing CRLF. 
+		 * @param in the stream to read from.
+		 * @param view
+		 * @param length expected bulk data length (NOT including the trailing CRLF), or -1 for nil.
+		 * @throws IOException
+		 */
+		final void readBulkData (InputStream in, PooledBulkDataView view, int length) 
+			throws IOException, RuntimeException
+		{
+			view.append(in, length);
+			if(length >= 0) consumeCRLF(in);
+		}
+		
+		/**
+		 * Consumes the CRLF terminating bulk data.
+		 * @param in
+		 * @throws IOException
+		 */
+		private final void consumeCRLF (InputStream in) throws IOException {
 			// FIX: http://github.com/alphazero/jredis/issues#issue/5 -- BEGIN
 			for(int i=0; i<CRLF_LEN; i++){
 				if (in.read() == -1){
@@ -446,7 +661,6 @@ public class SyncProtocol extends ProtocolBase {
 //				throw new RuntimeException ("Only read " + readcnt + " bytes for CRLF!");
 //			}
 			// http://github.com/alphazero/jredis/issues#issue/5 -- END
-			return data;
 		}
 	}
 	// ------------------------------------------------------------------------
@@ -456,6 +670,9 @@ public class SyncProtocol extends ProtocolBase {
 	public class SyncBulkResponse extends SyncMultiLineResponseBase implements BulkResponse {
 		/**  */
 		byte[] data = null;
+		
+		/** non-null if bulk data was read into a pooled buffer */
+		PooledBulkDataView view = null;
 
 		/**
 		 * Uses the sharedResponseBuffer for reading of the response control line.
@@ -472,13 +689,27 @@ public class SyncProtocol extends ProtocolBase {
 		protected void reset (Command cmd){
 			super.reset(cmd, Type.Bulk);
 			this.data = null;
+			if(null != view) {
+				view.release();
+				view = null;
+			}
 		}
 
 		@Override
 		public byte[] getBulkData() {
 			assertResponseRead();
+			if(null == data && null != view)
+				data = view.copy(0);
 			return data;
 		}
+		
+		@Override
+		public BulkDataView getBulkDataView() {
+			assertResponseRead();
+			if(null != view) 
+				return view;
+			return new ListBulkDataView(Collections.singletonList(data));
+		}
 
 		@Override
 		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
@@ -489,7 +720,13 @@ public class SyncProtocol extends ProtocolBase {
 
 			if(!status.isError() && size >= 0){
 				try {
-					data = super.readBulkData(in, size);
+					if(useBulkViews) {
+						view = new PooledBulkDataView(bulkViewPool, 1, size);
+						super.readBulkData(in, view, size);
+					}
+					else {
+						data = super.readBulkData(in, size);
+					}
 				}
 				catch (IllegalArgumentException bug){ 
 					throw new ProviderException ("Bug: in converting the bulk data length bytes", bug);
@@ -514,6 +751,9 @@ public class SyncProtocol extends ProtocolBase {
 		/**  */
 		List<byte[]>   datalist;
 		
+		/** non-null if bulk data was read into a pooled buffer */
+		PooledBulkDataView view = null;
+		
 		/**
 		 * @param cmd
 		 */
@@ -528,13 +768,33 @@ public class SyncProtocol extends ProtocolBase {
 		protected void reset (Command cmd){
 			super.reset(cmd, Type.Bulk);
 			this.datalist = null;
+			if(null != view) {
+				view.release();
+				view = null;
+			}
 		}
 
 		@Override
 		public List<byte[]> getMultiBulkData() throws ClientRuntimeException, ProviderException {
 			assertResponseRead();
+			if(null == datalist && null != view) {
+				final int count = view.size();
+				datalist = new ArrayList<byte[]>(count);
+				for(int i=0; i<count; i++)
+					datalist.add(view.copy(i));
+			}
 			return datalist;
 		}
+		
+		@Override
+		public BulkDataView getBulkDataView() throws ClientRuntimeException, ProviderException {
+			assertResponseRead();
+			if(null != view) 
+				return view;
+			if(null == datalist)
+				return null;
+			return new ListBulkDataView(datalist);
+		}
 
 		@Override
 		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
@@ -543,7 +803,23 @@ public class SyncProtocol extends ProtocolBase {
 //			BufferedInputStream bin = new BufferedInputStream(in, 1024);
 			int count = super.readControlLine (in, true, COUNT_BYTE);
 			
-			if(!status.isError() && count >= 0){
+			if(!status.isError() && count >= 0 && useBulkViews){
+				view = new PooledBulkDataView(bulkViewPool, count, PREFERRED_BULK_VIEW_BUFFER_SIZE);
+				try {
+					for(int i=0;i<count; i++)
+						super.readBulkData(in, view, readControlLine(in, false, SIZE_BYTE));
+				}
+				catch (IllegalArgumentException bug){ 
+					throw new ProviderException ("Bug: in converting the bulk data length bytes", bug);
+				}
+				catch (IOException problem) {
+					throw new ClientRuntimeException ("Problem: reading the bulk data bytes", problem);
+				}
+				catch (RuntimeException bug) {
+					throw new ProviderException ("Bug: reading the multibulk data bytes.", bug);
+				}
+			}
+			else if(!status.isError() && count >= 0){
 				datalist = new ArrayList<byte[]>(count);
 				try {
 					int size = -1;
@@ -570,4 +846,111 @@ public class SyncProtocol extends ProtocolBase {
 			return;
 		}
 	}
+	// ------------------------------------------------------------------------
+	// Inner Type
+	// ============================================================ Response(s)
+	// ------------------------------------------------------------------------
+	/**
+	 * Multi-bulk response that only reads the reply count on {@link SyncMultiBulkStreamResponse#read(InputStream)}.
+	 * If lazy, elements are read from the stream on {@link SyncMultiBulkStreamResponse#next()}; 
+	 * otherwise, all elements are read (as with {@link SyncMultiBulkResponse}) and iterated from memory.  
+	 * Lazy streams are only safe on connections that serialize requests through a single 
+	 * thread (e.g. {@link SyncProtocol}); concurrent protocols must use eager streams.
+	 *
+	 * @author  Joubin Houshyar (alphazero@sensesay.net)
+	 * @version alpha.0, Jan 14, 2011
+	 * @since   alpha.0
+	 *
+	 */
+	public class SyncMultiBulkStreamResponse extends SyncMultiLineResponseBase implements MultiBulkStreamResponse, MultiBulkStream {
+		
+		/** if false, all elements are read on {@link SyncMultiBulkStreamResponse#read(InputStream)} */
+		private final boolean lazy;
+		
+		/** the stream elements are (lazily) read from */
+		private InputStream	in;
+		
+		/** eagerly read elements */
+		private List<byte[]> datalist;
+		
+		/** reply element count */
+		private int count;
+		
+		/** number of elements iterated */
+		private int cursor;
+
+		public SyncMultiBulkStreamResponse(byte[] buff, Command cmd, boolean lazy) {
+			super (buff, cmd, Type.MultiBulk);
+			this.lazy = lazy;
+		}
+
+		@Override
+		public void read(InputStream in) throws ClientRuntimeException, ProviderException {
+			if(didRead) return;
+			
+			count = super.readControlLine (in, true, COUNT_BYTE);
+			if(status.isError() || count < 0) {
+				count = 0;
+			}
+			else if(lazy) {
+				this.in = in;
+			}
+			else {
+				datalist = new ArrayList<byte[]>(count);
+				for(int i=0;i<count; i++)
+					datalist.add(readElement(in));
+			}
+			didRead = true;
+		}
+		
+		private byte[] readElement (InputStream in) {
+			try {
+				int size = readControlLine(in, false, SIZE_BYTE);
+				return size >= 0 ? super.readBulkData(in, size) : null;
+			}
+			catch (IllegalArgumentException bug){ 
+				throw new ProviderException ("Bug: in converting the bulk data length bytes", bug);
+			}
+			catch (IOException problem) {
+				throw new ClientRuntimeException ("Problem: reading the bulk data bytes", problem);
+			}
+		}
+		
+		@Override
+		public MultiBulkStream getMultiBulkStream() {
+			assertResponseRead();
+			return this;
+		}
+		
+		// ------------------------------------------------------------------------
+		// Interface: MultiBulkStream
+		// ------------------------------------------------------------------------
+		@Override
+		public int size() { return count; }
+		
+		@Override
+		public boolean hasNext() { return cursor < count; }
+		
+		@Override
+		public byte[] next() {
+			if(cursor >= count) throw new NoSuchElementException();
+			
+			byte[] data = lazy ? readElement(in) : datalist.set(cursor, null);
+			if(++cursor == count) 
+				in = null;
+			return data;
+		}
+		
+		@Override
+		public void remove() {
+			throw new UnsupportedOperationException("MultiBulkStream does not support remove.");
+		}
+		
+		@Override
+		public void close() throws ClientRuntimeException {
+			while(cursor < count)
+				next();
+			datalist = null;
+		}
+	}
 }
@@ -0,0 +1,103 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A simple thread-safe pool of <code>byte[]</code> buffers.  Buffers may be
+ * acquired and released by different threads.  Buffers that are not released
+ * are simply garbage collected, so callers that retain a buffer indefinitely do
+ * not compromise the pool.
+ * <p>
+ * The pool retains at most <code>maxPooled</code> buffers, and will not retain
+ * buffers larger than <code>maxBufferSize</code>, so that a few oversized reads
+ * do not permanently inflate the memory footprint.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 12, 2011
+ * @since   alpha.0
+ *
+ */
+public final class BufferPool {
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	/** free buffers */
+	private final Queue<byte[]>	free = new ConcurrentLinkedQueue<byte[]>();
+
+	/** number of buffers in {@link BufferPool#free} */
+	private final AtomicInteger	freeCnt = new AtomicInteger(0);
+
+	/** size of newly allocated buffers */
+	private final int			bufferSize;
+
+	/** buffers larger than this are not retained */
+	private final int			maxBufferSize;
+
+	/** max number of retained buffers */
+	private final int			maxPooled;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param bufferSize initial size of buffers allocated by the pool
+	 * @param maxBufferSize released buffers larger than this are discarded
+	 * @param maxPooled maximum number of free buffers retained
+	 */
+	public BufferPool (int bufferSize, int maxBufferSize, int maxPooled) {
+		this.bufferSize = bufferSize;
+		this.maxBufferSize = maxBufferSize;
+		this.maxPooled = maxPooled;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface
+	// ------------------------------------------------------------------------
+	/**
+	 * @param minSize minimum required size of the buffer
+	 * @return a pooled buffer if available, or a new buffer of at least minSize.
+	 */
+	public byte[] acquire (int minSize) {
+		byte[] buffer = free.poll();
+		if(buffer != null) {
+			freeCnt.decrementAndGet();
+			if(buffer.length >= minSize)
+				return buffer;
+		}
+		return new byte[Math.max(bufferSize, minSize)];
+	}
+
+	/**
+	 * Returns the buffer to the pool.  The caller must not use the buffer after
+	 * this call.
+	 * @param buffer
+	 */
+	public void release (byte[] buffer) {
+		if(buffer == null || buffer.length > maxBufferSize)
+			return;
+		if(freeCnt.incrementAndGet() > maxPooled) {
+			freeCnt.decrementAndGet();
+			return;
+		}
+		free.offer(buffer);
+	}
+}
@@ -42,6 +42,23 @@ public class Convert {
 	private static final int	MAX_POSITIVE_32_BIT_DIGITS	= 10;
 	private static final int	MAX_POSITIVE_64_BIT_DIGITS	= 19;
 	
+	private static final byte	    BYTE_DOT = (byte) '.';
+	private static final byte	    BYTE_E = (byte) 'e';
+	private static final byte[]	    INF = {(byte)'i', (byte)'n', (byte)'f'};
+	private static final byte[]	    INFINITY = {(byte)'i', (byte)'n', (byte)'f', (byte)'i', (byte)'n', (byte)'i', (byte)'t', (byte)'y'};
+	
+	/** 
+	 * max significant digits of a decimal mantissa that is exactly representable as a double (2^53) -- 
+	 * numbers with more digits are handed to {@link Double#parseDouble(String)}
+	 */
+	private static final int	MAX_EXACT_DOUBLE_DIGITS		= 15;
+	
+	/** exactly representable powers of 10 */
+	private static final double[] POW10 = {
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 
+		1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
 	// ------------------------------------------------------------------------
 	// public Interface
 	// ------------------------------------------------------------------------
@@ -198,27 +215,135 @@ public class Convert {
 	}
 	
 	/**
-	 * TODO: optimize.
-	 * @param potentiallySignedBytes
+	 * @param stringRepOfDoublePrecisionBytes
 	 * @return
 	 * @throws IllegalArgumentException
+	 * @see Convert#toDouble(byte[], int, int)
 	 */
 	public static final double toDouble (byte[] stringRepOfDoublePrecisionBytes) throws IllegalArgumentException
 	{
-		double dnum = 0;
 		if(null == stringRepOfDoublePrecisionBytes) throw new IllegalArgumentException ("null input");
-		try {
-			dnum = Double.parseDouble(new String(stringRepOfDoublePrecisionBytes));
+		return toDouble(stringRepOfDoublePrecisionBytes, 0, stringRepOfDoublePrecisionBytes.length);
+	}
+	
+	/**
+	 * Converts the byte[]s of the ASCII representation of a decimal floating point number, as 
+	 * sent by Redis, to a double -- including the (case-insensitive) '<b>inf</b>' and '<b>-inf</b>'
+	 * representations of infinity.
+	 * <p>
+	 * Numbers with no more than {@link Convert#MAX_EXACT_DOUBLE_DIGITS} significant digits and
+	 * a small enough exponent (e.g. integral scores, or "12.75") are converted directly from the bytes 
+	 * with a single (correctly rounded) multiplication or division.  All other representations (e.g.
+	 * the 17 digit "%.17g" format of non-trivial fractions) are delegated to {@link Double#parseDouble(String)}.  
+	 * 
+	 * @param stringRepOfDoublePrecisionBytes
+	 * @param offset
+	 * @param len
+	 * @return
+	 * @throws IllegalArgumentException if the bytes are not a valid representation of a double
+	 */
+	public static final double toDouble (byte[] stringRepOfDoublePrecisionBytes, int offset, int len) throws IllegalArgumentException
+	{
+		final byte[] buff = stringRepOfDoublePrecisionBytes; 
+		if(null == buff) throw new IllegalArgumentException ("Null input");
+		if(len < 1 || offset + len > buff.length) throw new IllegalArgumentException ("buffer length of " + buff.length + " less than the spec'd offset + len " + (offset + len));
+		
+		final int end = offset + len;
+		int p = offset;
+		boolean negative = false;
+		final byte bs = buff[p];
+		if(bs ==BYTE_MINUS || bs == BYTE_PLUS){
+			if(bs == BYTE_MINUS) negative = true;
+			p++;
 		}
-		catch (Exception e){
-			throw new IllegalArgumentException("", e);
+		if(matchesIgnoreCase(buff, p, end, INF) || matchesIgnoreCase(buff, p, end, INFINITY))
+			return negative ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+		
+		// mantissa digits, noting the position of the decimal point
+		long mantissa = 0;
+		int digitCnt = 0;
+		int significantCnt = 0;
+		int scale = 0;
+		boolean fraction = false;
+		for(; p < end; p++){
+			final byte b = buff[p];
+			if(b >= BYTE_ZERO && b <= BYTE_NINE){
+				digitCnt++;
+				if(mantissa != 0 || b != BYTE_ZERO) {
+					if(++significantCnt > MAX_EXACT_DOUBLE_DIGITS) 
+						return parseDouble (buff, offset, len);
+					mantissa = mantissa*10 + b - BYTE_ZERO;
+				}
+				if(fraction) scale--;
+			}
+			else if(b == BYTE_DOT && !fraction){
+				fraction = true;
+			}
+			else {
+				break;
+			}
+		}
+		if(digitCnt == 0) 
+			return parseDouble (buff, offset, len);
+		
+		// optional exponent
+		if(p < end){
+			if((buff[p] | 0x20) != BYTE_E || ++p == end) 
+				return parseDouble (buff, offset, len);
+			boolean negativeExp = false;
+			if(buff[p] == BYTE_MINUS || buff[p] == BYTE_PLUS){
+				negativeExp = buff[p] == BYTE_MINUS;
+				if(++p == end) 
+					return parseDouble (buff, offset, len);
+			}
+			int exp = 0;
+			for(; p < end; p++){
+				final byte b = buff[p];
+				if(b < BYTE_ZERO || b > BYTE_NINE || exp > POW10.length) 
+					return parseDouble (buff, offset, len);
+				exp = exp*10 + b - BYTE_ZERO;
+			}
+			scale += negativeExp ? -exp : exp;
 		}
-		return dnum;
+		
+		double value;
+		if(mantissa == 0) 
+			value = 0;
+		else if(scale >= 0 && scale < POW10.length)
+			value = mantissa * POW10[scale];
+		else if(scale < 0 && -scale < POW10.length)
+			value = mantissa / POW10[-scale];
+		else 
+			return parseDouble (buff, offset, len);
+		
+		return negative ? -value : value;
 	}
 	
 	// ------------------------------------------------------------------------
 	// Inner ops
 	// ------------------------------------------------------------------------
+	/**
+	 * The slow path of {@link Convert#toDouble(byte[], int, int)}.
+	 */
+	private static final double parseDouble (byte[] buff, int offset, int len) throws IllegalArgumentException {
+		try {
+			return Double.parseDouble(new String(buff, offset, len));
+		}
+		catch (Exception e){
+			throw new IllegalArgumentException("That's not a double!", e);
+		}
+	}
+	
+	/**
+	 * @return true if buff[offset, end) is the (lowercase) ASCII word, ignoring case.
+	 */
+	private static final boolean matchesIgnoreCase (byte[] buff, int offset, int end, byte[] word) {
+		if(end - offset != word.length) return false;
+		for(int i=0; i<word.length; i++){
+			if((buff[offset+i] | 0x20) != word[i]) return false;
+		}
+		return true;
+	}
 	/**
 	 * @param unsigned
 	 * @return
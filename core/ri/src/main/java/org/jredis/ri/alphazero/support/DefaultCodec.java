@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.jredis.JRedis;
+import org.jredis.protocol.BulkDataView;
 import org.jredis.semantics.KeyCodec;
 
 /**
@@ -158,6 +159,21 @@ public class DefaultCodec {
 		return list;
 	}
 
+	/**
+	 * Decodes the elements of the view in place, without boxing or copying them.
+	 * @param view the bulk data of a (numeric) multi-bulk reply
+	 * @return the numbers, with '<b>nil</b>' elements decoded as 0, or null if view is null
+	 * @throws IllegalArgumentException if an element is not a number
+	 */
+	public static final long[] toLongs (BulkDataView view) {
+		if(null == view) return null;
+		final long[] numbers = new long[view.size()];
+		for(int i=0; i<numbers.length; i++)
+			if(!view.isNull(i)) 
+				numbers[i] = Convert.toLong(view.array(i), view.offset(i), view.length(i));
+		return numbers;
+	}
+
 	/**
      * @param bs bytes of the ascii string representation of a double number. E.g. "2.002".getBytes()
      * @return
@@ -172,6 +188,20 @@ public class DefaultCodec {
 		return list;
 	}
 
+	/**
+	 * Decodes the elements of the view in place, without boxing or copying them.
+	 * @param view the bulk data of a (numeric) multi-bulk reply
+	 * @return the numbers, with '<b>nil</b>' elements decoded as {@link Double#NaN}, or null if view is null
+	 * @throws IllegalArgumentException if an element is not a number
+	 */
+	public static final double[] toDoubles (BulkDataView view) {
+		if(null == view) return null;
+		final double[] numbers = new double[view.size()];
+		for(int i=0; i<numbers.length; i++)
+			numbers[i] = view.isNull(i) ? Double.NaN : Convert.toDouble(view.array(i), view.offset(i), view.length(i));
+		return numbers;
+	}
+
 	/**
 	 * This helper method will assume the List<byte[]> being presented is the list returned
 	 * from a {@link JRedis} method such as {@link JRedis#smembers(String)}, and that this
@@ -16,23 +16,29 @@ import org.jredis.ProviderException;
  */
 public final class FastBufferedInputStream extends java.io.InputStream {
 
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	private static final byte CR = (byte) 13;
+	private static final byte LF = (byte) 10;
+
 	// ------------------------------------------------------------------------
 	// Properties
 	// ------------------------------------------------------------------------
-	/** data buffer (cache) */
+	/** 
+	 * data buffer (cache) -- fixed capacity, and only grown if a single line
+	 * exceeds its size.  Bulk payloads larger than the buffer are read directly
+	 * into the caller's array. 
+	 */
 	private byte[] buffer;
 
 	/** current (read) offset of {@link FastBufferedInputStream#buffer} */
 	private int   offset = 0;
 
-	/** 
-	 * underlying input stream read buffer -- the size of this buffer determines the
-	 * maximum bytes read  
-	 */
-	final 
-	private byte[] iobuffer;;
+	/** end (exclusive) of valid data in {@link FastBufferedInputStream#buffer} */
+	private int   limit = 0;
 
-	/** underying input stream */
+	/** underying input stream -- null if reading a {@link FastBufferedInputStream#wrap(byte[], int, int)}ed array */
 	final
 	private InputStream in;
 
@@ -41,13 +47,22 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 	// ------------------------------------------------------------------------
 	/**
 	 * @param in the input source
-	 * @param bufferSize size of the {@link FastBufferedInputStream#iobuffer}
+	 * @param bufferSize size of the {@link FastBufferedInputStream#buffer}
 	 * 
 	 */
 	public FastBufferedInputStream (InputStream in, int bufferSize) {
 		this.in = in;
-		buffer = new byte [0];
-		iobuffer = new byte[bufferSize];
+		buffer = new byte[bufferSize];
+	}
+	
+	/**
+	 * Creates a stream without an underlying input source, to be used to read 
+	 * arrays in place.
+	 * @see FastBufferedInputStream#wrap(byte[], int, int)
+	 */
+	public FastBufferedInputStream () {
+		this.in = null;
+		buffer = new byte[0];
 	}
 
 	// ------------------------------------------------------------------------
@@ -56,32 +71,45 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 	/**
 	 * Get more bytes from the underling {@link InputStream}.  
 	 * Only reads from input source if len exceeds available data in 
-	 * {@link FastBufferedInputStream#buffer}.
+	 * {@link FastBufferedInputStream#buffer}.  Compacts the buffer (resets offset 
+	 * to 0) if there is insufficient room at its tail, and grows it only if len 
+	 * exceeds its capacity.
 	 * <p>
-	 * This call will block until (minimally) len bytes have been read.
+	 * This call will block until (minimally) len bytes are available.
 	 * 
 	 * @param len
+	 * @return number of bytes read from the underlying stream, or -1 on EOF.
 	 * @throws IOException if a read on the underlying stream returns 0 length bytes.
 	 * This (obviously) shouldn't happen but if it does, it would be treated as an exception.
 	 */
 	private final int getMoreBytes (int len) throws IOException {
-
+		int available = limit - offset;
+		if(len <= available) return 0;
+		if(null == in) return -1;
+		
+		if(len > buffer.length - offset) {
+			if(len > buffer.length) {
+				byte[] newbuffer = new byte[Math.max(len, buffer.length * 2)];
+				System.arraycopy(buffer, offset, newbuffer, 0, available);
+				buffer = newbuffer;
+			}
+			else if(available > 0) {
+				System.arraycopy(buffer, offset, buffer, 0, available);
+			}
+			offset = 0;
+			limit = available;
+		}
+		
 		// hit the date source until we have enough bytes
-		// compact (reset offset to 0) on first copy
 		int rlen = 0;
-		while (len > buffer.length - offset) {
-			int c = in.read(iobuffer, 0, iobuffer.length);
+		while (len > limit - offset) {
+			int c = in.read(buffer, limit, buffer.length - limit);
 			if(c==-1) {
 				return -1;
 			}
 			else if(c > 0){
-				int bufflen = buffer.length - offset;
-				rlen+=c;
-				byte[] newbuffer = new byte[bufflen + c];
-				System.arraycopy(buffer, offset, newbuffer, 0, bufflen);
-				System.arraycopy(iobuffer, 0, newbuffer, bufflen, c);
-				offset = 0;
-				buffer = newbuffer;
+				limit += c;
+				rlen += c;
 			}
 			else {// should never happen per contract of inputstream ...
 				Log.bug (String.format("ZERO! <= %d\n", c));
@@ -91,6 +119,74 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 		return rlen;
 	}
 
+	// ------------------------------------------------------------------------
+	// Extension: buffered window access
+	// ------------------------------------------------------------------------
+	/**
+	 * Scans the buffered window for the next CRLF sequence, reading more bytes
+	 * from the underlying stream only if the buffered data does not contain one.
+	 * The window is <b>not</b> consumed -- the line can then be parsed in place
+	 * using {@link FastBufferedInputStream#array()} and 
+	 * {@link FastBufferedInputStream#position()} and finally skipped using
+	 * {@link FastBufferedInputStream#consume(int)}.
+	 * <p>
+	 * This call will block until a CRLF is buffered or EOF is reached.
+	 * 
+	 * @return the length of the line (NOT including the trailing CRLF) starting
+	 * at {@link FastBufferedInputStream#position()}, or -1 on EOF.
+	 * @throws IOException
+	 */
+	public final int seekCRLF () throws IOException {
+		int i = 0;
+		while(true) {
+			final int scanlimit = limit - offset - 1;
+			for(; i < scanlimit; i++){
+				if(buffer[offset+i] == CR && buffer[offset+i+1] == LF) 
+					return i;
+			}
+			if(getMoreBytes (limit - offset + 1) == -1)
+				return -1;
+		}
+	}
+	
+	/**
+	 * @return the current data buffer.  Valid only until the next read or 
+	 * {@link FastBufferedInputStream#seekCRLF()} call on this stream.
+	 */
+	public final byte[] array () { return buffer; }
+	
+	/**
+	 * @return the read offset of the first unconsumed byte in {@link FastBufferedInputStream#array()}
+	 */
+	public final int position () { return offset; }
+	
+	/**
+	 * Consumes (skips) buffered bytes.  
+	 * @param len number of bytes to consume.  Must not exceed {@link FastBufferedInputStream#available()}
+	 */
+	public final void consume (int len) {
+		if(len < 0 || len > limit - offset)
+			throw new ProviderException ("Bug: consume len " + len + " exceeds buffered bytes " + (limit - offset));
+		offset += len;
+	}
+
+	/**
+	 * Sets the stream to read the region of the array in place, e.g. a complete 
+	 * reply already received in the buffer of a non-blocking connection.  Only 
+	 * valid for streams created without an underlying input source; reads past
+	 * the region return EOF (-1).
+	 * @param data
+	 * @param off
+	 * @param len
+	 */
+	public final void wrap (byte[] data, int off, int len) {
+		if(null != in)
+			throw new IllegalStateException ("stream has an underlying input source");
+		buffer = data;
+		offset = off;
+		limit = off + len;
+	}
+
 	// ------------------------------------------------------------------------
 	// Interface: InputStream
 	// ------------------------------------------------------------------------
@@ -101,39 +197,56 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 	 * to the extent that <b>call will block</b> on the underlying {@link InputStream} 
 	 * until it gets all the <code>len</code> bytes specified.
 	 * <p>
-	 * Also, this call will return -1 if and only if it (a) needs to get more 
-	 * data by calling {@link FastBufferedInputStream#getMoreBytes(int)},
-	 * and (b) that call returns -1.  Note that it is possible, in a general 
-	 * context, that -1 is returned but there is previously accumulated data in 
-	 * {@link FastBufferedInputStream#buffer} and thus 
-	 * {@link FastBufferedInputStream#available()} returns a non zero positive 
-	 * integer which is less than specified <b>len</b>.  But that is not expected
+	 * Buffered bytes are copied first.  If the remainder is not smaller than the 
+	 * buffer capacity (e.g. large bulk payloads) it is read directly from the 
+	 * underlying stream into <code>b</code>, bypassing the buffer.
+	 * <p>
+	 * Also, this call will return -1 if and only if it needs to get more 
+	 * data from the underlying stream and that stream returns -1.  Note that 
+	 * it is possible, in a general context, that -1 is returned after some bytes
+	 * have been copied into <code>b</code>.  But that is not expected
 	 * in the specific context of Redis protocol.
 	 * 
 	 * @see java.io.InputStream#read(byte[], int, int)
 	 */
-	int maxRead = 0;
 	@Override
 	public int read (byte[] b, int off, int len) throws IOException {
-		if (off < 0 || off >= b.length || len < 0 || off + len > b.length) {
+		if (off < 0 || len < 0 || off + len > b.length) {
 			throw new ArrayIndexOutOfBoundsException();
 		}
-		int available = buffer.length - offset;
-		if(len > available) {
-			int c = getMoreBytes (len);  // this is a potentially blocking call
-			if(c==-1) return -1;
-			else if(c < len - available) 
-				throw new ProviderException ("Bug: getMoreBytes() returned less bytes than requested.  c="+c+" len=" + len + "available=" + available);
-		}
-
-		if(len == 1){
-			b[off] = buffer[offset];
-		}
-		else {
+		int available = limit - offset;
+		if(len <= available) {
 			System.arraycopy(buffer, offset, b, off, len);
+			offset += len;
+			return len;
 		}
+		
+		if(null == in) return -1;
+		
+		// drain the buffer ..
+		System.arraycopy(buffer, offset, b, off, available);
+		offset = limit = 0;
+		int remaining = len - available;
+		int pos = off + available;
+		
+		// .. and read the rest directly if too big to buffer
+		if(remaining >= buffer.length) {
+			while(remaining > 0) {
+				int c = in.read(b, pos, remaining);
+				if(c==-1) return -1;
+				pos += c;
+				remaining -= c;
+			}
+			return len;
+		}
+		
+		int c = getMoreBytes (remaining);  // this is a potentially blocking call
+		if(c==-1) return -1;
+		else if(c < remaining) 
+			throw new ProviderException ("Bug: getMoreBytes() returned less bytes than requested.  c="+c+" len=" + len + "available=" + available);
 
-		offset += len;
+		System.arraycopy(buffer, offset, b, pos, remaining);
+		offset += remaining;
 		return len;
 	}
 	
@@ -144,7 +257,7 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 	 */
 	@Override
 	public int available () throws IOException {
-		return buffer.length - offset;
+		return limit - offset;
 	}
 
 	/**
@@ -165,9 +278,8 @@ public final class FastBufferedInputStream extends java.io.InputStream {
 	 */
 	@Override
 	public int read () throws IOException { 
-		byte[] b = new byte[1];
-		int c = read(b, 0, 1);
-		if(c == -1) return -1;
-		return (int) b[0];
+		if(offset == limit && getMoreBytes(1) == -1) 
+			return -1;
+		return buffer[offset++] & 0xFF;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,161 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded, array-backed, lock-free FIFO queue for exactly one producer and one
+ * consumer at a time.  (Multiple producers must serialize their calls to
+ * {@link RingQueue#put(Object)} -- e.g. the pipeline's service lock.)
+ * <p>
+ * Slots are addressed by the (ever increasing) sequence numbers of the producer
+ * (tail) and the consumer (head).  The consumer waits for elements by spinning,
+ * then yielding, and finally parking until the producer unparks it.  A producer
+ * finding the queue full yields/parks briefly until a slot is freed.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 19, 2011
+ * @since   alpha.0
+ *
+ */
+public final class RingQueue<E> {
+
+	// ------------------------------------------------------------------------
+	// Constants
+	// ------------------------------------------------------------------------
+	/** number of busy checks before the consumer yields -- spinning is pointless on uniprocessors */
+	private static final int	SPIN_TRIES = Runtime.getRuntime().availableProcessors() > 1 ? 128 : 0;
+
+	/** number of yields before the consumer parks */
+	private static final int	YIELD_TRIES = 16;
+
+	/** producer park duration when the queue is full */
+	private static final long	FULL_PARK_NANOS = 1000 * 10;
+
+	// ------------------------------------------------------------------------
+	// Properties
+	// ------------------------------------------------------------------------
+	private final Object[]		slots;
+
+	private final int			mask;
+
+	/** sequence of the next element to take -- written by consumer only */
+	private volatile long		head = 0;
+
+	/** sequence of the next element to put -- written by producer only */
+	private volatile long		tail = 0;
+
+	/** the parked (or about to park) consumer, or null */
+	private volatile Thread		waiter;
+
+	// ------------------------------------------------------------------------
+	// Constructor
+	// ------------------------------------------------------------------------
+	/**
+	 * @param capacity rounded up to the next power of 2.
+	 */
+	public RingQueue (int capacity) {
+		if(capacity < 1 || capacity > (1 << 30)) throw new IllegalArgumentException("capacity: " + capacity);
+		int size = Integer.highestOneBit(capacity);
+		if(size < capacity) size <<= 1;
+		slots = new Object[size];
+		mask = size - 1;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: producer
+	// ------------------------------------------------------------------------
+	/**
+	 * Adds the element, waiting for a free slot if the queue is full.
+	 * @param e
+	 * @throws InterruptedException if interrupted while waiting for a free slot
+	 */
+	public void put (E e) throws InterruptedException {
+		if(null == e) throw new NullPointerException();
+		final long t = tail;
+		int tries = 0;
+		while(t - head >= slots.length) {
+			if(++tries < YIELD_TRIES) Thread.yield();
+			else LockSupport.parkNanos(FULL_PARK_NANOS);
+			if(Thread.interrupted()) throw new InterruptedException();
+		}
+		slots[(int) t & mask] = e;
+		tail = t + 1;
+		final Thread consumer = waiter;
+		if(null != consumer)
+			LockSupport.unpark(consumer);
+	}
+
+	/**
+	 * @return true if a {@link RingQueue#put(Object)} would wait.  (Producer use only.)
+	 */
+	public boolean isFull () {
+		return tail - head >= slots.length;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: consumer
+	// ------------------------------------------------------------------------
+	/**
+	 * @return the head element, or null if empty.
+	 */
+	@SuppressWarnings("unchecked")
+	public E poll () {
+		final long h = head;
+		if(h == tail) return null;
+		final int i = (int) h & mask;
+		E e = (E) slots[i];
+		slots[i] = null;
+		head = h + 1;
+		return e;
+	}
+
+	/**
+	 * Takes the head element, waiting (spin, yield, park) if empty.
+	 * @return the head element
+	 * @throws InterruptedException
+	 */
+	public E take () throws InterruptedException {
+		E e;
+		int tries = 0;
+		while((e = poll()) == null) {
+			if(Thread.interrupted()) throw new InterruptedException();
+			if(++tries < SPIN_TRIES) continue;
+			if(tries < SPIN_TRIES + YIELD_TRIES) { Thread.yield(); continue; }
+
+			waiter = Thread.currentThread();
+			if(head == tail)	// re-check after announcing the wait
+				LockSupport.park(this);
+			waiter = null;
+		}
+		return e;
+	}
+
+	// ------------------------------------------------------------------------
+	// Interface: either side
+	// ------------------------------------------------------------------------
+	/** @return number of elements (a snapshot) */
+	public int size () {
+		return (int) (tail - head);
+	}
+
+	/** @return capacity of the queue */
+	public int capacity () {
+		return slots.length;
+	}
+}
@@ -28,13 +28,19 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedisFuture;
+import org.jredis.ListenableFuture;
 import org.jredis.ObjectInfo;
 import org.jredis.Query;
 import org.jredis.RedisException;
 import org.jredis.RedisType;
+import org.jredis.ResultListener;
 import org.jredis.ZSetEntry;
 import org.jredis.protocol.Command;
 import org.jredis.protocol.ResponseStatus;
@@ -193,6 +199,43 @@ public abstract class JRedisFutureProviderTestsBase extends JRedisTestSuiteBase<
 		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
 	}
 
+	@Test
+	public void testListeners() throws InterruptedException {
+		cmd = "listeners: " + Command.INCR.code;
+		Log.log("TEST: %s", cmd);
+
+		provider.flushdb();
+		String key = keys.get(0);
+
+		final CountDownLatch completed = new CountDownLatch(MEDIUM_CNT + 1);
+		final AtomicLong sum = new AtomicLong();
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		ResultListener<Long> listener = new ResultListener<Long>() {
+			public void onResult (Long result) { sum.addAndGet(result); completed.countDown(); }
+			public void onError (Throwable cause) { error.set(cause); completed.countDown(); }
+		};
+		try {
+			for(int i=0; i<MEDIUM_CNT; i++)
+				ListenableFuture.Support.listenable(provider.incr(key)).addListener(listener);
+			provider.set(keys.get(1), dataList.get(1));
+			Future<Long> incrError = provider.incr(keys.get(1));
+			try {
+				incrError.get();
+				fail("expected a RedisException for " + Command.INCR + " on a non-integer value");
+			}
+			catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RedisException);
+			}
+			// added once done, the listener is called immediately
+			ListenableFuture.Support.listenable(incrError).addListener(listener);
+		}
+		catch (ClientRuntimeException e) {  fail(cmd + " Runtime ERROR => " + e.getLocalizedMessage(), e);  }
+
+		assertTrue(completed.await(10, TimeUnit.SECONDS), "listeners were not notified");
+		assertEquals(sum.get(), (long) MEDIUM_CNT * (MEDIUM_CNT + 1) / 2);
+		assertTrue(error.get() instanceof RedisException);
+	}
+
 	@Test
 	public void testScard() throws InterruptedException {
 		cmd = Command.SCARD.code + " Java Object";
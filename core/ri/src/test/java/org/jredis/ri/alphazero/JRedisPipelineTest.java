@@ -16,7 +16,12 @@
 
 package org.jredis.ri.alphazero;
 
+import static org.jredis.ri.alphazero.support.DefaultCodec.toLong;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.jredis.ClientRuntimeException;
 import org.jredis.JRedisFuture;
 import org.jredis.connector.ConnectionSpec;
@@ -73,6 +78,45 @@ public class JRedisPipelineTest extends JRedisFutureProviderTestsBase {
 	 */
 	// ------------------------------------------------------------------------
 
+	/**
+	 * Requests of the {@link JRedisPipeline#noReply()} view are counted, and their error
+	 * replies reported, by {@link JRedisPipeline#awaitNoReplies()}.
+	 */
+	@Test
+	public void testNoReplyRequests() throws InterruptedException, ExecutionException {
+		Log.log("TEST: noReply | awaitNoReplies");
+		JRedisPipeline pipeline = (JRedisPipeline) getProviderInstance();
+		JRedisFuture loader = pipeline.noReply();
+
+		pipeline.flushdb();
+		for(int i=0; i<MEDIUM_CNT; i++)
+			loader.incr(keys.get(0));
+		loader.set(keys.get(1), dataList.get(1));
+		loader.incr(keys.get(1));
+		Future<Long> incrError = loader.incr(keys.get(1));
+		assertEquals(pipeline.awaitNoReplies(), 2);
+		assertEquals(toLong(pipeline.get(keys.get(0)).get()).longValue(), MEDIUM_CNT);
+
+		// the futures of no-reply requests have no responses
+		assertTrue(incrError.isDone());
+		try {
+			incrError.get();
+			fail("expected an ExecutionException for the future of a no-reply request");
+		}
+		catch (ExecutionException expected) { }
+
+		// errors are reported once
+		loader.incr(keys.get(0));
+		assertEquals(pipeline.awaitNoReplies(), 0);
+		assertEquals(toLong(pipeline.get(keys.get(0)).get()).longValue(), MEDIUM_CNT + 1);
+
+		try {
+			loader.quit();
+			fail("expected an IllegalArgumentException for a no-reply QUIT");
+		}
+		catch (IllegalArgumentException expected) { }
+	}
+
 	/**
 	 * Pipeline quit.  
 	 * We first ping and await the response to insure pipeline has processed
@@ -28,14 +28,26 @@ import static org.testng.Assert.fail;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import org.jredis.JRedis;
+import org.jredis.JRedisBatch;
+import org.jredis.JRedisTransaction;
+import org.jredis.KeyIterator;
+import org.jredis.ListenableFuture;
 import org.jredis.ObjectInfo;
 import org.jredis.Query;
 import org.jredis.RedisException;
 import org.jredis.RedisInfo;
 import org.jredis.RedisType;
+import org.jredis.ResultListener;
+import org.jredis.SliceConsumer;
+import org.jredis.ZSetEntries;
 import org.jredis.ZSetEntry;
 import org.jredis.protocol.Command;
 import org.jredis.ri.JRedisTestSuiteBase;
@@ -155,6 +167,68 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase<JRedis
 		} 
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
+	/**
+	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#batch()}.
+	 */
+	@Test
+	public void testBatch() {
+		cmd = "batch";
+		Log.log("TEST: %s", cmd);
+		try {
+			provider.flushdb();
+			provider.set(keys.get(1), dataList.get(1));
+
+			JRedisBatch batch = provider.batch();
+			Future<Long> incr = batch.incr(keys.get(0));
+			Future<Long> incrby = batch.incrby(keys.get(0), 10);
+			Future<byte[]> get = batch.get(keys.get(1));
+			Future<byte[]> getNone = batch.get(keys.get(2));
+			Future<Long> incrError = batch.incr(keys.get(1));
+			Future<Boolean> exists = batch.exists(keys.get(1));
+			assertEquals(batch.size(), 6);
+			assertFalse(incr.isDone());
+
+			// listeners of batched requests are notified on execute
+			final List<Object> notified = new ArrayList<Object>();
+			ListenableFuture.Support.listenable(incr).addListener(new ResultListener<Long>() {
+				public void onResult (Long result) { notified.add(result); }
+				public void onError (Throwable cause) { notified.add(cause); }
+			});
+			ListenableFuture.Support.listenable(incrError).addListener(new ResultListener<Long>() {
+				public void onResult (Long result) { notified.add(result); }
+				public void onError (Throwable cause) { notified.add(cause); }
+			});
+			assertTrue(notified.isEmpty());
+
+			batch.execute();
+			assertEquals(batch.size(), 0);
+			assertEquals(notified.size(), 2);
+			assertEquals(notified.get(0), 1L);
+			assertTrue(notified.get(1) instanceof RedisException);
+			assertEquals(incr.get().longValue(), 1);
+			assertEquals(incrby.get().longValue(), 11);
+			assertEquals(get.get(), dataList.get(1));
+			assertNull(getNone.get());
+			assertTrue(exists.get());
+			try {
+				incrError.get();
+				fail("expected a RedisException for " + Command.INCR + " on a non-integer value");
+			}
+			catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RedisException);
+			}
+
+			// executed batches are reusable
+			Future<Long> again = batch.incr(keys.get(0));
+			batch.execute();
+			assertEquals(again.get().longValue(), 12);
+			assertEquals(toLong(provider.get(keys.get(0))).longValue(), 12);
+		}
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (InterruptedException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (ExecutionException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
 	/**
 	 * Tests:
 	 * <li>Test method for {@link org.jredis.ri.alphazero.JRedisSupport#exists(java.lang.String)}.
@@ -1001,6 +1075,49 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase<JRedis
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
 
+	/**
+	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#mget(Object[], int)} and 
+	 * {@link org.jredis.ri.alphazero.JRedisSupport#mset(Map, int)}.
+	 */
+	@Test
+	public void testSlicedMgetMset() {
+		cmd = Command.MGET.code + " | " + Command.MSET.code + " (sliced)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+
+			Map<String, byte[]> mappings = new HashMap<String, byte[]>();
+			for(int i=0; i<MEDIUM_CNT; i++)
+				mappings.put(keys.get(i), dataList.get(i));
+			provider.mset(mappings, 7);
+			
+			String[] mgetKeys = keys.subList(0, MEDIUM_CNT).toArray(new String[MEDIUM_CNT]);
+			List<byte[]>  values = provider.mget(mgetKeys, 13);
+			assertEquals(values.size(), MEDIUM_CNT, "one value per key expected");
+			for(int i=0; i<MEDIUM_CNT; i++)
+				assertEquals(values.get(i), dataList.get(i));
+			
+			final List<byte[]> consumed = new ArrayList<byte[]>();
+			provider.mget(mgetKeys, MEDIUM_CNT / 3, new SliceConsumer<byte[]>() {
+				public void onSlice (int offset, List<byte[]> sliceValues) {
+					assertEquals(offset, consumed.size(), "slices expected in order");
+					consumed.addAll(sliceValues);
+				}
+			});
+			assertEquals(consumed.size(), MEDIUM_CNT, "one value per key expected");
+			for(int i=0; i<MEDIUM_CNT; i++)
+				assertEquals(consumed.get(i), dataList.get(i));
+			
+			boolean didRaiseEx = false;
+			try {
+				provider.mget(mgetKeys, 0);
+			}
+			catch (IllegalArgumentException e) {didRaiseEx = true;}
+			catch (Throwable whatsthis) { fail ("unexpected exception raised", whatsthis);}
+			if(!didRaiseEx){ fail ("Expected exception not raised."); }
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
 	
 	/**************** LIST COMMANDS ******************************/
 
@@ -2043,6 +2160,81 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase<JRedis
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
 	
+	@Test
+	public void testZrangeEntries() {
+		cmd = Command.ZRANGE$OPTS.code + " | " + Command.ZREVRANGE$OPTS.code + " | " + Command.ZRANGEBYSCORE$OPTS.code + " (entries)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			String setkey = keys.get(0);
+			for(int i=0;i<MEDIUM_CNT; i++)
+				assertTrue(provider.zadd(setkey, i, dataList.get(i)), "zadd of random element should be true");
+			
+			ZSetEntries entries = provider.zrangeEntries(setkey, 0, SMALL_CNT-1);
+			assertEquals(entries.size(), SMALL_CNT, "size of zrange entries");
+			for(int i=0;i<SMALL_CNT; i++){
+				assertEquals(entries.getValues()[i], dataList.get(i), "value of zrange entry");
+				assertEquals(entries.getScores()[i], (double)i, "score of zrange entry");
+			}
+			
+			entries = provider.zrevrangeEntries(setkey, 0, SMALL_CNT-1);
+			assertEquals(entries.size(), SMALL_CNT, "size of zrevrange entries");
+			for(int i=0;i<SMALL_CNT; i++){
+				assertEquals(entries.getValues()[i], dataList.get(MEDIUM_CNT-i-1), "value of zrevrange entry");
+				assertEquals(entries.getScores()[i], (double)MEDIUM_CNT-i-1, "score of zrevrange entry");
+			}
+			
+			entries = provider.zrangebyscoreEntries(setkey, 1, SMALL_CNT);
+			assertEquals(entries.size(), SMALL_CNT, "size of zrangebyscore entries");
+			for(int i=0;i<SMALL_CNT; i++)
+				assertEquals(entries.getScores()[i], (double)i+1, "score of zrangebyscore entry");
+			
+			assertEquals(provider.zrangeEntries("no-such-set", 0, SMALL_CNT).size(), 0, "entries of non-existent key should be empty");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+	
+	@Test
+	public void testNumericArrayResults() {
+		cmd = Command.MGET.code + " | " + Command.LRANGE.code + " (long[] | double[])";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			String listkey = keys.get(0);
+			for(int i=0; i<SMALL_CNT; i++){
+				provider.set(keys.get(i+1), longList.get(i));
+				provider.rpush(listkey, longList.get(i));
+			}
+			
+			String[] mgetKeys = keys.subList(1, SMALL_CNT+1).toArray(new String[SMALL_CNT]);
+			long[] longs = provider.mgetLongs(mgetKeys);
+			assertEquals(longs.length, SMALL_CNT, "one value per key expected");
+			for(int i=0; i<SMALL_CNT; i++)
+				assertEquals(longs[i], longList.get(i).longValue());
+			
+			double[] doubles = provider.mgetDoubles(mgetKeys);
+			for(int i=0; i<SMALL_CNT; i++)
+				assertEquals(doubles[i], (double) longList.get(i).longValue());
+			
+			longs = provider.mgetLongs("no-such-key", keys.get(1));
+			assertEquals(longs[0], 0, "nonexistent key value should be 0");
+			assertEquals(longs[1], longList.get(0).longValue());
+			assertTrue(Double.isNaN(provider.mgetDoubles("no-such-key")[0]), "nonexistent key value should be NaN");
+			
+			longs = provider.lrangeLongs(listkey, 0, -1);
+			assertEquals(longs.length, SMALL_CNT, "one value per element expected");
+			for(int i=0; i<SMALL_CNT; i++)
+				assertEquals(longs[i], longList.get(i).longValue());
+			
+			doubles = provider.lrangeDoubles(listkey, 0, -1);
+			for(int i=0; i<SMALL_CNT; i++)
+				assertEquals(doubles[i], (double) longList.get(i).longValue());
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+	
 	@Test
 	public void testZrevrangeWithscoresStringByteArray() {
 		cmd = Command.ZREVRANGE$OPTS.code + " byte[]";
@@ -3075,6 +3267,38 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase<JRedis
 		} 
 		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
 	}
+	/**
+	 * Test method for {@link org.jredis.ri.alphazero.JRedisSupport#keysIterator(Object, int)}.
+	 */
+	@Test
+	public void testKeysIterator() {
+		cmd = Command.SCAN.code + " | " + Command.KEYS.code + " (iterator)";
+		Log.log("TEST: %s command", cmd);
+		try {
+			provider.flushdb();
+			
+			for (int i=0; i<MEDIUM_CNT; i++)
+				provider.set(patternList.get(i), dataList.get(i));
+			provider.set(keys.get(0), dataList.get(0));
+
+			KeyIterator iterator = provider.keysIterator("*"+patternA+"*", SMALL_CNT);
+			Set<String> rediskeys = new HashSet<String>();
+			while(iterator.hasNext())
+				rediskeys.add(new String(iterator.next()));	// SCAN may return a key more than once
+			assertEquals(rediskeys.size(), MEDIUM_CNT, "size of iterated key set should be MEDIUM_CNT");
+			for(int i=0; i<MEDIUM_CNT; i++) 
+				assertTrue(rediskeys.contains(patternList.get(i)), "should contain " + patternList.get(i));
+			
+			iterator = provider.keysIterator("*", SMALL_CNT);
+			assertTrue(iterator.hasNext(), "should have keys");
+			iterator.next();
+			iterator.close();
+			assertFalse(iterator.hasNext(), "closed iterator should have no keys");
+			assertEquals(provider.get(keys.get(0)), dataList.get(0), "requests after close");
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
+
 	@Test
 	public void testEcho() {
 		cmd = Command.ECHO.code;
@@ -3111,33 +3335,55 @@ public abstract class JRedisProviderTestsBase extends JRedisTestSuiteBase<JRedis
 	// ========================================================================
 	/**
 	 * Test the basics of multi/exec/discard
-	 * TODO: requires supports() in JRedis.
 	 */
-//	@Test
-//	public void testMultiDiscardBasics() {
-//		cmd = Command.MULTI + " | " + Command.DISCARD + " | basics";
-//		Log.log("TEST: %s command", cmd);
-//		
-//		try {
-//			provider.flushdb();
-//		} 
-//		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
-//		
-//		try {
-//			provider.multi();
-//			provider.discard();
-//		} 
-//		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
-//		
-//		boolean didRaiseEx;
-//		didRaiseEx = false;
-//		try {
-//			provider.discard();
-//		}
-//		catch (IllegalArgumentException e) {didRaiseEx = true;}
-//		catch (Throwable whatsthis) { fail ("unexpected exception raised", whatsthis);}
-//		if(!didRaiseEx){ fail ("Expected exception not raised."); }
-//	}
+	@Test
+	public void testMultiExecDiscardBasics() {
+		cmd = Command.MULTI + " | " + Command.EXEC + " | " + Command.DISCARD + " | basics";
+		Log.log("TEST: %s command", cmd);
+		
+		try {
+			provider.flushdb();
+			provider.set(keys.get(1), dataList.get(1));
+
+			JRedisTransaction tx = provider.multi();
+			Future<Long> incr = tx.incr(keys.get(0));
+			Future<Long> incrby = tx.incrby(keys.get(0), 10);
+			Future<byte[]> get = tx.get(keys.get(1));
+			Future<List<byte[]>> mget = tx.mget(keys.get(0), keys.get(1), keys.get(2));
+			Future<Long> incrError = tx.incr(keys.get(1));
+			Future<Boolean> exists = tx.exists(keys.get(0));
+			assertEquals(tx.size(), 6);
+			tx.exec();
+			assertEquals(tx.size(), 0);
+
+			assertEquals(incr.get().longValue(), 1);
+			assertEquals(incrby.get().longValue(), 11);
+			assertEquals(get.get(), dataList.get(1));
+			assertEquals(mget.get().size(), 3);
+			assertEquals(toLong(mget.get().get(0)).longValue(), 11);
+			assertNull(mget.get().get(2));
+			assertTrue(exists.get());
+			try {
+				incrError.get();
+				fail("expected a RedisException for " + Command.INCR + " on a non-integer value");
+			}
+			catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof RedisException);
+			}
+
+			Future<Long> discarded = tx.incr(keys.get(0));
+			tx.discard();
+			try {
+				discarded.get();
+				fail("expected the discarded command to fail");
+			}
+			catch (ExecutionException e) { }
+			assertEquals(toLong(provider.get(keys.get(0))).longValue(), 11);
+		} 
+		catch (RedisException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (InterruptedException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+		catch (ExecutionException e) { fail(cmd + " ERROR => " + e.getLocalizedMessage(), e); }
+	}
 	// ========================================================================
 	// Test Properties
 	// ========================================================================
@@ -0,0 +1,280 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.JRedisFuture;
+import org.jredis.ListenableFuture;
+import org.jredis.ResultListener;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.protocol.ResponseStatus;
+import org.jredis.ri.alphazero.JRedisStripedPipeline.Striping;
+import org.jredis.ri.alphazero.connection.AsyncPipelineConnection;
+import org.jredis.ri.alphazero.connection.DefaultConnectionSpec;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.AfterTest;
+import org.testng.annotations.Test;
+
+/**
+ * Runs the {@link JRedisFuture} provider tests on a {@link JRedisStripedPipeline} (striped
+ * per {@link Striping#THREAD}, so that the requests of the test thread are ordered), and
+ * tests the stripe selection of each {@link Striping} policy.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+@Test(sequential = true, suiteName="JRedisStripedPipeline-tests")
+
+public class JRedisStripedPipelineTest extends JRedisFutureProviderTestsBase {
+
+	// ------------------------------------------------------------------------
+	// TEST SETUP
+	// ------------------------------------------------------------------------
+
+	/* (non-Javadoc)
+	 * @see org.jredis.ri.ProviderTestBase#newProviderInstance()
+	 */
+	@Override
+	protected JRedisFuture newProviderInstance () {
+		JRedisFuture provider = null;
+		try {
+			provider = newStripedPipeline(4, Striping.THREAD);
+        }
+        catch (ClientRuntimeException e) {
+        	Log.error(e.getLocalizedMessage());
+        }
+        return provider;
+	}
+
+	private JRedisStripedPipeline newStripedPipeline (int stripeCnt, Striping striping) {
+		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec(this.host, this.port, this.db2, this.password.getBytes());
+		return new JRedisStripedPipeline(connectionSpec, stripeCnt, striping);
+	}
+
+	// ------------------------------------------------------------------------
+	// The Tests
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Each thread is assigned a stripe, round-robin, on its first request.
+	 */
+	@Test
+	public void testThreadStriping() throws InterruptedException, ExecutionException {
+		Log.log("TEST: Striping.THREAD stripe selection");
+		final JRedisStripedPipeline pipeline = newStripedPipeline(3, Striping.THREAD);
+		final int stripe = pipeline.stripeFor(Command.PING);
+		assertEquals(pipeline.stripeFor(Command.GET, keys.get(0).getBytes()), stripe);
+		assertEquals(pipeline.stripeFor(Command.SET, keys.get(1).getBytes(), dataList.get(1)), stripe);
+
+		final Set<Integer> used = new HashSet<Integer>();
+		used.add(stripe);
+		for(int i=0; i<2; i++){
+			final AtomicInteger threadStripe = new AtomicInteger(-1);
+			Thread thread = new Thread() {
+				public void run () {
+					int s = pipeline.stripeFor(Command.PING);
+					if(pipeline.stripeFor(Command.GET, keys.get(0).getBytes()) == s)
+						threadStripe.set(s);
+				}
+			};
+			thread.start();
+			thread.join(5000);
+			assertTrue(threadStripe.get() >= 0, "thread requests are not on one stripe");
+			used.add(threadStripe.get());
+		}
+		assertEquals(used.size(), 3);
+		pipeline.quit().get();
+	}
+
+	/**
+	 * Keyed requests are striped by key, irrespective of the requesting thread, and keyless
+	 * requests per the thread.
+	 */
+	@Test
+	public void testKeyStriping() throws InterruptedException, ExecutionException {
+		Log.log("TEST: Striping.KEY stripe selection");
+		final JRedisStripedPipeline pipeline = newStripedPipeline(4, Striping.KEY);
+		final byte[] key = keys.get(0).getBytes();
+		final int stripe = pipeline.stripeFor(Command.GET, key);
+		assertEquals(pipeline.stripeFor(Command.INCR, key), stripe);
+		assertEquals(pipeline.stripeFor(Command.RPUSH, key, dataList.get(0)), stripe);
+
+		final AtomicInteger otherStripe = new AtomicInteger(-1);
+		Thread thread = new Thread() {
+			public void run () {
+				otherStripe.set(pipeline.stripeFor(Command.GET, key));
+			}
+		};
+		thread.start();
+		thread.join(5000);
+		assertEquals(otherStripe.get(), stripe);
+
+		final Set<Integer> used = new HashSet<Integer>();
+		for(String k : keys)
+			used.add(pipeline.stripeFor(Command.GET, k.getBytes()));
+		assertTrue(used.size() > 1, "keys are not spread over the stripes");
+
+		// keyless requests
+		final int threadStripe = pipeline.stripeFor(Command.PING);
+		assertEquals(pipeline.stripeFor(Command.DBSIZE), threadStripe);
+		assertEquals(pipeline.stripeFor(Command.ECHO, key), threadStripe);
+		pipeline.quit().get();
+	}
+
+	/**
+	 * The requests of each key are ordered, though those of different keys are (likely)
+	 * on different stripes.
+	 */
+	@Test
+	public void testKeyOrdering() throws InterruptedException, ExecutionException {
+		Log.log("TEST: Striping.KEY per key ordering");
+		final JRedisStripedPipeline pipeline = newStripedPipeline(4, Striping.KEY);
+		final int keyCnt = 8;
+		for(int k=0; k<keyCnt; k++)
+			pipeline.del(keys.get(k)).get();
+
+		for(int i=0; i<MEDIUM_CNT; i++)
+			for(int k=0; k<keyCnt; k++)
+				pipeline.rpush(keys.get(k), i);
+
+		for(int k=0; k<keyCnt; k++){
+			List<byte[]> items = pipeline.lrange(keys.get(k), 0, -1).get();
+			assertEquals(items.size(), MEDIUM_CNT);
+			for(int i=0; i<MEDIUM_CNT; i++)
+				assertEquals(new String(items.get(i)), Integer.toString(i));
+		}
+		pipeline.quit().get();
+	}
+
+	/**
+	 * Requests are queued on the (first scanned) stripe with the fewest pending responses.
+	 */
+	@Test
+	public void testLeastPendingStriping() throws InterruptedException, ExecutionException {
+		Log.log("TEST: Striping.LEAST_PENDING stripe selection");
+		final JRedisStripedPipeline pipeline = newStripedPipeline(2, Striping.LEAST_PENDING);
+		final int first = pipeline.stripeFor(Command.PING);
+		assertEquals(pipeline.stripeFor(Command.PING), first);
+
+		// occupy the first stripe
+		Future<Response> sleep1 = pipeline.queueRequest(Command.DEBUG, "SLEEP".getBytes(), "0.5".getBytes());
+		assertEquals(pipeline.getPendingWindow(first).getOccupancy(), 1);
+		final int second = pipeline.stripeFor(Command.PING);
+		assertFalse(second == first, "selected the occupied stripe");
+
+		// occupy the second stripe -- ties go to the thread's stripe
+		Future<Response> sleep2 = pipeline.queueRequest(Command.DEBUG, "SLEEP".getBytes(), "0.5".getBytes());
+		assertEquals(pipeline.getPendingWindow(second).getOccupancy(), 1);
+		assertEquals(pipeline.stripeFor(Command.PING), first);
+
+		sleep1.get();
+		sleep2.get();
+		pipeline.quit().get();
+	}
+
+	/**
+	 * QUIT is queued on all stripes, and its future (and listeners) complete once all
+	 * stripes have processed their QUIT.
+	 */
+	@Test
+	public void testQuitAll() throws InterruptedException, ExecutionException {
+		Log.log("TEST: quit of all stripes");
+		final JRedisStripedPipeline pipeline = newStripedPipeline(3, Striping.LEAST_PENDING);
+		for(int i=0; i<pipeline.getStripeCount(); i++)
+			pipeline.queueRequest(Command.DEBUG, "SLEEP".getBytes(), "0.2".getBytes());
+		for(int i=0; i<pipeline.getStripeCount(); i++)
+			assertEquals(pipeline.getPendingWindow(i).getOccupancy(), 1);
+
+		final CountDownLatch listened = new CountDownLatch(1);
+		Future<ResponseStatus> quit = pipeline.quit();
+		ListenableFuture.Support.listenable(quit).addListener(new ResultListener<ResponseStatus>() {
+			public void onResult (ResponseStatus result) { listened.countDown(); }
+			public void onError (Throwable cause) { fail("QUIT " + cause); }
+		});
+		assertFalse(quit.isDone(), "QUIT completed before the pending requests");
+		assertTrue(listened.await(5, TimeUnit.SECONDS), "QUIT listener was not notified");
+		assertTrue(quit.isDone());
+		assertFalse(quit.get().isError());
+	}
+
+	/**
+	 * The stripes created before a stripe fails to connect are quit.
+	 */
+	@Test
+	public void testStripeFailure() {
+		Log.log("TEST: quit of created stripes on a stripe failure");
+		final List<Connection> created = new ArrayList<Connection>();
+		ConnectionSpec connectionSpec = DefaultConnectionSpec.newSpec(this.host, this.port, this.db2, this.password.getBytes());
+		connectionSpec.setConnectionProperty(Connection.Property.CONNECTION_FACTORY, new Connection.Factory() {
+			public Connection newConnection (ConnectionSpec spec) {
+				if(created.size() == 2)
+					throw new ClientRuntimeException("connect failed");
+				Connection conn = new AsyncPipelineConnection(spec);
+				created.add(conn);
+				return conn;
+			}
+		});
+		try {
+			new JRedisStripedPipeline(connectionSpec, 3, Striping.THREAD);
+			fail("expected ClientRuntimeException");
+		}
+		catch (ClientRuntimeException expected) { }
+		assertEquals(created.size(), 2);
+		for(Connection conn : created){
+			try {
+				conn.queueRequest(Command.PING);
+				fail("stripe was not quit");
+			}
+			catch (ClientRuntimeException expected) { }
+		}
+	}
+
+	/**
+	 * Pipeline quit.
+	 * We first ping and await the response to insure pipeline has processed
+	 * all pending responses, and then issue the quit command.
+	 */
+	@AfterTest
+	public void testQuit() {
+		try {
+			JRedisFuture pipeline = getProviderInstance();
+			pipeline.ping().get();
+			pipeline.quit().get();
+		}
+		catch (Exception e) {
+			fail("QUIT" + e);
+		}
+	}
+}
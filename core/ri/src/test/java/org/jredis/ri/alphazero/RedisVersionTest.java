@@ -0,0 +1,78 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero;
+
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the parsing and ordering of {@link RedisVersion}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class RedisVersionTest {
+
+	@Test
+	public void testValueOf() {
+		Log.log("Testing RedisVersion parsing ...");
+		assertVersion(RedisVersion.valueOf("2.0.4"), 2, 0, 4);
+		assertVersion(RedisVersion.valueOf("2.8.19"), 2, 8, 19);
+		assertVersion(RedisVersion.valueOf(" 1.2.6\r"), 1, 2, 6);
+		assertVersion(RedisVersion.valueOf("2.1.1-rc1"), 2, 1, 1);
+		assertVersion(RedisVersion.valueOf("2.9.rc"), 2, 9, 0);
+		assertVersion(RedisVersion.valueOf("3.0"), 3, 0, 0);
+		assertVersion(RedisVersion.valueOf("3"), 3, 0, 0);
+		Assert.assertSame(RedisVersion.valueOf(null), RedisVersion.unknown);
+		Assert.assertEquals(RedisVersion.valueOf("2.8.0").toString(), "2.8.0");
+
+		for(String invalid : new String[]{"", "x.2.0", "-rc.1.0"}){
+			try {
+				RedisVersion.valueOf(invalid);
+				Assert.fail("expected IllegalArgumentException for " + invalid);
+			}
+			catch (IllegalArgumentException expected) { }
+		}
+	}
+
+	@Test
+	public void testOrder() {
+		Log.log("Testing RedisVersion ordering ...");
+		Assert.assertTrue(RedisVersion.valueOf("2.8.0").isAtLeast(RedisVersion.scan));
+		Assert.assertTrue(RedisVersion.valueOf("2.10.1").isAtLeast(RedisVersion.scan));
+		Assert.assertTrue(RedisVersion.valueOf("3.0.0").isAtLeast(RedisVersion.scan));
+		Assert.assertFalse(RedisVersion.valueOf("2.6.17").isAtLeast(RedisVersion.scan));
+		Assert.assertFalse(RedisVersion.valueOf("1.9.9").isAtLeast(RedisVersion.scan));
+		Assert.assertFalse(RedisVersion.unknown.isAtLeast(RedisVersion.scan));
+
+		Assert.assertTrue(RedisVersion.valueOf("2.0.4").compareTo(RedisVersion.valueOf("2.0.10")) < 0);
+		Assert.assertTrue(RedisVersion.valueOf("2.2.0").compareTo(RedisVersion.valueOf("2.0.10")) > 0);
+		Assert.assertEquals(RedisVersion.valueOf("2.8"), RedisVersion.valueOf("2.8.0"));
+		Assert.assertEquals(RedisVersion.valueOf("2.8").hashCode(), RedisVersion.valueOf("2.8.0").hashCode());
+	}
+
+	private static void assertVersion (RedisVersion version, int major, int minor, int patch) {
+		Assert.assertEquals(version.major, major);
+		Assert.assertEquals(version.minor, minor);
+		Assert.assertEquals(version.patch, patch);
+	}
+}
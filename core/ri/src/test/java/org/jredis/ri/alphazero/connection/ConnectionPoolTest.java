@@ -0,0 +1,355 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jredis.ClientRuntimeException;
+import org.jredis.RedisException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.protocol.Command;
+import org.jredis.protocol.Response;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the growth, idle eviction, validation, wait timeout and metrics, and the
+ * discard of failed connections of {@link ConnectionPool}, over stub connections.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class ConnectionPoolTest {
+
+	@Test
+	public void testGrowth() throws InterruptedException, RedisException {
+		Log.log("Testing ConnectionPool growth from min to max size ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 3);
+		Assert.assertEquals(pool.getSize(), 1);
+		Assert.assertEquals(pool.getCreateCount(), 1);
+
+		CountDownLatch gate = factory.close();
+		Thread[] requesters = new Thread[3];
+		for(int i=0; i<requesters.length; i++)
+			requesters[i] = request(pool, null);
+		awaitActive(pool, 3);
+		Assert.assertEquals(pool.getSize(), 3);
+		Assert.assertEquals(pool.getCreateCount(), 3);
+
+		gate.countDown();
+		for(Thread requester : requesters)
+			requester.join(5000);
+		Assert.assertEquals(pool.getActiveCount(), 0);
+		Assert.assertEquals(pool.getSize(), 3);
+
+		// idle connections are reused
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(pool.getCreateCount(), 3);
+		Assert.assertEquals(pool.getBorrowCount(), 4);
+		pool.close();
+		Assert.assertEquals(pool.getSize(), 0);
+		Assert.assertEquals(factory.quitCount(), 3);
+	}
+
+	@Test
+	public void testEviction() throws InterruptedException, RedisException {
+		Log.log("Testing ConnectionPool idle connection eviction ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 3);
+		CountDownLatch gate = factory.close();
+		Thread[] requesters = new Thread[3];
+		for(int i=0; i<requesters.length; i++)
+			requesters[i] = request(pool, null);
+		awaitActive(pool, 3);
+		gate.countDown();
+		for(Thread requester : requesters)
+			requester.join(5000);
+		Assert.assertEquals(pool.getSize(), 3);
+
+		// evicted down to the min size
+		pool.setMaxIdleTime(50);
+		for(int i=0; i<500 && pool.getSize() > 1; i++)
+			Thread.sleep(10);
+		Assert.assertEquals(pool.getSize(), 1);
+		Assert.assertEquals(pool.getEvictCount(), 2);
+		Assert.assertEquals(factory.quitCount(), 2);
+
+		Thread.sleep(200);
+		Assert.assertEquals(pool.getSize(), 1);
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(pool.getCreateCount(), 3);
+		pool.close();
+	}
+
+	@Test
+	public void testValidation() throws RedisException {
+		Log.log("Testing ConnectionPool validation of idle connections ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 1);
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(factory.pingCount(), 0);
+
+		pool.setValidationInterval(0);
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(factory.pingCount(), 2);
+
+		// a connection that fails validation is replaced
+		factory.connections.get(0).faulted = true;
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(pool.getDiscardCount(), 1);
+		Assert.assertEquals(pool.getCreateCount(), 2);
+		Assert.assertEquals(pool.getSize(), 1);
+		Assert.assertEquals(factory.connections.get(0).quits.get(), 1);
+		Assert.assertEquals(factory.connections.get(1).requests.get(), 1);
+		pool.close();
+	}
+
+	@Test
+	public void testDiscard() throws RedisException {
+		Log.log("Testing ConnectionPool discard of failed connections ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 1);
+
+		// error replies do not fail the connection
+		try {
+			pool.serviceRequest(Command.INCR, "key".getBytes());
+			Assert.fail("expected RedisException");
+		}
+		catch (RedisException expected) { }
+		Assert.assertEquals(pool.getDiscardCount(), 0);
+		Assert.assertEquals(pool.getSize(), 1);
+
+		// nor do invalid batches
+		try {
+			pool.serviceRequests(new Command[0], new byte[0][][]);
+			Assert.fail("expected IllegalArgumentException for an empty batch");
+		}
+		catch (IllegalArgumentException expected) { }
+		Assert.assertEquals(pool.getDiscardCount(), 0);
+		Assert.assertEquals(pool.getSize(), 1);
+
+		factory.connections.get(0).faulted = true;
+		try {
+			pool.serviceRequest(Command.GET, "key".getBytes());
+			Assert.fail("expected ClientRuntimeException");
+		}
+		catch (ClientRuntimeException expected) { }
+		Assert.assertEquals(pool.getDiscardCount(), 1);
+		Assert.assertEquals(pool.getSize(), 0);
+		Assert.assertEquals(pool.getActiveCount(), 0);
+		Assert.assertEquals(factory.connections.get(0).quits.get(), 1);
+
+		pool.serviceRequest(Command.GET, "key".getBytes());
+		Assert.assertEquals(pool.getCreateCount(), 2);
+		Assert.assertEquals(pool.getSize(), 1);
+		pool.close();
+	}
+
+	@Test
+	public void testMaxWait() throws InterruptedException, RedisException {
+		Log.log("Testing ConnectionPool max wait for a connection ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 1);
+		CountDownLatch gate = factory.close();
+		Thread holder = request(pool, null);
+		awaitActive(pool, 1);
+
+		pool.setMaxWait(100);
+		final long start = System.nanoTime();
+		try {
+			pool.serviceRequest(Command.GET, "key".getBytes());
+			Assert.fail("expected ClientRuntimeException on timeout");
+		}
+		catch (ClientRuntimeException expected) { }
+		final long waited = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		Assert.assertTrue(waited >= 90, "timed out after " + waited + " msecs");
+		Assert.assertEquals(pool.getTimeoutCount(), 1);
+		Assert.assertEquals(pool.getWaitCount(), 1);
+		Assert.assertEquals(pool.getActiveCount(), 1);
+
+		gate.countDown();
+		holder.join(5000);
+		Assert.assertEquals(pool.getActiveCount(), 0);
+		Assert.assertEquals(pool.getSize(), 1);
+		pool.close();
+	}
+
+	@Test
+	public void testWaitMetrics() throws InterruptedException {
+		Log.log("Testing ConnectionPool wait metrics ...");
+		StubFactory factory = new StubFactory();
+		ConnectionPool pool = new ConnectionPool(factory.newSpec(), 1, 1);
+		Assert.assertEquals(pool.getWaitCount(), 0);
+		Assert.assertEquals(pool.getTotalWaitTime(), 0);
+
+		CountDownLatch gate = factory.close();
+		Thread holder = request(pool, null);
+		awaitActive(pool, 1);
+		final AtomicInteger done = new AtomicInteger();
+		Thread waiter = request(pool, done);
+		Thread.sleep(100);
+		Assert.assertEquals(done.get(), 0);
+		Assert.assertEquals(pool.getWaitCount(), 1);
+
+		gate.countDown();
+		holder.join(5000);
+		waiter.join(5000);
+		Assert.assertEquals(done.get(), 1);
+		Assert.assertEquals(pool.getBorrowCount(), 2);
+		Assert.assertEquals(pool.getWaitCount(), 1);
+		Assert.assertEquals(pool.getTimeoutCount(), 0);
+		Assert.assertTrue(pool.getTotalWaitTime() >= TimeUnit.MILLISECONDS.toNanos(90), "total wait " + pool.getTotalWaitTime());
+		Assert.assertEquals(pool.getMaxWaitTime(), pool.getTotalWaitTime());
+		Assert.assertEquals(pool.getCreateCount(), 1);
+		pool.close();
+	}
+
+	// ------------------------------------------------------------------------
+	// Test support
+	// ------------------------------------------------------------------------
+
+	/**
+	 * Starts a thread servicing a GET on the pool, which increments done (if not null)
+	 * on success.
+	 */
+	private static Thread request (final ConnectionPool pool, final AtomicInteger done) {
+		Thread requester = new Thread() {
+			public void run () {
+				try {
+					pool.serviceRequest(Command.GET, "key".getBytes());
+					if(null != done) done.incrementAndGet();
+				}
+				catch (Exception e) {
+					Log.error("pooled request failed => " + e);
+				}
+			}
+		};
+		requester.start();
+		return requester;
+	}
+
+	private static void awaitActive (ConnectionPool pool, int active) throws InterruptedException {
+		for(int i=0; i<500 && pool.getActiveCount() < active; i++)
+			Thread.sleep(10);
+		Assert.assertEquals(pool.getActiveCount(), active);
+	}
+
+	/** Creates {@link StubConnection}s, and holds their requests while its gate is closed */
+	private static final class StubFactory implements Connection.Factory {
+		final List<StubConnection> connections = new CopyOnWriteArrayList<StubConnection>();
+		volatile CountDownLatch gate;
+
+		ConnectionSpec newSpec () {
+			return DefaultConnectionSpec.newSpec().setConnectionProperty(Connection.Property.CONNECTION_FACTORY, this);
+		}
+
+		/** @return the gate -- count it down to release the held requests */
+		CountDownLatch close () {
+			return gate = new CountDownLatch(1);
+		}
+
+		int pingCount () {
+			int cnt = 0;
+			for(StubConnection conn : connections) cnt += conn.pings.get();
+			return cnt;
+		}
+
+		int quitCount () {
+			int cnt = 0;
+			for(StubConnection conn : connections) cnt += conn.quits.get();
+			return cnt;
+		}
+
+		public Connection newConnection (ConnectionSpec spec) {
+			final StubConnection conn = new StubConnection(spec, this);
+			connections.add(conn);
+			return conn;
+		}
+	}
+
+	/**
+	 * Services PING and QUIT, raises a {@link RedisException} for INCR, and holds other requests
+	 * while the factory's gate is closed.  A faulted connection raises a {@link ClientRuntimeException}
+	 * for all but QUIT.
+	 */
+	private static final class StubConnection implements Connection {
+		final ConnectionSpec spec;
+		final StubFactory factory;
+		final AtomicInteger requests = new AtomicInteger();
+		final AtomicInteger pings = new AtomicInteger();
+		final AtomicInteger quits = new AtomicInteger();
+		volatile boolean faulted;
+
+		StubConnection (ConnectionSpec spec, StubFactory factory) {
+			this.spec = spec;
+			this.factory = factory;
+		}
+
+		public ConnectionSpec getSpec () { return spec; }
+
+		public Response serviceRequest (Command cmd, byte[]... args) throws RedisException {
+			if(cmd == Command.QUIT) {
+				quits.incrementAndGet();
+				return null;
+			}
+			if(faulted) throw new ClientRuntimeException("connection faulted");
+			if(cmd == Command.PING) {
+				pings.incrementAndGet();
+				return null;
+			}
+			if(cmd == Command.INCR) throw new RedisException(cmd, "ERR value is not an integer");
+			final CountDownLatch gate = factory.gate;
+			if(null != gate) {
+				try {
+					gate.await();
+				}
+				catch (InterruptedException e) {
+					throw new ClientRuntimeException("interrupted", e);
+				}
+			}
+			requests.incrementAndGet();
+			return null;
+		}
+
+		public Response[] serviceRequests (Command[] cmds, byte[][][] args) {
+			throw new UnsupportedOperationException();
+		}
+		public Future<Response> queueRequest (Command cmd, byte[]... args) {
+			throw new UnsupportedOperationException();
+		}
+		public void queueNoReplyRequest (Command cmd, byte[]... args) {
+			throw new UnsupportedOperationException();
+		}
+		public long awaitNoReplies () {
+			throw new UnsupportedOperationException();
+		}
+		public boolean addListener (Listener connListener) { return false; }
+		public boolean removeListener (Listener connListener) { return false; }
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jredis.ClientRuntimeException;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the reply and error counting of {@link NoReplyTracker}, and the release of
+ * its waiter on replies, connection faults, and interrupts.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class NoReplyTrackerTest {
+
+	@Test
+	public void testCheckCommand() {
+		Log.log("Testing NoReplyTracker command checks ...");
+		NoReplyTracker.checkCommand(Command.SET);
+		try {
+			NoReplyTracker.checkCommand(Command.QUIT);
+			Assert.fail("expected IllegalArgumentException for QUIT");
+		}
+		catch (IllegalArgumentException expected) { }
+	}
+
+	@Test
+	public void testErrorCounts() {
+		Log.log("Testing NoReplyTracker reply and error counts ...");
+		NoReplyTracker tracker = new NoReplyTracker();
+		for(int i=0; i<4; i++)
+			tracker.onQueued();
+		Assert.assertEquals(tracker.queued(), 4);
+
+		ByteArrayInputStream in = new ByteArrayInputStream("+OK\r\n-ERR one\r\n:1\r\n-ERR two\r\n".getBytes());
+		for(int i=0; i<4; i++)
+			tracker.onReply(in);
+		Assert.assertEquals(tracker.await(4), 2);
+		// errors are reported once
+		Assert.assertEquals(tracker.await(4), 0);
+
+		tracker.onQueued();
+		tracker.onReply(new ByteArrayInputStream("$-1\r\n".getBytes()));
+		Assert.assertEquals(tracker.await(tracker.queued()), 0);
+	}
+
+	@Test
+	public void testAwaitReplies() throws InterruptedException {
+		Log.log("Testing NoReplyTracker await of pending replies ...");
+		final NoReplyTracker tracker = new NoReplyTracker();
+		tracker.onQueued();
+		tracker.onQueued();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = await(tracker, 2, result);
+
+		tracker.onReply(new ByteArrayInputStream("-ERR one\r\n".getBytes()));
+		Thread.sleep(50);
+		Assert.assertTrue(waiter.isAlive(), "await returned before all replies were read");
+
+		tracker.onReply(new ByteArrayInputStream("+OK\r\n".getBytes()));
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertEquals(result.get(), 1L);
+	}
+
+	@Test
+	public void testAwaitFault() throws InterruptedException {
+		Log.log("Testing NoReplyTracker await on connection fault ...");
+		final NoReplyTracker tracker = new NoReplyTracker();
+		tracker.onQueued();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = await(tracker, 1, result);
+		Thread.sleep(50);
+
+		ClientRuntimeException fault = new ClientRuntimeException("connection reset");
+		tracker.onFault(fault);
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertTrue(result.get() instanceof ClientRuntimeException);
+		Assert.assertEquals(((ClientRuntimeException) result.get()).getCause(), fault);
+
+		// subsequent waits fail immediately
+		try {
+			tracker.await(1);
+			Assert.fail("expected ClientRuntimeException after fault");
+		}
+		catch (ClientRuntimeException expected) { }
+	}
+
+	@Test
+	public void testAwaitInterrupt() throws InterruptedException {
+		Log.log("Testing NoReplyTracker await interrupt ...");
+		final NoReplyTracker tracker = new NoReplyTracker();
+		tracker.onQueued();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = await(tracker, 1, result);
+		Thread.sleep(50);
+
+		waiter.interrupt();
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertTrue(result.get() instanceof ClientRuntimeException);
+	}
+
+	/**
+	 * Starts a thread waiting for target replies, which sets the result to the
+	 * returned error count or the raised exception.
+	 */
+	private static Thread await (final NoReplyTracker tracker, final long target, final AtomicReference<Object> result) {
+		Thread waiter = new Thread() {
+			public void run () {
+				try {
+					result.set(tracker.await(target));
+				}
+				catch (RuntimeException e) {
+					result.set(e);
+				}
+			}
+		};
+		waiter.start();
+		return waiter;
+	}
+}
@@ -0,0 +1,101 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ExecutionException;
+import org.jredis.ClientRuntimeException;
+import org.jredis.RedisException;
+import org.jredis.protocol.Command;
+import org.jredis.ri.alphazero.protocol.ReplyResponse;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the completion status of {@link PendingRequest}s, in particular that the status
+ * of an error response is retained once the (pooled) response is reused.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class PendingRequestTest {
+
+	@Test
+	public void testResponse() throws InterruptedException, ExecutionException {
+		Log.log("Testing PendingRequest completion with a response ...");
+		PendingRequest pending = new PendingRequest(Command.GET);
+		Assert.assertFalse(pending.isDone());
+		ReusedResponse response = new ReusedResponse("+OK\r\n");
+		pending.setResponse(response);
+		Assert.assertTrue(pending.isDone());
+		Assert.assertSame(pending.get(), response);
+	}
+
+	@Test
+	public void testErrorOnReuse() throws InterruptedException {
+		Log.log("Testing PendingRequest error status of a reused response ...");
+		PendingRequest pending = new PendingRequest(Command.GET);
+		ReusedResponse response = new ReusedResponse("-ERR no such key\r\n");
+		pending.setResponse(response);
+
+		// the handler reuses the response for another command's (ok) reply
+		response.reuse("+OK\r\n");
+		for(int i=0; i<2; i++){
+			try {
+				pending.get();
+				Assert.fail("expected ExecutionException");
+			}
+			catch (ExecutionException expected) {
+				Assert.assertTrue(expected.getCause() instanceof RedisException);
+				Assert.assertEquals(expected.getCause().getMessage(), "ERR no such key");
+			}
+		}
+	}
+
+	@Test
+	public void testCRE() throws InterruptedException {
+		Log.log("Testing PendingRequest completion with a ClientRuntimeException ...");
+		PendingRequest pending = new PendingRequest(Command.GET);
+		ClientRuntimeException cre = new ClientRuntimeException("connection fault");
+		pending.setCRE(cre);
+		Assert.assertTrue(pending.isDone());
+		try {
+			pending.get();
+			Assert.fail("expected ExecutionException");
+		}
+		catch (ExecutionException expected) {
+			Assert.assertSame(expected.getCause(), cre);
+		}
+	}
+
+	/** a response that is re-read, as pooled responses are by the response handler */
+	private static final class ReusedResponse extends ReplyResponse {
+		ReusedResponse (String data) {
+			super(Command.GET);
+			read(new ByteArrayInputStream(data.getBytes()));
+		}
+		void reuse (String data) {
+			reset(Command.GET);
+			read(new ByteArrayInputStream(data.getBytes()));
+		}
+	}
+}
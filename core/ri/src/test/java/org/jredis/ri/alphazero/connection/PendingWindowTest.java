@@ -0,0 +1,200 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.connection;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.jredis.ClientRuntimeException;
+import org.jredis.connector.Connection;
+import org.jredis.connector.ConnectionSpec;
+import org.jredis.connector.PendingWindowFullException;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the blocking, timeout, and fail-fast policies of {@link PendingWindow}, and
+ * its occupancy metrics.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class PendingWindowTest {
+
+	@Test
+	public void testSize() {
+		Log.log("Testing PendingWindow size ...");
+		Assert.assertEquals(newWindow(null, null).getSize(), 8);
+		Assert.assertEquals(newWindow(3, null).getSize(), 3);
+		try {
+			newWindow(0, null);
+			Assert.fail("expected ClientRuntimeException for a window of size 0");
+		}
+		catch (ClientRuntimeException expected) { }
+	}
+
+	@Test
+	public void testOccupancy() {
+		Log.log("Testing PendingWindow occupancy metrics ...");
+		PendingWindow window = newWindow(4, null);
+		for(int i=0; i<3; i++)
+			window.acquire();
+		Assert.assertEquals(window.getOccupancy(), 3);
+		Assert.assertEquals(window.getHighWaterMark(), 3);
+
+		window.release();
+		window.release();
+		Assert.assertEquals(window.getOccupancy(), 1);
+		Assert.assertEquals(window.getHighWaterMark(), 3);
+
+		for(int i=0; i<3; i++)
+			window.acquire();
+		Assert.assertEquals(window.getOccupancy(), 4);
+		Assert.assertEquals(window.getHighWaterMark(), 4);
+		Assert.assertEquals(window.getWaitCount(), 0);
+		Assert.assertEquals(window.getRejectCount(), 0);
+	}
+
+	@Test
+	public void testFailFast() {
+		Log.log("Testing PendingWindow fail-fast policy ...");
+		PendingWindow window = newWindow(2, 0);
+		window.acquire();
+		window.acquire();
+		for(int i=0; i<3; i++){
+			try {
+				window.acquire();
+				Assert.fail("expected PendingWindowFullException");
+			}
+			catch (PendingWindowFullException expected) { }
+		}
+		Assert.assertEquals(window.getRejectCount(), 3);
+		Assert.assertEquals(window.getWaitCount(), 0);
+		Assert.assertEquals(window.getOccupancy(), 2);
+
+		window.release();
+		window.acquire();
+		Assert.assertEquals(window.getOccupancy(), 2);
+	}
+
+	@Test
+	public void testTimeout() {
+		Log.log("Testing PendingWindow timeout policy ...");
+		PendingWindow window = newWindow(1, 100);
+		window.acquire();
+		long start = System.currentTimeMillis();
+		try {
+			window.acquire();
+			Assert.fail("expected PendingWindowFullException");
+		}
+		catch (PendingWindowFullException expected) { }
+		long waited = System.currentTimeMillis() - start;
+		Assert.assertTrue(waited >= 90, "rejected after " + waited + " msecs");
+		Assert.assertEquals(window.getWaitCount(), 1);
+		Assert.assertEquals(window.getRejectCount(), 1);
+		Assert.assertEquals(window.getOccupancy(), 1);
+	}
+
+	@Test
+	public void testTimeoutRelease() throws InterruptedException {
+		Log.log("Testing PendingWindow timeout policy with release ...");
+		PendingWindow window = newWindow(1, 5000);
+		window.acquire();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = acquire(window, result);
+		Thread.sleep(50);
+		Assert.assertTrue(waiter.isAlive(), "acquire returned on a full window");
+
+		window.release();
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertEquals(result.get(), Boolean.TRUE);
+		Assert.assertEquals(window.getWaitCount(), 1);
+		Assert.assertEquals(window.getRejectCount(), 0);
+		Assert.assertEquals(window.getOccupancy(), 1);
+	}
+
+	@Test
+	public void testBlocking() throws InterruptedException {
+		Log.log("Testing PendingWindow blocking policy ...");
+		PendingWindow window = newWindow(2, -1);
+		window.acquire();
+		window.acquire();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = acquire(window, result);
+		Thread.sleep(200);
+		Assert.assertTrue(waiter.isAlive(), "acquire returned on a full window");
+		Assert.assertEquals(window.getWaitCount(), 1);
+
+		window.release();
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertEquals(result.get(), Boolean.TRUE);
+		Assert.assertEquals(window.getOccupancy(), 2);
+		Assert.assertEquals(window.getRejectCount(), 0);
+	}
+
+	@Test
+	public void testInterrupt() throws InterruptedException {
+		Log.log("Testing PendingWindow interrupt of a waiting request ...");
+		PendingWindow window = newWindow(1, null);
+		window.acquire();
+		final AtomicReference<Object> result = new AtomicReference<Object>();
+		Thread waiter = acquire(window, result);
+		Thread.sleep(50);
+
+		waiter.interrupt();
+		waiter.join(5000);
+		Assert.assertFalse(waiter.isAlive());
+		Assert.assertTrue(result.get() instanceof ClientRuntimeException);
+		Assert.assertFalse(result.get() instanceof PendingWindowFullException);
+		Assert.assertEquals(window.getOccupancy(), 1);
+	}
+
+	/** null size or maxWait leave the property unspecified */
+	private static PendingWindow newWindow (Integer size, Integer maxWait) {
+		ConnectionSpec spec = DefaultConnectionSpec.newSpec();
+		if(null != size)
+			spec.setConnectionProperty(Connection.Property.MAX_PENDING_REQUESTS, size);
+		if(null != maxWait)
+			spec.setConnectionProperty(Connection.Property.MAX_PENDING_WAIT, maxWait);
+		return new PendingWindow(spec, 8);
+	}
+
+	/**
+	 * Starts a thread acquiring a slot of the window, which sets the result to
+	 * TRUE or the raised exception.
+	 */
+	private static Thread acquire (final PendingWindow window, final AtomicReference<Object> result) {
+		Thread waiter = new Thread() {
+			public void run () {
+				try {
+					window.acquire();
+					result.set(Boolean.TRUE);
+				}
+				catch (RuntimeException e) {
+					result.set(e);
+				}
+			}
+		};
+		waiter.start();
+		return waiter;
+	}
+}
@@ -0,0 +1,200 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.protocol;
+
+import java.io.ByteArrayInputStream;
+import org.jredis.ProviderException;
+import org.jredis.ri.alphazero.connection.UnexpectedEOFException;
+import org.jredis.ri.alphazero.support.FastBufferedInputStream;
+import org.jredis.ri.alphazero.support.Log;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the decoding of {@link Reply} from both buffered and plain streams, and
+ * the framing of complete replies by {@link Reply#frameLength(byte[], int, int)}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 23, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class ReplyTest {
+
+	final static String NESTED = "*3\r\n$3\r\nfoo\r\n*2\r\n:42\r\n$-1\r\n*-1\r\n";
+
+	@Test
+	public void testReadTypes() {
+		Log.log("Testing Reply decoding of each reply type ...");
+		for(int bufferSize : new int[]{0, 1, 5, 1024}){
+			Reply reply = new Reply();
+
+			read(reply, "+OK\r\n", bufferSize);
+			Assert.assertEquals(reply.getType(), Reply.Type.STATUS);
+			Assert.assertEquals(new String(reply.getData()), "OK");
+			Assert.assertFalse(reply.isQueued());
+
+			read(reply, "+QUEUED\r\n", bufferSize);
+			Assert.assertTrue(reply.isQueued());
+
+			read(reply, "-ERR no such key\r\n", bufferSize);
+			Assert.assertTrue(reply.isError());
+			Assert.assertEquals(new String(reply.getData()), "ERR no such key");
+
+			read(reply, ":-1234567890123\r\n", bufferSize);
+			Assert.assertEquals(reply.getType(), Reply.Type.NUMBER);
+			Assert.assertEquals(reply.getNumber(), -1234567890123L);
+
+			read(reply, "$5\r\nhe\r\no\r\n", bufferSize);
+			Assert.assertEquals(reply.getType(), Reply.Type.BULK);
+			Assert.assertEquals(new String(reply.getData()), "he\r\no");
+
+			read(reply, "$0\r\n\r\n", bufferSize);
+			Assert.assertFalse(reply.isNil());
+			Assert.assertEquals(reply.getData().length, 0);
+
+			read(reply, "$-1\r\n", bufferSize);
+			Assert.assertTrue(reply.isNil());
+			Assert.assertNull(reply.getData());
+
+			read(reply, "*-1\r\n", bufferSize);
+			Assert.assertTrue(reply.isNil());
+			Assert.assertEquals(reply.size(), 0);
+
+			read(reply, "*0\r\n", bufferSize);
+			Assert.assertFalse(reply.isNil());
+			Assert.assertEquals(reply.size(), 0);
+		}
+	}
+
+	@Test
+	public void testReadNested() {
+		Log.log("Testing Reply decoding of nested multi-bulk replies ...");
+		for(int bufferSize : new int[]{0, 1, 5, 1024}){
+			Reply reply = new Reply();
+			// read a large reply first so that the nested read reuses its element nodes
+			read(reply, "*4\r\n:1\r\n:2\r\n:3\r\n:4\r\n", bufferSize);
+			Assert.assertEquals(reply.size(), 4);
+
+			read(reply, NESTED, bufferSize);
+			Assert.assertEquals(reply.getType(), Reply.Type.MULTI_BULK);
+			Assert.assertEquals(reply.size(), 3);
+			Assert.assertEquals(new String(reply.get(0).getData()), "foo");
+			Reply nested = reply.get(1);
+			Assert.assertEquals(nested.size(), 2);
+			Assert.assertEquals(nested.get(0).getNumber(), 42);
+			Assert.assertTrue(nested.get(1).isNil());
+			Assert.assertTrue(reply.get(2).isNil());
+			try {
+				reply.get(3);
+				Assert.fail("expected IndexOutOfBoundsException");
+			}
+			catch (IndexOutOfBoundsException expected) { }
+		}
+	}
+
+	@Test
+	public void testReadErrors() {
+		Log.log("Testing Reply decoding of malformed and truncated replies ...");
+		for(int bufferSize : new int[]{0, 1, 1024}){
+			try {
+				read(new Reply(), "?foo\r\n", bufferSize);
+				Assert.fail("expected ProviderException for unknown type byte");
+			}
+			catch (ProviderException expected) { }
+			try {
+				read(new Reply(), "$5\r\nfoo", bufferSize);
+				Assert.fail("expected UnexpectedEOFException for truncated bulk");
+			}
+			catch (UnexpectedEOFException expected) { }
+			try {
+				read(new Reply(), "*2\r\n:1\r\n", bufferSize);
+				Assert.fail("expected UnexpectedEOFException for truncated multi-bulk");
+			}
+			catch (UnexpectedEOFException expected) { }
+		}
+	}
+
+	@Test
+	public void testFrameLength() {
+		Log.log("Testing Reply framing of complete replies ...");
+		String[] replies = {"+OK\r\n", "-ERR bad\r\n", ":42\r\n", "$3\r\nfoo\r\n", "$-1\r\n", "$0\r\n\r\n",
+				"*-1\r\n", "*0\r\n", "$4\r\n\r\n\r\n\r\n", NESTED};
+		for(String r : replies){
+			byte[] reply = r.getBytes();
+			// frame each reply at a non-zero offset, followed by the start of another reply
+			byte[] buff = ("xx" + r + "+O").getBytes();
+			Assert.assertEquals(Reply.frameLength(buff, 2, buff.length - 2), reply.length, r);
+			Assert.assertEquals(Reply.frameLength(reply, 0, reply.length), reply.length, r);
+		}
+	}
+
+	@Test
+	public void testFrameLengthPartial() {
+		Log.log("Testing Reply framing of partial replies ...");
+		for(String r : new String[]{"+OK\r\n", "$3\r\nfoo\r\n", "$0\r\n\r\n", NESTED}){
+			byte[] reply = r.getBytes();
+			for(int len=0; len<reply.length; len++)
+				Assert.assertEquals(Reply.frameLength(reply, 0, len), -1, r + " @ " + len);
+		}
+	}
+
+	@Test
+	public void testFramerIncremental() {
+		Log.log("Testing Reply.Framer framing of incrementally received replies ...");
+		StringBuilder large = new StringBuilder("*100\r\n");
+		for(int i=0; i<100; i++)
+			large.append(i % 2 == 0 ? "$3\r\nfoo\r\n" : "*2\r\n:1\r\n$-1\r\n");
+		Reply.Framer framer = new Reply.Framer();
+		for(String r : new String[]{NESTED, large.toString(), "+OK\r\n"}){
+			byte[] reply = r.getBytes();
+			for(int len=0; len<reply.length; len++){
+				// move the reply in the buffer midway, as on compaction of the receive buffer
+				int off = len < reply.length / 2 ? 0 : 3;
+				byte[] buff = new byte[off + reply.length];
+				System.arraycopy(reply, 0, buff, off, reply.length);
+				Assert.assertEquals(framer.frame(buff, off, len), -1, r + " @ " + len);
+			}
+			// the framer is reset once the reply is complete
+			Assert.assertEquals(framer.frame(reply, 0, reply.length), reply.length, r);
+		}
+	}
+
+	@Test
+	public void testFrameLengthErrors() {
+		Log.log("Testing Reply framing of malformed replies ...");
+		for(String r : new String[]{"?foo\r\n", "\r\n", "*1\r\n!\r\n"}){
+			byte[] reply = r.getBytes();
+			try {
+				Reply.frameLength(reply, 0, reply.length);
+				Assert.fail("expected ProviderException for " + r);
+			}
+			catch (ProviderException expected) { }
+		}
+	}
+
+	/** bufferSize 0 reads from the plain stream */
+	private static void read (Reply reply, String data, int bufferSize) {
+		ByteArrayInputStream in = new ByteArrayInputStream(data.getBytes());
+		if(bufferSize > 0)
+			reply.read(new FastBufferedInputStream(in, bufferSize));
+		else
+			reply.read(in);
+	}
+}
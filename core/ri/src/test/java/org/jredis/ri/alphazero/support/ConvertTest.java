@@ -287,4 +287,49 @@ public class ConvertTest {
 				assertEquals( data[j], javadata[j], "for <"+i+"> byte @ ["+j+"]");
 		}		
 	}
+	
+	@Test
+	public void testToDouble() {
+		Log.log("Testing bytes to double conversion ...");
+		
+		// test null
+		boolean inputChecking = false;
+		try { Convert.toDouble(null); }
+		catch (IllegalArgumentException e){ inputChecking = true;}
+		finally { assertTrue(inputChecking);}
+		
+		// test garbage
+		for(String garbage : new String[]{"", ".", "-", "1e", "1e+", "abc", "1.2.3", "infinite"}){
+			inputChecking = false;
+			try { Convert.toDouble(garbage.getBytes()); }
+			catch (IllegalArgumentException e){ inputChecking = true;}
+			finally { assertTrue(inputChecking, "for <"+garbage+">");}
+		}
+		
+		// test infinity as sent by redis
+		assertEquals(Convert.toDouble("inf".getBytes()), Double.POSITIVE_INFINITY);
+		assertEquals(Convert.toDouble("+inf".getBytes()), Double.POSITIVE_INFINITY);
+		assertEquals(Convert.toDouble("-inf".getBytes()), Double.NEGATIVE_INFINITY);
+		assertEquals(Convert.toDouble("-Infinity".getBytes()), Double.NEGATIVE_INFINITY);
+		
+		// test offset/len
+		byte[] data = "$-12.5GARBAGEDATA".getBytes();
+		assertEquals(Convert.toDouble(data, 1, 5), -12.5);
+		
+		// test against the JDK for both fast and slow path representations
+		String[] reps = {
+			"0", "-0", "+0", "0.0", "1", "-1", "100", "12.75", "-12.75", ".5", "5.", "0.1", "0.10000000000000001",
+			"3.1415926535897931", "1e10", "1E-10", "1.5e+300", "-2.5e-300", "123456789012345", "1234567890123456789", 
+			"9007199254740993", "0.000000000000000000000001", "4.9e-324", "1.7976931348623157e308"
+		};
+		for(String rep : reps)
+			assertEquals(Convert.toDouble(rep.getBytes()), Double.parseDouble(rep), "for <"+rep+">");
+		
+		java.util.Random random = new java.util.Random(System.currentTimeMillis());
+		for(int i=0; i<10000; i++){
+			double d = random.nextDouble() * Math.pow(10, random.nextInt(20) - 10);
+			for(String rep : new String[]{Double.toString(d), String.format("%.17g", d), Long.toString((long)d), String.format("%.2f", d)})
+				assertEquals(Convert.toDouble(rep.getBytes()), Double.parseDouble(rep), "for <"+rep+">");
+		}
+	}
 }
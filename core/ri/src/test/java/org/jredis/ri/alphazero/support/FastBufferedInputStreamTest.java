@@ -0,0 +1,111 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the buffer management of {@link FastBufferedInputStream} using an
+ * underlying stream that trickles data in small random chunks.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 12, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class FastBufferedInputStreamTest {
+	final static Random random = new Random(System.currentTimeMillis());
+
+	@Test
+	public void testReadFully() throws IOException {
+		Log.log("Testing FastBufferedInputStream blocking reads ...");
+		byte[] data = getRandomBytes(1024 * 64);
+		for(int bufferSize : new int[]{1, 7, 128, 1024 * 128}){
+			InputStream in = new FastBufferedInputStream(new TricklingInputStream(data), bufferSize);
+			byte[] read = new byte[data.length];
+			int off = 0;
+			while(off < data.length){
+				int len = Math.min(random.nextInt(4096), data.length - off);
+				Assert.assertEquals(in.read(read, off, len), len);
+				off += len;
+			}
+			Assert.assertEquals(read, data);
+			Assert.assertEquals(in.available(), 0);
+			Assert.assertEquals(in.read(), -1);
+		}
+	}
+
+	@Test
+	public void testSingleByteRead() throws IOException {
+		Log.log("Testing FastBufferedInputStream single byte reads ...");
+		byte[] data = {(byte)0, (byte)127, (byte)128, (byte)255};
+		InputStream in = new FastBufferedInputStream(new TricklingInputStream(data), 2);
+		Assert.assertEquals(in.read(), 0);
+		Assert.assertEquals(in.read(), 127);
+		Assert.assertEquals(in.read(), 128);
+		Assert.assertEquals(in.read(), 255);
+		Assert.assertEquals(in.read(), -1);
+	}
+
+	@Test
+	public void testSeekCRLF() throws IOException {
+		Log.log("Testing FastBufferedInputStream line scanning ...");
+		byte[] data = "+OK\r\n:1234567890\r\n\r\n$3\r\nfoo\r\n".getBytes();
+		for(int bufferSize : new int[]{1, 3, 8, 1024}){
+			FastBufferedInputStream in = new FastBufferedInputStream(new TricklingInputStream(data), bufferSize);
+			Assert.assertEquals(readLine(in), "+OK");
+			Assert.assertEquals(readLine(in), ":1234567890");
+			Assert.assertEquals(readLine(in), "");
+			Assert.assertEquals(readLine(in), "$3");
+			byte[] bulk = new byte[3];
+			Assert.assertEquals(in.read(bulk), 3);
+			Assert.assertEquals(new String(bulk), "foo");
+			Assert.assertEquals(readLine(in), "");
+			Assert.assertEquals(in.seekCRLF(), -1);
+		}
+	}
+
+	private static String readLine (FastBufferedInputStream in) throws IOException {
+		int len = in.seekCRLF();
+		Assert.assertTrue(len >= 0);
+		String line = new String(in.array(), in.position(), len);
+		in.consume(len + 2);
+		return line;
+	}
+
+	static byte[] getRandomBytes (int size) {
+		byte[] data = new byte[size];
+		random.nextBytes(data);
+		return data;
+	}
+
+	/** Returns at most a few bytes per read, to exercise the buffer refill boundaries. */
+	static class TricklingInputStream extends ByteArrayInputStream {
+		TricklingInputStream (byte[] data) { super(data); }
+		@Override
+		public synchronized int read (byte[] b, int off, int len) {
+			return super.read(b, off, Math.min(len, 1 + random.nextInt(13)));
+		}
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ *   Copyright 2009-2011 Joubin Houshyar
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+
+package org.jredis.ri.alphazero.support;
+
+import org.testng.annotations.*;
+import org.testng.Assert;
+
+/**
+ * Tests the ordering, capacity, and producer/consumer hand-off of {@link RingQueue}.
+ *
+ * @author  Joubin Houshyar (alphazero@sensesay.net)
+ * @version alpha.0, Jan 19, 2011
+ * @since   alpha.0
+ *
+ */
+
+@Test(suiteName="support-tests")
+public class RingQueueTest {
+
+	@Test
+	public void testCapacityAndOrder() throws InterruptedException {
+		Log.log("Testing RingQueue capacity and order ...");
+		RingQueue<Integer> queue = new RingQueue<Integer>(5);
+		Assert.assertEquals(queue.capacity(), 8);
+		Assert.assertNull(queue.poll());
+		for(int round=0; round<3; round++){
+			for(int i=0; i<8; i++) queue.put(i);
+			Assert.assertTrue(queue.isFull());
+			Assert.assertEquals(queue.size(), 8);
+			for(int i=0; i<8; i++) Assert.assertEquals(queue.poll().intValue(), i);
+			Assert.assertNull(queue.poll());
+			Assert.assertEquals(queue.size(), 0);
+		}
+	}
+
+	@Test
+	public void testProducerConsumer() throws InterruptedException {
+		Log.log("Testing RingQueue producer/consumer hand-off ...");
+		final int cnt = 1000 * 100;
+		final RingQueue<Integer> queue = new RingQueue<Integer>(16);
+		Thread producer = new Thread(new Runnable() {
+			public void run () {
+				try {
+					for(int i=0; i<cnt; i++) {
+						queue.put(i);
+						if(i % 1000 == 0) Thread.sleep(1); // let the consumer park
+					}
+				}
+				catch (InterruptedException e) { }
+			}
+		});
+		producer.start();
+		for(int i=0; i<cnt; i++)
+			Assert.assertEquals(queue.take().intValue(), i);
+		producer.join();
+		Assert.assertNull(queue.poll());
+	}
+
+	@Test
+	public void testTakeInterrupted() {
+		Log.log("Testing RingQueue take interrupt ...");
+		RingQueue<Integer> queue = new RingQueue<Integer>(4);
+		Thread.currentThread().interrupt();
+		try {
+			queue.take();
+			Assert.fail("expected InterruptedException");
+		}
+		catch (InterruptedException e) { }
+	}
+}
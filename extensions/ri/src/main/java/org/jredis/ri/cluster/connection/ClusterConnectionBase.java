@@ -17,10 +17,13 @@
 package org.jredis.ri.cluster.connection;
 
 import static org.jredis.ri.alphazero.support.Assert.*;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Future;
@@ -140,6 +143,57 @@ abstract public class ClusterConnectionBase implements ClusterConnection, Connec
 		byte[] key = verifyAndGetKeyForRequest(cmd, args);
 		return getConnectionForKey(key).serviceRequest(cmd, args);
 	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#queueNoReplyRequest(org.jredis.protocol.Command, byte[][]) */
+	public void queueNoReplyRequest (Command cmd, byte[]... args)
+	        throws ClientRuntimeException, ProviderException
+    {
+		byte[] key = verifyAndGetKeyForRequest(cmd, args);
+		getConnectionForKey(key).queueNoReplyRequest(cmd, args);
+	}
+
+	/* (non-Javadoc) @see org.jredis.connector.Connection#awaitNoReplies() */
+	public long awaitNoReplies ()
+	        throws ClientRuntimeException, ProviderException
+    {
+		long errors = 0;
+		for(Connection conn : connections.values())
+			errors += conn.awaitNoReplies();
+		return errors;
+	}
+
+	/**
+	 * The requests are batched per the connection of their keys, and the responses of the
+	 * batches are returned in order of the requests.
+	 * @see org.jredis.connector.Connection#serviceRequests(org.jredis.protocol.Command[], byte[][][])
+	 */
+	public Response[] serviceRequests (Command[] cmds, byte[][][] args)
+	        throws ClientRuntimeException, ProviderException
+    {
+		if(cmds.length != args.length)
+			throw new IllegalArgumentException("a batch requires the same number of commands and args");
+		final Map<Connection, List<Integer>> batches = new LinkedHashMap<Connection, List<Integer>>();
+		for(int i=0; i<cmds.length; i++){
+			final Connection conn = getConnectionForKey(verifyAndGetKeyForRequest(cmds[i], args[i]));
+			List<Integer> batch = batches.get(conn);
+			if(null == batch) batches.put(conn, batch = new ArrayList<Integer>());
+			batch.add(i);
+		}
+		final Response[] responses = new Response[cmds.length];
+		for(Map.Entry<Connection, List<Integer>> batch : batches.entrySet()){
+			final List<Integer> indexes = batch.getValue();
+			final Command[] batchCmds = new Command[indexes.size()];
+			final byte[][][] batchArgs = new byte[indexes.size()][][];
+			for(int j=0; j<batchCmds.length; j++){
+				batchCmds[j] = cmds[indexes.get(j)];
+				batchArgs[j] = args[indexes.get(j)];
+			}
+			final Response[] batchResponses = batch.getKey().serviceRequests(batchCmds, batchArgs);
+			for(int j=0; j<batchResponses.length; j++)
+				responses[indexes.get(j)] = batchResponses[j];
+		}
+		return responses;
+	}
 	// ------------------------------------------------------------------------
 	// Event management
 